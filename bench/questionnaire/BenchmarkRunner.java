@@ -0,0 +1,40 @@
+package questionnaire;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar. Takes the usual JMH command line options and always
+ * adds the GC profiler, so every run reports allocation rates alongside timings.
+ *
+ * <p>Build and run with:
+ * <pre>
+ * mvn -P jmh package
+ * java -jar target/benchmarks.jar                      # everything
+ * java -jar target/benchmarks.jar Questionnaire -p size=1000
+ * </pre>
+ */
+public final class BenchmarkRunner {
+  private BenchmarkRunner() {
+  }
+
+  /**
+   * Runs the benchmarks selected on the command line with allocation profiling.
+   *
+   * @param args JMH command line options
+   * @throws CommandLineOptionException if the options cannot be parsed
+   * @throws RunnerException if a benchmark fails to run
+   */
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+    Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,74 @@
+package questionnaire;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how many answers per second each question type can validate and record.
+ * Each benchmark cycles through a few valid spellings of an answer.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QuestionBenchmark {
+  private static final String[] YES_NO = {"yes", "No", "YES", "no"};
+  private static final String[] LIKERT = {
+      "Strongly Agree", "agree", "Neither Agree Nor Disagree", "DISAGREE", "strongly disagree"
+  };
+  private static final String[] SHORT = {
+      "", "Fine.", "It could be faster when loading large questionnaires.",
+      "x".repeat(280)
+  };
+
+  private YesNo yesNo;
+  private Likert likert;
+  private ShortAnswer shortAnswer;
+  private int round;
+
+  /**
+   * Creates one question of each type.
+   */
+  @Setup
+  public void setUp() {
+    yesNo = new YesNo("Do you like it?", true);
+    likert = new Likert("It is easy to use.", true);
+    shortAnswer = new ShortAnswer("Why?", false);
+  }
+
+  /**
+   * Answers a yes/no question.
+   */
+  @Benchmark
+  public void answerYesNo() {
+    yesNo.answer(YES_NO[round++ & 3]);
+  }
+
+  /**
+   * Answers a Likert question.
+   */
+  @Benchmark
+  public void answerLikert() {
+    round = round + 1 == LIKERT.length ? 0 : round + 1;
+    likert.answer(LIKERT[round]);
+  }
+
+  /**
+   * Answers a short answer question.
+   */
+  @Benchmark
+  public void answerShortAnswer() {
+    shortAnswer.answer(SHORT[round++ & 3]);
+  }
+}
@@ -0,0 +1,186 @@
+package questionnaire;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures every {@link Questionnaire} operation of {@link QuestionnaireImpl} across
+ * questionnaire sizes. The questionnaire holds a mix of the three question types, about
+ * half of them required, with every other question answered.
+ *
+ * <p>Operations that change the questionnaire are measured in pairs that put it back the
+ * way it was, so its size stays fixed for the whole run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QuestionnaireBenchmark {
+  @Param({"10", "1000", "100000", "1000000"})
+  private int size;
+
+  private QuestionnaireImpl questionnaire;
+  private String[] identifiers;
+  private int cursor;
+  private int sortRound;
+
+  /**
+   * Builds the questionnaire for this size.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    questionnaire = new QuestionnaireImpl();
+    identifiers = new String[size];
+    for (int i = 0; i < size; i++) {
+      identifiers[i] = "q" + i;
+      Question question;
+      switch (i % 3) {
+        case 0:
+          question = new YesNo("Yes/no question " + i + "?", i % 2 == 0);
+          if (i % 2 == 0) {
+            question.answer("yes");
+          }
+          break;
+        case 1:
+          question = new Likert("Likert statement " + i + ".", i % 2 == 0);
+          if (i % 2 == 0) {
+            question.answer("Agree");
+          }
+          break;
+        default:
+          question = new ShortAnswer("Short answer question " + i + "?", i % 2 == 0);
+          if (i % 2 == 0) {
+            question.answer("Some answer " + i);
+          }
+          break;
+      }
+      questionnaire.addQuestion(identifiers[i], question);
+    }
+  }
+
+  // the next identifier to use, cycling through all of them
+  private String nextIdentifier() {
+    cursor = cursor + 1 == size ? 0 : cursor + 1;
+    return identifiers[cursor];
+  }
+
+  /**
+   * Adds a question at the end and removes it again.
+   */
+  @Benchmark
+  public void addQuestion() {
+    questionnaire.addQuestion("extra", new YesNo("Extra question?", false));
+    questionnaire.removeQuestion("extra");
+  }
+
+  /**
+   * Removes a question from anywhere in the questionnaire and adds it back at the end.
+   */
+  @Benchmark
+  public void removeQuestion() {
+    String identifier = nextIdentifier();
+    Question question = questionnaire.getQuestion(identifier);
+    questionnaire.removeQuestion(identifier);
+    questionnaire.addQuestion(identifier, question);
+  }
+
+  /**
+   * Looks a question up by its number.
+   *
+   * @return the question
+   */
+  @Benchmark
+  public Question getQuestionByNumber() {
+    cursor = cursor + 1 == size ? 0 : cursor + 1;
+    return questionnaire.getQuestion(cursor + 1);
+  }
+
+  /**
+   * Looks a question up by its identifier.
+   *
+   * @return the question
+   */
+  @Benchmark
+  public Question getQuestionByIdentifier() {
+    return questionnaire.getQuestion(nextIdentifier());
+  }
+
+  /**
+   * Filters out the optional questions.
+   *
+   * @return the filtered questionnaire
+   */
+  @Benchmark
+  public Questionnaire filter() {
+    return questionnaire.filter(Question::isRequired);
+  }
+
+  /**
+   * Sorts the questionnaire into an order unrelated to the current one.
+   */
+  @Benchmark
+  public void sort() {
+    // alternate between two hash-scrambled orders so every sort has real work to do
+    int salt = (sortRound++ & 1) == 0 ? 0x9E3779B1 : 0x85EBCA6B;
+    questionnaire.sort(Comparator.comparingInt(q -> q.getPrompt().hashCode() * salt));
+  }
+
+  /**
+   * Counts the answered questions with a fold.
+   *
+   * @return the count
+   */
+  @Benchmark
+  public int fold() {
+    return questionnaire.fold((q, count) -> q.getAnswer().isEmpty() ? count : count + 1, 0);
+  }
+
+  /**
+   * Checks whether every required question is answered.
+   *
+   * @return whether the questionnaire is complete
+   */
+  @Benchmark
+  public boolean isComplete() {
+    return questionnaire.isComplete();
+  }
+
+  /**
+   * Reads every response.
+   *
+   * @param blackhole consumes the responses
+   */
+  @Benchmark
+  public void getResponses(Blackhole blackhole) {
+    List<String> responses = questionnaire.getResponses();
+    for (String response : responses) {
+      blackhole.consume(response);
+    }
+  }
+
+  /**
+   * Renders the questionnaire as text.
+   *
+   * @return the text
+   */
+  @Benchmark
+  public String renderToString() {
+    return questionnaire.toString();
+  }
+}
@@ -1,20 +1,49 @@
 package questionnaire;
 
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 abstract class AbstractQuestion implements Question {
+  private static final ListenerRef[] NO_LISTENERS = new ListenerRef[0];
+
   protected final String prompt;
   protected final boolean required;
-  protected String answer;
+  // volatile so an answer recorded on one thread is fully visible to readers on any other
+  protected volatile String answer;
+
+  // questionnaires holding this question, told about every new answer; guarded by this.
+  // Held weakly, so a question shared by many questionnaires keeps none of them alive: each
+  // questionnaire holds its own listener strongly for as long as it needs it.
+  private ListenerRef[] listeners = NO_LISTENERS;
+  private int listenerCount;
 
   protected AbstractQuestion(String prompt, boolean required)
               throws IllegalArgumentException {
     if (prompt == null || prompt.isEmpty()) {
       throw new IllegalArgumentException("Prompt cannot be null or empty");
     }
-    this.prompt = prompt;
+    // share one String among equal prompts if a prompt pool is installed
+    this.prompt = PromptPool.pooled(prompt);
     this.required = required;
     this.answer = "";
   }
 
+  /**
+   * Constructs a question with the same prompt, required flag and answer as the given one,
+   * for {@link #copy}. The prompt is shared as it is, without a prompt pool lookup, since it
+   * already went through one when the original was made.
+   *
+   * @param original the question to copy
+   */
+  protected AbstractQuestion(AbstractQuestion original) {
+    this.prompt = original.prompt;
+    this.required = original.required;
+    this.answer = original.answer;
+  }
+
   @Override
   public String getPrompt() {
     return prompt;
@@ -34,9 +63,279 @@ abstract class AbstractQuestion implements Question {
   @Override
   public void answer(String response) {
     validateResponse(response);
-    this.answer = response;
+    record(response);
+  }
+
+  /**
+   * Checks the response by calling {@link #validateResponse}, for question types that only
+   * report their rules by throwing. The question types in this package override this to
+   * check without throwing.
+   *
+   * @param response the response to check
+   * @return {@link ValidationResult#OK} if the response is valid, otherwise why it is not
+   */
+  @Override
+  public ValidationResult validate(CharSequence response) {
+    if (response == null) {
+      return ValidationResult.NULL;
+    }
+    try {
+      validateResponse(response.toString());
+      return ValidationResult.OK;
+    } catch (IllegalArgumentException e) {
+      return ValidationResult.INVALID;
+    }
+  }
+
+  @Override
+  public ValidationResult tryAnswer(CharSequence response) {
+    ValidationResult result = validate(response);
+    if (result.isValid()) {
+      record(answerText(response));
+    }
+    return result;
+  }
+
+  /**
+   * Records an answer given as UTF-8 bytes if it is valid. ASCII bytes, which is what nearly
+   * every answer is, are validated through a view of the buffer rather than decoded, so a
+   * response is only turned into a String if it is valid and {@link #answerText} needs one.
+   *
+   * @param utf8 the answer as UTF-8 bytes
+   * @return {@link ValidationResult#OK} if the answer was recorded, otherwise why it was not
+   */
+  @Override
+  public ValidationResult tryAnswerUtf8(ByteBuffer utf8) {
+    if (utf8 == null) {
+      return ValidationResult.NULL;
+    }
+    int start = utf8.position();
+    int end = utf8.limit();
+    for (int i = start; i < end; i++) {
+      if (utf8.get(i) < 0) {
+        // other characters may still match an answer once case is folded, so decode them
+        String response = decodeUtf8(utf8);
+        return response == null ? ValidationResult.NOT_UTF8 : tryAnswer(response);
+      }
+    }
+    return tryAnswer(new AsciiView(utf8, start, end - start));
+  }
+
+  /**
+   * Returns the text to record for a validated response. Question types with shared
+   * spellings override this to return the shared string when the response matches one, so
+   * the response need not be turned into a String of its own.
+   *
+   * @param response the validated response
+   * @return the response as a String
+   */
+  protected String answerText(CharSequence response) {
+    return response.toString();
+  }
+
+  /**
+   * Records a validated response and tells the listeners.
+   *
+   * @param response the validated response
+   */
+  private void record(String response) {
+    // recording and notifying under one lock means each listener sees every answer exactly
+    // once, in order, and never one recorded before it registered
+    synchronized (this) {
+      String previous = this.answer;
+      this.answer = storeAnswer(response);
+      for (int i = 0; i < listenerCount; i++) {
+        AnswerListener listener = listeners[i].get();
+        if (listener != null) {
+          listener.answerChanged(this, previous);
+        }
+      }
+    }
+  }
+
+  /**
+   * Registers a listener to be told about every answer recorded from now on. A listener
+   * registered twice is told twice. Copies of this question start with no listeners.
+   *
+   * <p>The listener is held weakly: it is told about answers only for as long as something
+   * else keeps it reachable, and the caller must hold on to it for as long as it needs it.
+   *
+   * @param listener the listener to add
+   * @return the answer at the moment of registration, from which later notifications follow
+   */
+  synchronized String addAnswerListener(AnswerListener listener) {
+    if (listenerCount == listeners.length) {
+      // drop listeners that have been collected, and grow only if that frees too little,
+      // so registering k listeners costs O(k) in all
+      purgeListeners();
+      if (listenerCount * 2 >= listeners.length) {
+        listeners = Arrays.copyOf(listeners, Math.max(2, listeners.length * 2));
+      }
+    }
+    listeners[listenerCount++] = new ListenerRef(listener);
+    return answer;
+  }
+
+  /**
+   * Removes one registration of the given listener, if there is one.
+   *
+   * @param listener the listener to remove
+   * @return the answer at the moment of removal, the last one the listener was told about
+   */
+  synchronized String removeAnswerListener(AnswerListener listener) {
+    for (int i = 0; i < listenerCount; i++) {
+      if (listeners[i].get() == listener) {
+        System.arraycopy(listeners, i + 1, listeners, i, listenerCount - i - 1);
+        listeners[--listenerCount] = null;
+        break;
+      }
+    }
+    return answer;
+  }
+
+  /**
+   * Drops the registrations of listeners that have been collected.
+   */
+  private void purgeListeners() {
+    int kept = 0;
+    for (int i = 0; i < listenerCount; i++) {
+      if (listeners[i].get() != null) {
+        listeners[kept++] = listeners[i];
+      }
+    }
+    Arrays.fill(listeners, kept, listenerCount, null);
+    listenerCount = kept;
   }
 
   // Abstract method for specific validation logic
   protected abstract void validateResponse(String response);
+
+  /**
+   * Records a validated response in any type-specific form and returns the text to keep as
+   * the answer. Question types with a fixed set of legal answers override this to keep a
+   * compact code alongside the text.
+   *
+   * @param response the validated response
+   * @return the text to keep, equal to the response
+   */
+  protected String storeAnswer(String response) {
+    return response;
+  }
+
+  /**
+   * Compares a response with the given text ignoring case, in the same way as
+   * {@link String#equalsIgnoreCase}, without allocating.
+   *
+   * @param response the response to compare, not null
+   * @param text the text to compare it with
+   * @return true if they are equal ignoring case
+   */
+  static boolean equalsIgnoreCase(CharSequence response, String text) {
+    if (response.length() != text.length()) {
+      return false;
+    }
+    for (int i = 0; i < text.length(); i++) {
+      char a = response.charAt(i);
+      char b = text.charAt(i);
+      if (a == b) {
+        continue;
+      }
+      // the same two-step comparison String.equalsIgnoreCase uses
+      char upperA = Character.toUpperCase(a);
+      char upperB = Character.toUpperCase(b);
+      if (upperA != upperB
+              && Character.toLowerCase(upperA) != Character.toLowerCase(upperB)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the shared instance from the given spellings that is equal to the response, or
+   * the response itself if there is none. Keeping the shared instance lets the caller's
+   * string be collected, so a million identical answers hold one string between them.
+   *
+   * @param response the response to look up
+   * @param spellings the shared spellings to choose from
+   * @return a string equal to the response
+   */
+  protected static String sharedSpelling(CharSequence response, String[] spellings) {
+    for (String spelling : spellings) {
+      if (spelling.contentEquals(response)) {
+        return spelling;
+      }
+    }
+    return response.toString();
+  }
+
+  /**
+   * Decodes the UTF-8 bytes between the buffer's position and limit, leaving the position
+   * where it is.
+   *
+   * @param utf8 the bytes
+   * @return the text, or null if the bytes are not valid UTF-8
+   */
+  static String decodeUtf8(ByteBuffer utf8) {
+    try {
+      return StandardCharsets.UTF_8.newDecoder().decode(utf8.duplicate()).toString();
+    } catch (CharacterCodingException e) {
+      return null;
+    }
+  }
+
+  /**
+   * A weak registration of one listener; a class of its own so registrations fit in a
+   * plain array.
+   */
+  private static final class ListenerRef extends WeakReference<AnswerListener> {
+    ListenerRef(AnswerListener listener) {
+      super(listener);
+    }
+  }
+
+  /**
+   * Reads ASCII bytes in a buffer as characters, without copying them.
+   */
+  private static final class AsciiView implements CharSequence {
+    private final ByteBuffer bytes;
+    private final int offset;
+    private final int length;
+
+    AsciiView(ByteBuffer bytes, int offset, int length) {
+      this.bytes = bytes;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (index < 0 || index >= length) {
+        throw new IndexOutOfBoundsException("No character at index " + index);
+      }
+      return (char) bytes.get(offset + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      if (start < 0 || end > length || start > end) {
+        throw new IndexOutOfBoundsException("No subsequence " + start + " to " + end);
+      }
+      return new AsciiView(bytes, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+      byte[] copy = new byte[length];
+      for (int i = 0; i < length; i++) {
+        copy[i] = bytes.get(offset + i);
+      }
+      return new String(copy, StandardCharsets.US_ASCII);
+    }
+  }
 }
@@ -0,0 +1,16 @@
+package questionnaire;
+
+/**
+ * Receives a notification each time a question it is registered with records an answer.
+ * Used by questionnaires to keep per-answer bookkeeping, such as the number of unanswered
+ * required questions, up to date without rescanning every question.
+ */
+interface AnswerListener {
+  /**
+   * Called after the given question has recorded a new answer.
+   *
+   * @param question the question that was answered
+   * @param previous the answer the question held before, never null
+   */
+  void answerChanged(Question question, String previous);
+}
@@ -0,0 +1,348 @@
+package questionnaire;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * A questionnaire that many threads can use at once. Questions can be added, removed,
+ * looked up and answered from any thread, and every operation takes effect atomically.
+ *
+ * <p>Looking a question up by identifier never blocks: identifiers are kept in a concurrent
+ * map. The question order is kept in a {@link QuestionnaireImpl} guarded by a
+ * {@link StampedLock}, so any number of threads can read it at once while changes to it
+ * take turns. Answering a question does not take the questionnaire's lock at all; questions
+ * record their answers safely on their own, and the questionnaire keeps its completion
+ * count up to date from them.
+ *
+ * <p>The lists returned by {@link #getRequiredQuestions()}, {@link #getOptionalQuestions()}
+ * and {@link #getResponses()} are snapshots taken at the time of the call.
+ */
+public class ConcurrentQuestionnaire implements Questionnaire {
+  private final StampedLock lock;
+
+  /** The questions in order; guarded by lock. */
+  private final QuestionnaireImpl questions;
+
+  /** The same questions by identifier, readable without the lock. */
+  private final ConcurrentHashMap<String, Question> byIdentifier;
+
+  /**
+   * Constructs an empty questionnaire.
+   */
+  public ConcurrentQuestionnaire() {
+    this(new QuestionnaireImpl());
+  }
+
+  /**
+   * Constructs a questionnaire taking over the questions of the given one, which must not
+   * be used by anything else afterwards.
+   *
+   * @param questions the questions to start with
+   */
+  private ConcurrentQuestionnaire(QuestionnaireImpl questions) {
+    this.lock = new StampedLock();
+    this.questions = questions;
+    this.byIdentifier = new ConcurrentHashMap<>();
+    for (String identifier : questions.getIdentifiers()) {
+      byIdentifier.put(identifier, questions.getQuestion(identifier));
+    }
+  }
+
+  /**
+   * Adds a question to the end of the questionnaire.
+   *
+   * @param identifier a unique identifier for the question, must not be null or empty
+   * @param q the question to add
+   * @throws IllegalArgumentException if the identifier is null, empty, or already exists,
+   *                                  or the question is null
+   */
+  @Override
+  public void addQuestion(String identifier, Question q) {
+    long stamp = lock.writeLock();
+    try {
+      questions.addQuestion(identifier, q);
+      byIdentifier.put(identifier, q);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Remove the question with the given identifier from the questionnaire.
+   *
+   * @param identifier the identifier of the question to be removed.
+   * @throws NoSuchElementException if there is no question with the given
+   *                                identifier.
+   */
+  @Override
+  public void removeQuestion(String identifier) {
+    long stamp = lock.writeLock();
+    try {
+      questions.removeQuestion(identifier);
+      byIdentifier.remove(identifier);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Adds several questions to the end of the questionnaire as one atomic change: other
+   * threads see either none of them or all of them.
+   *
+   * @param questions the questions to add, by identifier
+   * @throws IllegalArgumentException if the map is null, or holds a null or empty
+   *                                  identifier, an identifier already in the
+   *                                  questionnaire, or a null question
+   */
+  @Override
+  public void addAll(Map<String, Question> questions) {
+    long stamp = lock.writeLock();
+    try {
+      this.questions.addAll(questions);
+      byIdentifier.putAll(questions);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Removes the questions with the given identifiers as one atomic change: other threads
+   * see either none of them removed or all of them.
+   *
+   * @param identifiers the identifiers of the questions to remove
+   * @throws IllegalArgumentException if the collection is null
+   * @throws NoSuchElementException if there is no question with one of the identifiers
+   */
+  @Override
+  public void removeAll(Collection<String> identifiers) {
+    long stamp = lock.writeLock();
+    try {
+      questions.removeAll(identifiers);
+      byIdentifier.keySet().removeAll(identifiers);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Answers several questions as one atomic change: every response is validated first, and
+   * other threads reading this questionnaire see either none of the answers or all of them.
+   * If any response is invalid or names no question, nothing is answered.
+   *
+   * @param responses the responses to record, by question identifier
+   * @throws IllegalArgumentException if the map is null or one of the responses is not
+   *                                  valid for its question
+   * @throws NoSuchElementException if there is no question with one of the identifiers
+   */
+  @Override
+  public void answerAll(Map<String, String> responses) {
+    long stamp = lock.writeLock();
+    try {
+      questions.answerAll(responses);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Get the question with the given number, based on the order in which it was
+   * added to the questionnaire, or the sorted order if the {@code sort()} method is called.
+   *
+   * @param num the number of the question, counting from 1
+   * @return the question
+   * @throws IndexOutOfBoundsException if there is no such question num
+   */
+  @Override
+  public Question getQuestion(int num) {
+    long stamp = lock.readLock();
+    try {
+      return questions.getQuestion(num);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Get the question with the given identifier. Never blocks.
+   *
+   * @param identifier the identifier of the question
+   * @return the question
+   * @throws NoSuchElementException if there is no question with the identifier
+   */
+  @Override
+  public Question getQuestion(String identifier) {
+    Question question = identifier == null ? null : byIdentifier.get(identifier);
+    if (question == null) {
+      throw new NoSuchElementException("No questions found with that Identifier");
+    }
+    return question;
+  }
+
+  /**
+   * Return a snapshot of all required questions in the questionnaire.
+   *
+   * @return the required questions.
+   */
+  @Override
+  public List<Question> getRequiredQuestions() {
+    return read(() -> Collections.unmodifiableList(
+            new ArrayList<>(questions.getRequiredQuestions())));
+  }
+
+  /**
+   * Return a snapshot of all optional questions in the questionnaire.
+   *
+   * @return the optional questions.
+   */
+  @Override
+  public List<Question> getOptionalQuestions() {
+    return read(() -> Collections.unmodifiableList(
+            new ArrayList<>(questions.getOptionalQuestions())));
+  }
+
+  /**
+   * Report if all required questions have some non-empty answer.
+   *
+   * @return true if all required questions have responses, false otherwise.
+   */
+  @Override
+  public boolean isComplete() {
+    long stamp = lock.readLock();
+    try {
+      return questions.isComplete();
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * Return a snapshot of the responses to all the questions in the questionnaire.
+   *
+   * @return the responses
+   */
+  @Override
+  public List<String> getResponses() {
+    return read(() -> Collections.unmodifiableList(new ArrayList<>(questions.getResponses())));
+  }
+
+  /**
+   * Produce a new concurrent questionnaire containing copies of just the questions where
+   * the given predicate returns true, in order.
+   *
+   * @param pq the predicate
+   * @return the new questionnaire
+   * @throws IllegalArgumentException if the predicate is null
+   */
+  @Override
+  public Questionnaire filter(Predicate<Question> pq) {
+    QuestionnaireImpl filtered = read(() -> (QuestionnaireImpl) questions.filter(pq));
+    return new ConcurrentQuestionnaire(filtered);
+  }
+
+  /**
+   * Sort the questions according to the given comparator.
+   *
+   * @param comp a comparator for Question
+   * @throws IllegalArgumentException if the comparator is null
+   */
+  @Override
+  public void sort(Comparator<Question> comp) {
+    long stamp = lock.writeLock();
+    try {
+      questions.sort(comp);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Produce a single summary value based on the given folding function and seed value.
+   * No question is added, removed or moved while the fold runs.
+   *
+   * @param bf   the folding function
+   * @param seed the seed value
+   * @return the summary value
+   * @throws IllegalArgumentException if the folding function is null
+   */
+  @Override
+  public <R> R fold(BiFunction<Question, R, R> bf, R seed) {
+    return read(() -> questions.fold(bf, seed));
+  }
+
+  /**
+   * Produce a single summary value by folding parts of the questionnaire independently and
+   * combining the partial results, as {@link QuestionnaireImpl} does.
+   *
+   * @param bf       the folding function
+   * @param combiner an associative function combining two partial results
+   * @param identity the identity value for the combiner
+   * @return the summary value
+   * @throws IllegalArgumentException if either function is null
+   */
+  @Override
+  public <R> R fold(BiFunction<Question, R, R> bf, BinaryOperator<R> combiner, R identity) {
+    return read(() -> questions.fold(bf, combiner, identity));
+  }
+
+  /**
+   * Produce a single summary value by running the questions through the given collector,
+   * as {@link QuestionnaireImpl} does.
+   *
+   * @param collector the collector
+   * @return the summary value
+   * @throws IllegalArgumentException if the collector is null
+   */
+  @Override
+  public <A, R> R collect(Collector<? super Question, A, R> collector) {
+    return read(() -> questions.collect(collector));
+  }
+
+  /**
+   * Returns the questionnaire in the text format described by {@link Questionnaire}.
+   *
+   * @return the questionnaire as a String
+   */
+  @Override
+  public String toString() {
+    return read(questions::toString);
+  }
+
+  /**
+   * Runs a traversal of the whole questionnaire under the read lock. Traversals first
+   * squeeze out the slots of removed questions, which changes the underlying storage, so if
+   * there are any the read lock is traded for the write lock while that happens.
+   *
+   * @param traversal the traversal to run
+   * @param <T> the traversal's result type
+   * @return the traversal's result
+   */
+  private <T> T read(Supplier<T> traversal) {
+    long stamp = lock.readLock();
+    try {
+      if (!questions.isCompact()) {
+        long writeStamp = lock.tryConvertToWriteLock(stamp);
+        if (writeStamp == 0L) {
+          lock.unlockRead(stamp);
+          writeStamp = lock.writeLock();
+        }
+        stamp = writeStamp;
+        questions.compact();
+      }
+      return traversal.get();
+    } finally {
+      lock.unlock(stamp);
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package questionnaire;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a bulk import by {@link ResponseImporter}: which respondents were added to
+ * the store, and every problem found in the input, in input order.
+ */
+public final class ImportReport {
+  private final int firstRespondent;
+  private final int respondents;
+  private final List<LineError> errors;
+
+  /**
+   * Constructs a report.
+   *
+   * @param firstRespondent the number of the first respondent added
+   * @param respondents the number of respondents added
+   * @param errors the problems found, in input order
+   */
+  ImportReport(int firstRespondent, int respondents, List<LineError> errors) {
+    this.firstRespondent = firstRespondent;
+    this.respondents = respondents;
+    this.errors = Collections.unmodifiableList(errors);
+  }
+
+  /**
+   * Returns the number the store gave the first imported respondent; the others follow on
+   * from it in input order.
+   *
+   * @return the first respondent's number
+   */
+  public int getFirstRespondent() {
+    return firstRespondent;
+  }
+
+  /**
+   * Returns the number of respondents added to the store.
+   *
+   * @return the respondent count
+   */
+  public int getRespondents() {
+    return respondents;
+  }
+
+  /**
+   * Returns every problem found in the input, in input order.
+   *
+   * @return a read-only list of the problems
+   */
+  public List<LineError> getErrors() {
+    return errors;
+  }
+
+  /**
+   * Reports whether the input was imported without any problem.
+   *
+   * @return true if there were no problems
+   */
+  public boolean isClean() {
+    return errors.isEmpty();
+  }
+
+  /**
+   * One problem in the input: either a single answer that was rejected, in which case the
+   * rest of the record was still imported, or a record that could not be read at all, in
+   * which case none of it was.
+   */
+  public static final class LineError {
+    private final long line;
+    private final String identifier;
+    private final String message;
+
+    /**
+     * Constructs an error.
+     *
+     * @param line the input line the record starts on, counting from 1
+     * @param identifier the question whose answer was rejected, or null for the whole record
+     * @param message what was wrong
+     */
+    LineError(long line, String identifier, String message) {
+      this.line = line;
+      this.identifier = identifier;
+      this.message = message;
+    }
+
+    /**
+     * Returns the input line the record starts on.
+     *
+     * @return the line number, counting from 1
+     */
+    public long getLine() {
+      return line;
+    }
+
+    /**
+     * Returns the identifier of the question whose answer was rejected.
+     *
+     * @return the identifier, or null if the whole record was rejected
+     */
+    public String getIdentifier() {
+      return identifier;
+    }
+
+    /**
+     * Returns what was wrong.
+     *
+     * @return the message
+     */
+    public String getMessage() {
+      return message;
+    }
+
+    /**
+     * Returns the error as "line N: message" or "line N, identifier: message".
+     *
+     * @return the error as a String
+     */
+    @Override
+    public String toString() {
+      return "line " + line + (identifier == null ? "" : ", " + identifier) + ": " + message;
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package questionnaire;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A question that hands every call on to another one, timing answers and validation and
+ * counting rejected responses in a {@link QuestionnaireMetrics}. Made by
+ * {@link InstrumentedQuestionnaire} for the questions it hands out.
+ */
+final class InstrumentedQuestion implements Question {
+  private final Question delegate;
+  private final QuestionnaireMetrics metrics;
+
+  /**
+   * Constructs a question measuring calls to the given one.
+   *
+   * @param delegate the question to hand calls on to
+   * @param metrics where to record them
+   */
+  InstrumentedQuestion(Question delegate, QuestionnaireMetrics metrics) {
+    this.delegate = delegate;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Returns the question calls are handed on to.
+   *
+   * @return the underlying question
+   */
+  Question unwrap() {
+    return delegate;
+  }
+
+  @Override
+  public String getPrompt() {
+    return delegate.getPrompt();
+  }
+
+  @Override
+  public boolean isRequired() {
+    return delegate.isRequired();
+  }
+
+  @Override
+  public String getAnswer() {
+    return delegate.getAnswer();
+  }
+
+  @Override
+  public void answer(String response) {
+    long start = metrics.start();
+    try {
+      delegate.answer(response);
+    } catch (IllegalArgumentException e) {
+      metrics.validationFailed(delegate);
+      throw e;
+    } finally {
+      metrics.stop(QuestionnaireMetrics.Operation.ANSWER, start);
+    }
+  }
+
+  @Override
+  public ValidationResult validate(CharSequence response) {
+    long start = metrics.start();
+    try {
+      return counted(delegate.validate(response));
+    } finally {
+      metrics.stop(QuestionnaireMetrics.Operation.VALIDATE, start);
+    }
+  }
+
+  @Override
+  public ValidationResult tryAnswer(CharSequence response) {
+    long start = metrics.start();
+    try {
+      return counted(delegate.tryAnswer(response));
+    } finally {
+      metrics.stop(QuestionnaireMetrics.Operation.ANSWER, start);
+    }
+  }
+
+  @Override
+  public ValidationResult tryAnswerUtf8(ByteBuffer utf8) {
+    long start = metrics.start();
+    try {
+      return counted(delegate.tryAnswerUtf8(utf8));
+    } finally {
+      metrics.stop(QuestionnaireMetrics.Operation.ANSWER, start);
+    }
+  }
+
+  /**
+   * Makes a copy of the underlying question, measured in the same metrics.
+   *
+   * @return the copy
+   */
+  @Override
+  public Question copy() {
+    return new InstrumentedQuestion(delegate.copy(), metrics);
+  }
+
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+
+  private ValidationResult counted(ValidationResult result) {
+    if (!result.isValid()) {
+      metrics.validationFailed(delegate);
+    }
+    return result;
+  }
+}
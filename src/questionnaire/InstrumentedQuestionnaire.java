@@ -0,0 +1,288 @@
+package questionnaire;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+import java.util.stream.Collector;
+
+/**
+ * A questionnaire that hands every call on to another one, counting and timing its
+ * operations in a {@link QuestionnaireMetrics}. The questions it hands out are measured
+ * too, so answering them counts towards answer latencies and rejected responses.
+ *
+ * <p>While the metrics are disabled, calls go straight through after a single flag check,
+ * and questions are handed out as they are. Questions handed out while disabled stay
+ * unmeasured after the metrics are enabled again.
+ */
+public class InstrumentedQuestionnaire implements Questionnaire {
+  private final Questionnaire delegate;
+  private final QuestionnaireMetrics metrics;
+
+  /**
+   * Constructs a questionnaire measuring calls to the given one.
+   *
+   * @param delegate the questionnaire to hand calls on to
+   * @param metrics where to record them
+   * @throws IllegalArgumentException if either is null
+   */
+  public InstrumentedQuestionnaire(Questionnaire delegate, QuestionnaireMetrics metrics) {
+    if (delegate == null) {
+      throw new IllegalArgumentException("Questionnaire cannot be null");
+    }
+    if (metrics == null) {
+      throw new IllegalArgumentException("Metrics cannot be null");
+    }
+    this.delegate = delegate;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Returns the metrics this questionnaire records into.
+   *
+   * @return the metrics
+   */
+  public QuestionnaireMetrics getMetrics() {
+    return metrics;
+  }
+
+  @Override
+  public void addQuestion(String identifier, Question q) {
+    long start = metrics.start();
+    try {
+      delegate.addQuestion(identifier, unwrap(q));
+    } finally {
+      metrics.stop(QuestionnaireMetrics.Operation.ADD_QUESTION, start);
+    }
+  }
+
+  @Override
+  public void removeQuestion(String identifier) {
+    long start = metrics.start();
+    try {
+      delegate.removeQuestion(identifier);
+    } finally {
+      metrics.stop(QuestionnaireMetrics.Operation.REMOVE_QUESTION, start);
+    }
+  }
+
+  @Override
+  public void addAll(Map<String, Question> questions) {
+    long start = metrics.start();
+    try {
+      if (questions == null) {
+        delegate.addAll(null);
+        return;
+      }
+      Map<String, Question> unwrapped = new LinkedHashMap<>();
+      for (Map.Entry<String, Question> entry : questions.entrySet()) {
+        unwrapped.put(entry.getKey(), unwrap(entry.getValue()));
+      }
+      delegate.addAll(unwrapped);
+    } finally {
+      metrics.stop(QuestionnaireMetrics.Operation.BATCH, start);
+    }
+  }
+
+  @Override
+  public void removeAll(Collection<String> identifiers) {
+    long start = metrics.start();
+    try {
+      delegate.removeAll(identifiers);
+    } finally {
+      metrics.stop(QuestionnaireMetrics.Operation.BATCH, start);
+    }
+  }
+
+  /**
+   * Answer several questions at once, counting a rejected batch against the question whose
+   * response was rejected.
+   *
+   * @param responses the responses, by question identifier
+   * @throws IllegalArgumentException if the map is null or any response is invalid
+   * @throws NoSuchElementException if any identifier is not in the questionnaire
+   */
+  @Override
+  public void answerAll(Map<String, String> responses) {
+    long start = metrics.start();
+    try {
+      delegate.answerAll(responses);
+    } catch (IllegalArgumentException e) {
+      if (responses != null) {
+        countRejected(responses);
+      }
+      throw e;
+    } finally {
+      metrics.stop(QuestionnaireMetrics.Operation.BATCH, start);
+    }
+  }
+
+  @Override
+  public Question getQuestion(int num) {
+    long start = metrics.start();
+    try {
+      return wrap(delegate.getQuestion(num));
+    } finally {
+      metrics.stop(QuestionnaireMetrics.Operation.GET_QUESTION, start);
+    }
+  }
+
+  @Override
+  public Question getQuestion(String identifier) {
+    long start = metrics.start();
+    try {
+      return wrap(delegate.getQuestion(identifier));
+    } finally {
+      metrics.stop(QuestionnaireMetrics.Operation.GET_QUESTION, start);
+    }
+  }
+
+  @Override
+  public List<Question> getRequiredQuestions() {
+    return wrap(delegate.getRequiredQuestions());
+  }
+
+  @Override
+  public List<Question> getOptionalQuestions() {
+    return wrap(delegate.getOptionalQuestions());
+  }
+
+  @Override
+  public boolean isComplete() {
+    return delegate.isComplete();
+  }
+
+  @Override
+  public List<String> getResponses() {
+    return delegate.getResponses();
+  }
+
+  /**
+   * Produce a new questionnaire containing copies of the questions where the given
+   * predicate returns true, measured in the same metrics.
+   *
+   * @param pq the predicate
+   * @return the new questionnaire
+   */
+  @Override
+  public Questionnaire filter(Predicate<Question> pq) {
+    long start = metrics.start();
+    try {
+      return new InstrumentedQuestionnaire(delegate.filter(pq), metrics);
+    } finally {
+      metrics.stop(QuestionnaireMetrics.Operation.FILTER, start);
+    }
+  }
+
+  @Override
+  public void sort(Comparator<Question> comp) {
+    long start = metrics.start();
+    try {
+      delegate.sort(comp);
+    } finally {
+      metrics.stop(QuestionnaireMetrics.Operation.SORT, start);
+    }
+  }
+
+  @Override
+  public <R> R fold(BiFunction<Question, R, R> bf, R seed) {
+    long start = metrics.start();
+    try {
+      return delegate.fold(bf, seed);
+    } finally {
+      metrics.stop(QuestionnaireMetrics.Operation.FOLD, start);
+    }
+  }
+
+  @Override
+  public <R> R fold(BiFunction<Question, R, R> bf, BinaryOperator<R> combiner, R identity) {
+    long start = metrics.start();
+    try {
+      return delegate.fold(bf, combiner, identity);
+    } finally {
+      metrics.stop(QuestionnaireMetrics.Operation.FOLD, start);
+    }
+  }
+
+  @Override
+  public <A, R> R collect(Collector<? super Question, A, R> collector) {
+    long start = metrics.start();
+    try {
+      return delegate.collect(collector);
+    } finally {
+      metrics.stop(QuestionnaireMetrics.Operation.FOLD, start);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+
+  /**
+   * Finds the response a batch was rejected for, which is the first that does not validate,
+   * since nothing is answered until every response has.
+   */
+  private void countRejected(Map<String, String> responses) {
+    for (Map.Entry<String, String> entry : responses.entrySet()) {
+      Question q;
+      try {
+        q = delegate.getQuestion(entry.getKey());
+      } catch (IllegalArgumentException | NoSuchElementException e) {
+        // rejected for its identifier rather than a response
+        return;
+      }
+      if (!q.validate(entry.getValue()).isValid()) {
+        metrics.validationFailed(q);
+        return;
+      }
+    }
+  }
+
+  private Question wrap(Question q) {
+    return metrics.isEnabled() ? new InstrumentedQuestion(q, metrics) : q;
+  }
+
+  private List<Question> wrap(List<Question> questions) {
+    return metrics.isEnabled() ? new InstrumentedList(questions) : questions;
+  }
+
+  /**
+   * Hands the delegate the question underneath a measured one, so questionnaires that
+   * follow their questions' answers can still do so.
+   *
+   * @param q the question given
+   * @return the question to hand on
+   */
+  private static Question unwrap(Question q) {
+    return q instanceof InstrumentedQuestion ? ((InstrumentedQuestion) q).unwrap() : q;
+  }
+
+  /**
+   * A read-only view of a list of questions that hands them out measured.
+   */
+  private final class InstrumentedList extends AbstractList<Question> implements RandomAccess {
+    private final List<Question> questions;
+
+    private InstrumentedList(List<Question> questions) {
+      this.questions = questions;
+    }
+
+    @Override
+    public Question get(int index) {
+      return new InstrumentedQuestion(questions.get(index), metrics);
+    }
+
+    @Override
+    public int size() {
+      return questions.size();
+    }
+  }
+}
@@ -0,0 +1,177 @@
+package questionnaire;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies in nanoseconds that any number of threads can record into at
+ * once without locking. Values are counted in log-linear buckets, as HdrHistogram does: an
+ * exact bucket for each value below {@value #SUB_COUNT}, then {@value #SUB_COUNT} buckets
+ * for each power of two, so any value is placed within about 3% of its true size while the
+ * whole range of a long fits in under two thousand counters.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BITS = 5;
+  private static final int SUB_COUNT = 1 << SUB_BITS;
+  /** Enough buckets for every non-negative long. */
+  private static final int BUCKETS = SUB_COUNT * (64 - SUB_BITS);
+
+  private final AtomicLongArray counts;
+  private final LongAdder total;
+  private final AtomicLong max;
+
+  /**
+   * Constructs an empty histogram.
+   */
+  public LatencyHistogram() {
+    this.counts = new AtomicLongArray(BUCKETS);
+    this.total = new LongAdder();
+    this.max = new AtomicLong();
+  }
+
+  /**
+   * Records one latency. Negative values, which a clock adjustment can produce, count as 0.
+   *
+   * @param nanos the latency in nanoseconds
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(indexOf(value));
+    total.add(value);
+    // most values are below the maximum, so read before trying to raise it
+    if (value > max.get()) {
+      max.accumulateAndGet(value, Math::max);
+    }
+  }
+
+  /**
+   * Takes a copy of the counts so far. Values recorded while the copy is taken may or may
+   * not be in it.
+   *
+   * @return the copy
+   */
+  public Snapshot snapshot() {
+    long[] copy = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = counts.get(i);
+    }
+    return new Snapshot(copy, total.sum(), max.get());
+  }
+
+  /**
+   * Clears the histogram. Values recorded while it is cleared may or may not be kept.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+    total.reset();
+    max.set(0);
+  }
+
+  /**
+   * Returns the bucket holding the given value.
+   *
+   * @param value a non-negative value
+   * @return the bucket's index
+   */
+  static int indexOf(long value) {
+    if (value < SUB_COUNT) {
+      return (int) value;
+    }
+    // keep the top SUB_BITS + 1 bits; the highest one is always set, so drop it
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+    int sub = (int) (value >>> shift) - SUB_COUNT;
+    return SUB_COUNT + shift * SUB_COUNT + sub;
+  }
+
+  /**
+   * Returns the highest value counted in the given bucket.
+   *
+   * @param index the bucket's index
+   * @return the highest value the bucket holds
+   */
+  static long highestValue(int index) {
+    if (index < SUB_COUNT) {
+      return index;
+    }
+    int shift = (index - SUB_COUNT) / SUB_COUNT;
+    long lowest = (long) (SUB_COUNT + (index - SUB_COUNT) % SUB_COUNT) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  /**
+   * A histogram's counts at one point in time.
+   */
+  public static final class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long total;
+    private final long max;
+
+    private Snapshot(long[] counts, long total, long max) {
+      this.counts = counts;
+      long sum = 0;
+      for (long c : counts) {
+        sum += c;
+      }
+      this.count = sum;
+      this.total = total;
+      this.max = max;
+    }
+
+    /**
+     * Returns the number of values recorded.
+     *
+     * @return the count
+     */
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * Returns the mean of the values recorded.
+     *
+     * @return the mean in nanoseconds, or 0 if there are none
+     */
+    public double getMean() {
+      return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * Returns the largest value recorded.
+     *
+     * @return the maximum in nanoseconds, or 0 if there are none
+     */
+    public long getMax() {
+      return max;
+    }
+
+    /**
+     * Returns the value that the given percentage of values recorded are at or below, to
+     * within the precision of the buckets.
+     *
+     * @param percentile the percentage, from 0 to 100
+     * @return the value in nanoseconds, or 0 if there are none
+     * @throws IllegalArgumentException if the percentage is out of range
+     */
+    public long getValueAtPercentile(double percentile) {
+      if (!(percentile >= 0 && percentile <= 100)) {
+        throw new IllegalArgumentException("Percentile must be from 0 to 100");
+      }
+      if (count == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return Math.min(highestValue(i), max);
+        }
+      }
+      return max;
+    }
+  }
+}
@@ -6,7 +6,6 @@ package questionnaire;
  * This class extends AbstractQuestion and provides specific validation for Likert scale responses.
  */
 public class Likert extends AbstractQuestion {
-
   /**
    * Constructs a new Likert scale question.
    *
@@ -18,6 +17,15 @@ public class Likert extends AbstractQuestion {
     super(prompt, required);
   }
 
+  /**
+   * Constructs a copy of the given question, answer included.
+   *
+   * @param original the question to copy
+   */
+  private Likert(Likert original) {
+    super(original);
+  }
+
   /**
    * Validates that the response is one of the valid Likert scale options.
    * Valid options are case-insensitive and must match exactly one of:
@@ -28,21 +36,65 @@ public class Likert extends AbstractQuestion {
    */
   @Override
   protected void validateResponse(String response) {
-    if (response == null) {
-      throw new IllegalArgumentException("Response cannot be null");
+    ValidationResult result = validate(response);
+    if (!result.isValid()) {
+      throw new IllegalArgumentException(result.getMessage());
     }
+  }
 
-    boolean validResponse = false;
-    for (LikertResponseOption option : LikertResponseOption.values()) {
-      if (option.getText().equalsIgnoreCase(response)) {
-        validResponse = true;
-        break;
-      }
+  /**
+   * Checks that the response is one of the valid Likert scale options (case-insensitive),
+   * without throwing or allocating.
+   *
+   * @param response the response to check
+   * @return {@link ValidationResult#OK}, {@link ValidationResult#NULL} or
+   *         {@link ValidationResult#NOT_LIKERT}
+   */
+  @Override
+  public ValidationResult validate(CharSequence response) {
+    if (response == null) {
+      return ValidationResult.NULL;
     }
-
-    if (!validResponse) {
-      throw new IllegalArgumentException("Invalid Likert answer");
+    if (LikertResponseOption.parse(response) == null) {
+      return ValidationResult.NOT_LIKERT;
     }
+    return ValidationResult.OK;
+  }
+
+  /**
+   * Returns the text to keep for the response. {@link #getAnswer()} gives back the response
+   * as the caller spelled it, so the text cannot be reduced to an option; instead the
+   * option's shared spelling is kept when the response matches one, and only unusual
+   * capitalizations keep their own string.
+   *
+   * @param response the validated response
+   * @return the text to keep, equal to the response
+   */
+  @Override
+  protected String storeAnswer(String response) {
+    return sharedSpelling(response, LikertResponseOption.parse(response).getSpellings());
+  }
+
+  /**
+   * Returns the option's shared spelling of the validated response if it has one, so a
+   * response given as a view of other text need not become a String of its own.
+   *
+   * @param response the validated response
+   * @return the response as a String
+   */
+  @Override
+  protected String answerText(CharSequence response) {
+    return sharedSpelling(response, LikertResponseOption.parse(response).getSpellings());
+  }
+
+  /**
+   * Returns the current answer as a Likert option. The option is worked out from the answer
+   * text, so it always matches {@link #getAnswer()}.
+   *
+   * @return the option answered, or null if the question is unanswered
+   */
+  LikertResponseOption getOption() {
+    return LikertResponseOption.parse(answer);
   }
 
   /**
@@ -53,8 +105,6 @@ public class Likert extends AbstractQuestion {
    */
   @Override
   public Question copy() {
-    Likert copy = new Likert(this.prompt, this.required);
-    copy.answer = this.answer;
-    return copy;
+    return new Likert(this);
   }
 }
\ No newline at end of file
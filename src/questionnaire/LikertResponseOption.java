@@ -1,17 +1,44 @@
 package questionnaire;
 
+import java.util.Locale;
+
 enum LikertResponseOption {
   STRONGLY_DISAGREE(-2, "Strongly Disagree"),
   DISAGREE(-1, "Disagree"),
   NEUTRAL(0, "Neither Agree Nor Disagree"),
   AGREE(1, "Agree"),
   STRONGLY_AGREE(2, "Strongly Agree");
+
+  /**
+   * Options indexed by the length of their text. Every option's text has a different length,
+   * so the length of a response alone picks the only option it could match.
+   */
+  private static final LikertResponseOption[] BY_LENGTH;
+
+  static {
+    int longest = 0;
+    for (LikertResponseOption option : values()) {
+      longest = Math.max(longest, option.txt.length());
+    }
+    BY_LENGTH = new LikertResponseOption[longest + 1];
+    for (LikertResponseOption option : values()) {
+      if (BY_LENGTH[option.txt.length()] != null) {
+        throw new AssertionError("Likert option texts must have distinct lengths");
+      }
+      BY_LENGTH[option.txt.length()] = option;
+    }
+  }
+
   private final int val;
   private final String txt;
+  private final String[] spellings;
 
   LikertResponseOption(int val, String txt) {
     this.val = val;
     this.txt = txt;
+    this.spellings = new String[] {
+        txt, txt.toLowerCase(Locale.ROOT).intern(), txt.toUpperCase(Locale.ROOT).intern()
+    };
   }
 
   int getValue() {
@@ -21,4 +48,27 @@ enum LikertResponseOption {
   String getText() {
     return txt;
   }
+
+  // the usual ways of writing this option, shared by every question answered with it
+  String[] getSpellings() {
+    return spellings;
+  }
+
+  /**
+   * Finds the option whose text matches the response, ignoring case in the same way as
+   * {@link String#equalsIgnoreCase}. Allocates nothing.
+   *
+   * @param response the response to match
+   * @return the matching option, or null if the response is null or matches no option
+   */
+  static LikertResponseOption parse(CharSequence response) {
+    if (response == null || response.length() >= BY_LENGTH.length) {
+      return null;
+    }
+    LikertResponseOption candidate = BY_LENGTH[response.length()];
+    if (candidate == null || !AbstractQuestion.equalsIgnoreCase(response, candidate.txt)) {
+      return null;
+    }
+    return candidate;
+  }
 }
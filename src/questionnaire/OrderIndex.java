@@ -0,0 +1,151 @@
+package questionnaire;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * A rank index over a growing sequence of slots, some of which are live and some of which
+ * have been removed. Backed by a Fenwick (binary indexed) tree, so marking a slot removed,
+ * finding the slot holding the k-th live entry, and finding the rank of a slot are all
+ * O(log n). Appending a slot is amortized O(log n).
+ */
+final class OrderIndex {
+  /** Fenwick tree of live counts, 1-based; entries past {@code slots} are always zero. */
+  private int[] tree;
+  /** Number of slots appended since the last reset, live or not. */
+  private int slots;
+  /** Number of live slots. */
+  private int live;
+
+  /**
+   * Constructs an empty index.
+   */
+  OrderIndex() {
+    this.tree = new int[16];
+  }
+
+  /**
+   * Returns the number of live slots.
+   *
+   * @return the live slot count
+   */
+  int size() {
+    return live;
+  }
+
+  /**
+   * Returns the number of slots appended since the last reset, including removed ones.
+   *
+   * @return the total slot count
+   */
+  int slotCount() {
+    return slots;
+  }
+
+  /**
+   * Appends a new slot at the end of the sequence.
+   *
+   * @param isLive true if the new slot holds a live entry
+   */
+  void append(boolean isLive) {
+    int i = ++slots;
+    if (i >= tree.length) {
+      // entries already in the tree cover fixed ranges, so growing never invalidates them
+      tree = Arrays.copyOf(tree, tree.length * 2);
+    }
+    // tree[i] covers (i - lowbit(i), i]: this slot plus the live counts already stored there
+    int sum = isLive ? 1 : 0;
+    int low = i - (i & -i);
+    for (int j = i - 1; j > low; j -= j & -j) {
+      sum += tree[j];
+    }
+    tree[i] = sum;
+    if (isLive) {
+      live++;
+    }
+  }
+
+  /**
+   * Marks the given live slot as removed.
+   *
+   * @param slot the zero-based slot to remove
+   */
+  void remove(int slot) {
+    for (int j = slot + 1; j <= slots; j += j & -j) {
+      tree[j]--;
+    }
+    live--;
+  }
+
+  /**
+   * Returns the zero-based slot holding the live entry with the given rank.
+   *
+   * @param rank the rank of the entry, counting from 1
+   * @return the slot holding that entry
+   * @throws IndexOutOfBoundsException if there is no live entry with that rank
+   */
+  int select(int rank) {
+    if (rank < 1 || rank > live) {
+      throw new IndexOutOfBoundsException("No live slot with rank " + rank);
+    }
+    if (live == slots) {
+      // nothing removed, so ranks and slots line up
+      return rank - 1;
+    }
+    int pos = 0;
+    int remaining = rank;
+    for (int step = Integer.highestOneBit(slots); step > 0; step >>= 1) {
+      int next = pos + step;
+      if (next <= slots && tree[next] < remaining) {
+        pos = next;
+        remaining -= tree[next];
+      }
+    }
+    // pos is the last 1-based position with fewer than rank live entries
+    return pos;
+  }
+
+  /**
+   * Returns the number of live slots at or before the given slot.
+   *
+   * @param slot the zero-based slot
+   * @return the rank of that slot if it is live
+   */
+  int rank(int slot) {
+    if (live == slots) {
+      return slot + 1;
+    }
+    int sum = 0;
+    for (int j = slot + 1; j > 0; j -= j & -j) {
+      sum += tree[j];
+    }
+    return sum;
+  }
+
+  /**
+   * Discards every slot and starts again with the given number of slots.
+   *
+   * @param slotCount the number of slots after the reset
+   * @param isLive tells whether the slot at a given zero-based index is live
+   */
+  void reset(int slotCount, IntPredicate isLive) {
+    int capacity = 16;
+    while (capacity <= slotCount) {
+      capacity *= 2;
+    }
+    tree = new int[capacity];
+    live = 0;
+    // linear-time build: each node pushes its count up to its parent
+    for (int i = 1; i <= slotCount; i++) {
+      if (isLive.test(i - 1)) {
+        tree[i]++;
+        live++;
+      }
+      int parent = i + (i & -i);
+      if (parent <= slotCount) {
+        tree[parent] += tree[i];
+      }
+    }
+    slots = slotCount;
+  }
+}
@@ -0,0 +1,495 @@
+package questionnaire;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * An immutable questionnaire. Adding, removing, answering or sorting questions returns a new
+ * version and leaves this one unchanged, so any number of earlier versions can be kept.
+ *
+ * <p>Versions share structure: the questions are kept in persistent balanced trees, one in
+ * questionnaire order and one by identifier, so a new version made by {@link #with},
+ * {@link #without} or {@link #withAnswer} costs O(log n) time and memory rather than a copy
+ * of every question. {@link #filter} shares the questions it keeps instead of copying them.
+ *
+ * <p>Because the questions inside a version must never change, the questions returned by
+ * {@link #getQuestion(int)}, {@link #getQuestion(String)}, {@link #getRequiredQuestions()} and
+ * {@link #getOptionalQuestions()} are copies; the two lists copy each question only when it
+ * is first asked for. Functions passed to {@link #filter}, {@link #sorted} and {@link #fold}
+ * are handed copies too, of the question's own type, so answering one leaves the version
+ * unchanged. The mutators of {@link Questionnaire} are not supported.
+ */
+public final class PersistentQuestionnaire implements Questionnaire {
+  private static final PersistentQuestionnaire EMPTY =
+          new PersistentQuestionnaire(PersistentTree.empty(), PersistentTree.empty(), 0L, 0);
+
+  /** Entries keyed by sequence number; ascending sequence numbers give questionnaire order. */
+  private final PersistentTree<Long, Entry> order;
+
+  /** The same entries keyed by identifier. */
+  private final PersistentTree<String, Entry> byIdentifier;
+
+  /** The sequence number the next added question will get. */
+  private final long nextSeq;
+
+  /** Number of required questions without a non-empty answer. */
+  private final int unansweredRequired;
+
+  /**
+   * Constructs a version from its parts.
+   */
+  private PersistentQuestionnaire(PersistentTree<Long, Entry> order,
+          PersistentTree<String, Entry> byIdentifier, long nextSeq, int unansweredRequired) {
+    this.order = order;
+    this.byIdentifier = byIdentifier;
+    this.nextSeq = nextSeq;
+    this.unansweredRequired = unansweredRequired;
+  }
+
+  /**
+   * Returns the empty questionnaire.
+   *
+   * @return a questionnaire with no questions
+   */
+  public static PersistentQuestionnaire empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Returns the number of questions.
+   *
+   * @return the question count
+   */
+  public int size() {
+    return order.size();
+  }
+
+  /**
+   * Returns a new version with a copy of the given question added to the end. Later changes
+   * to the given question do not affect the new version.
+   *
+   * @param identifier a unique identifier for the question, must not be null or empty
+   * @param q the question to add
+   * @return the new version
+   * @throws IllegalArgumentException if the identifier is null, empty, or already exists,
+   *                                  or the question is null
+   */
+  public PersistentQuestionnaire with(String identifier, Question q) {
+    if (identifier == null || identifier.isEmpty()) {
+      throw new IllegalArgumentException("please enter a valid identifier");
+    }
+    if (byIdentifier.get(identifier) != null) {
+      throw new IllegalArgumentException("trying to override questions with the same identifier");
+    }
+    if (q == null) {
+      throw new IllegalArgumentException("Question cannot be null");
+    }
+    Entry entry = new Entry(nextSeq, identifier, q.copy());
+    return new PersistentQuestionnaire(order.put(entry.seq, entry),
+            byIdentifier.put(identifier, entry), nextSeq + 1,
+            unansweredRequired + (isUnansweredRequired(entry.question) ? 1 : 0));
+  }
+
+  /**
+   * Returns a new version without the question with the given identifier.
+   *
+   * @param identifier the identifier of the question to remove
+   * @return the new version
+   * @throws NoSuchElementException if there is no question with the given identifier
+   */
+  public PersistentQuestionnaire without(String identifier) {
+    Entry entry = find(identifier);
+    if (entry == null) {
+      throw new NoSuchElementException("No question found with identifier: " + identifier);
+    }
+    return new PersistentQuestionnaire(order.remove(entry.seq), byIdentifier.remove(identifier),
+            nextSeq, unansweredRequired - (isUnansweredRequired(entry.question) ? 1 : 0));
+  }
+
+  /**
+   * Returns a new version in which the question with the given identifier has the given
+   * answer. Only that one question is copied.
+   *
+   * @param identifier the identifier of the question to answer
+   * @param response the answer
+   * @return the new version
+   * @throws NoSuchElementException if there is no question with the given identifier
+   * @throws IllegalArgumentException if the response is null or invalid for the question
+   */
+  public PersistentQuestionnaire withAnswer(String identifier, String response) {
+    Entry entry = find(identifier);
+    if (entry == null) {
+      throw new NoSuchElementException("No question found with identifier: " + identifier);
+    }
+    Question answered = entry.question.copy();
+    answered.answer(response);
+    Entry replacement = new Entry(entry.seq, identifier, answered);
+    int unanswered = unansweredRequired - (isUnansweredRequired(entry.question) ? 1 : 0)
+            + (isUnansweredRequired(answered) ? 1 : 0);
+    return new PersistentQuestionnaire(order.put(entry.seq, replacement),
+            byIdentifier.put(identifier, replacement), nextSeq, unanswered);
+  }
+
+  /**
+   * Returns a new version with the questions sorted according to the given comparator.
+   * Questions that compare equal keep their relative order.
+   *
+   * @param comp a comparator for Question
+   * @return the new version
+   * @throws IllegalArgumentException if the comparator is null
+   */
+  public PersistentQuestionnaire sorted(Comparator<Question> comp) {
+    if (comp == null) {
+      throw new IllegalArgumentException("Comparator cannot be null");
+    }
+    Entry[] entries = entries();
+    // copy each question once, however many times the comparator looks at it
+    Question[] copies = new Question[entries.length];
+    Integer[] ranks = new Integer[entries.length];
+    for (int i = 0; i < entries.length; i++) {
+      copies[i] = entries[i].question.copy();
+      ranks[i] = i;
+    }
+    Arrays.sort(ranks, (a, b) -> comp.compare(copies[a], copies[b]));
+    Entry[] sorted = new Entry[entries.length];
+    for (int i = 0; i < ranks.length; i++) {
+      sorted[i] = entries[ranks[i]];
+    }
+    return rebuild(sorted, sorted.length);
+  }
+
+  /**
+   * Not supported; use {@link #with} instead.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public void addQuestion(String identifier, Question q) {
+    throw new UnsupportedOperationException("PersistentQuestionnaire cannot be changed; use with");
+  }
+
+  /**
+   * Not supported; use {@link #without} instead.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public void removeQuestion(String identifier) {
+    throw new UnsupportedOperationException(
+            "PersistentQuestionnaire cannot be changed; use without");
+  }
+
+  /**
+   * Not supported; use {@link #with} instead.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public void addAll(Map<String, Question> questions) {
+    throw new UnsupportedOperationException("PersistentQuestionnaire cannot be changed; use with");
+  }
+
+  /**
+   * Not supported; use {@link #without} instead.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public void removeAll(Collection<String> identifiers) {
+    throw new UnsupportedOperationException(
+            "PersistentQuestionnaire cannot be changed; use without");
+  }
+
+  /**
+   * Not supported; use {@link #withAnswer} instead.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public void answerAll(Map<String, String> responses) {
+    throw new UnsupportedOperationException(
+            "PersistentQuestionnaire cannot be changed; use withAnswer");
+  }
+
+  /**
+   * Not supported; use {@link #sorted} instead.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public void sort(Comparator<Question> comp) {
+    throw new UnsupportedOperationException(
+            "PersistentQuestionnaire cannot be changed; use sorted");
+  }
+
+  /**
+   * Get a copy of the question with the given number, in O(log n).
+   *
+   * @param num the number of the question, counting from 1
+   * @return a copy of the question
+   * @throws IndexOutOfBoundsException if there is no such question num
+   */
+  @Override
+  public Question getQuestion(int num) {
+    if (num < 1 || num > order.size()) {
+      throw new IndexOutOfBoundsException("No valid question with that index");
+    }
+    return order.getByRank(num - 1).question.copy();
+  }
+
+  /**
+   * Get a copy of the question with the given identifier, in O(log n).
+   *
+   * @param identifier the identifier of the question
+   * @return a copy of the question
+   * @throws NoSuchElementException if there is no question with the identifier
+   */
+  @Override
+  public Question getQuestion(String identifier) {
+    Entry entry = find(identifier);
+    if (entry == null) {
+      throw new NoSuchElementException("No questions found with that Identifier");
+    }
+    return entry.question.copy();
+  }
+
+  /**
+   * Return copies of all required questions in the questionnaire. The list is read-only and
+   * copies each question the first time it is asked for.
+   *
+   * @return the required questions.
+   */
+  @Override
+  public List<Question> getRequiredQuestions() {
+    return new CopiesView(true);
+  }
+
+  /**
+   * Return copies of all optional questions in the questionnaire. The list is read-only and
+   * copies each question the first time it is asked for.
+   *
+   * @return the optional questions.
+   */
+  @Override
+  public List<Question> getOptionalQuestions() {
+    return new CopiesView(false);
+  }
+
+  /**
+   * Report if all required questions have some non-empty answer, in O(1).
+   *
+   * @return true if all required questions have responses, false otherwise.
+   */
+  @Override
+  public boolean isComplete() {
+    return unansweredRequired == 0;
+  }
+
+  /**
+   * Return a list of just the responses to all the questions in the questionnaire. The list
+   * is a read-only view of this version, which never changes; each response is found in
+   * O(log n) when asked for.
+   *
+   * @return the responses
+   */
+  @Override
+  public List<String> getResponses() {
+    return new ResponsesView();
+  }
+
+  /**
+   * Produce a new version containing just the questions where the given predicate returns
+   * true, in order. The predicate is handed a copy of each question, and since neither
+   * version can change, the questions kept are shared rather than copied into the result.
+   *
+   * @param pq the predicate
+   * @return the new version
+   * @throws IllegalArgumentException if the predicate is null
+   */
+  @Override
+  public PersistentQuestionnaire filter(Predicate<Question> pq) {
+    if (pq == null) {
+      throw new IllegalArgumentException("Predicate cannot be null");
+    }
+    Entry[] entries = entries();
+    int kept = 0;
+    for (Entry entry : entries) {
+      if (pq.test(entry.question.copy())) {
+        entries[kept++] = entry;
+      }
+    }
+    return rebuild(entries, kept);
+  }
+
+  /**
+   * Produce a single summary value based on the given folding function and seed value. The
+   * function is handed a copy of each question.
+   *
+   * @param bf   the folding function
+   * @param seed the seed value
+   * @return the summary value
+   * @throws IllegalArgumentException if the folding function is null
+   */
+  @Override
+  public <R> R fold(BiFunction<Question, R, R> bf, R seed) {
+    if (bf == null) {
+      throw new IllegalArgumentException("BiFunction cannot be null");
+    }
+    R result = seed;
+    for (Entry entry : entries()) {
+      result = bf.apply(entry.question.copy(), result);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the questionnaire in the text format described by {@link Questionnaire}.
+   *
+   * @return the questionnaire as a String
+   */
+  @Override
+  public String toString() {
+    StringBuilder stringBuilder = new StringBuilder();
+    order.forEach((seq, entry) -> {
+      // add double newline ONLY between questions, not after last one
+      if (stringBuilder.length() > 0) {
+        stringBuilder.append(QuestionnaireImpl.SEPARATOR);
+      }
+      stringBuilder.append(QuestionnaireImpl.QUESTION_LABEL).append(entry.question.getPrompt())
+              .append(QuestionnaireImpl.SEPARATOR)
+              .append(QuestionnaireImpl.ANSWER_LABEL).append(entry.question.getAnswer());
+    });
+    return stringBuilder.toString();
+  }
+
+  /**
+   * Converts this version into an independent, changeable questionnaire holding copies of
+   * its questions in order.
+   *
+   * @return the new questionnaire
+   */
+  public QuestionnaireImpl toQuestionnaire() {
+    QuestionnaireImpl questionnaire = new QuestionnaireImpl();
+    order.forEach((seq, entry) ->
+            questionnaire.addQuestion(entry.identifier, entry.question.copy()));
+    return questionnaire;
+  }
+
+  private Entry find(String identifier) {
+    return identifier == null ? null : byIdentifier.get(identifier);
+  }
+
+  private Entry[] entries() {
+    Entry[] entries = new Entry[order.size()];
+    int[] next = new int[1];
+    order.forEach((seq, entry) -> entries[next[0]++] = entry);
+    return entries;
+  }
+
+  /**
+   * Builds a version holding the first {@code count} of the given entries in the given order,
+   * numbering them afresh. Takes linear time plus the time to sort the identifiers.
+   */
+  private static PersistentQuestionnaire rebuild(Entry[] entries, int count) {
+    Long[] seqs = new Long[count];
+    Entry[] renumbered = new Entry[count];
+    int unanswered = 0;
+    for (int i = 0; i < count; i++) {
+      Entry entry = entries[i];
+      seqs[i] = (long) i;
+      renumbered[i] = entry.seq == i ? entry : new Entry(i, entry.identifier, entry.question);
+      if (isUnansweredRequired(entry.question)) {
+        unanswered++;
+      }
+    }
+
+    Entry[] sortedById = Arrays.copyOf(renumbered, count);
+    Arrays.sort(sortedById, Comparator.comparing(entry -> entry.identifier));
+    String[] identifiers = new String[count];
+    for (int i = 0; i < count; i++) {
+      identifiers[i] = sortedById[i].identifier;
+    }
+
+    return new PersistentQuestionnaire(PersistentTree.fromSorted(seqs, renumbered, count),
+            PersistentTree.fromSorted(identifiers, sortedById, count), count, unanswered);
+  }
+
+  private static boolean isUnansweredRequired(Question q) {
+    return q.isRequired() && q.getAnswer().isEmpty();
+  }
+
+  /**
+   * A question together with its identifier and its position key. Never changes once built.
+   */
+  private static final class Entry {
+    final long seq;
+    final String identifier;
+    final Question question;
+
+    Entry(long seq, String identifier, Question question) {
+      this.seq = seq;
+      this.identifier = identifier;
+      this.question = question;
+    }
+  }
+
+  /**
+   * A read-only list of the answers in this version, in questionnaire order.
+   */
+  private final class ResponsesView extends AbstractList<String> implements RandomAccess {
+    @Override
+    public String get(int index) {
+      return order.getByRank(index).question.getAnswer();
+    }
+
+    @Override
+    public int size() {
+      return order.size();
+    }
+  }
+
+  /**
+   * A read-only list of copies of the required or the optional questions in this version, in
+   * questionnaire order. Each question is copied the first time it is asked for, and the same
+   * copy is returned after that.
+   */
+  private final class CopiesView extends AbstractList<Question> implements RandomAccess {
+    private final Entry[] entries;
+    private final Question[] copies;
+
+    CopiesView(boolean required) {
+      Entry[] all = entries();
+      int count = 0;
+      for (Entry entry : all) {
+        if (entry.question.isRequired() == required) {
+          all[count++] = entry;
+        }
+      }
+      entries = Arrays.copyOf(all, count);
+      copies = new Question[count];
+    }
+
+    @Override
+    public Question get(int index) {
+      Question copy = copies[index];
+      if (copy == null) {
+        copy = entries[index].question.copy();
+        copies[index] = copy;
+      }
+      return copy;
+    }
+
+    @Override
+    public int size() {
+      return entries.length;
+    }
+  }
+}
@@ -0,0 +1,259 @@
+package questionnaire;
+
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable sorted map from keys to values, kept as a balanced (AVL) binary search tree.
+ * Every change returns a new tree that shares all but the O(log n) nodes on the changed path
+ * with the old one, so old versions stay valid and cost nothing extra to keep. Each node also
+ * records the size of its subtree, so entries can be found by rank as well as by key.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+final class PersistentTree<K extends Comparable<? super K>, V> {
+  /** The shared empty tree; safe to share because trees never change. */
+  @SuppressWarnings("rawtypes")
+  private static final PersistentTree EMPTY = new PersistentTree<>(null);
+
+  private final Node<K, V> root;
+
+  /**
+   * Constructs a tree over the given nodes.
+   *
+   * @param root the root node, or null for an empty tree
+   */
+  private PersistentTree(Node<K, V> root) {
+    this.root = root;
+  }
+
+  /**
+   * Returns the empty tree.
+   *
+   * @param <K> the key type
+   * @param <V> the value type
+   * @return the empty tree
+   */
+  @SuppressWarnings("unchecked")
+  static <K extends Comparable<? super K>, V> PersistentTree<K, V> empty() {
+    return (PersistentTree<K, V>) EMPTY;
+  }
+
+  /**
+   * Builds a tree from keys already in ascending order, in linear time.
+   *
+   * @param keys the keys, strictly ascending
+   * @param values the values, parallel to the keys
+   * @param count how many of the keys and values to use
+   * @param <K> the key type
+   * @param <V> the value type
+   * @return the tree
+   */
+  static <K extends Comparable<? super K>, V> PersistentTree<K, V> fromSorted(K[] keys,
+          V[] values, int count) {
+    return count == 0 ? empty() : new PersistentTree<>(build(keys, values, 0, count));
+  }
+
+  /**
+   * Returns the number of entries.
+   *
+   * @return the entry count
+   */
+  int size() {
+    return size(root);
+  }
+
+  /**
+   * Returns the value for the given key.
+   *
+   * @param key the key to look up
+   * @return the value, or null if the key is absent
+   */
+  V get(K key) {
+    Node<K, V> node = root;
+    while (node != null) {
+      int cmp = key.compareTo(node.key);
+      if (cmp == 0) {
+        return node.value;
+      }
+      node = cmp < 0 ? node.left : node.right;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the value of the entry with the given rank in key order.
+   *
+   * @param index the zero-based rank
+   * @return the value
+   * @throws IndexOutOfBoundsException if there is no entry with that rank
+   */
+  V getByRank(int index) {
+    if (index < 0 || index >= size()) {
+      throw new IndexOutOfBoundsException("No entry at index " + index);
+    }
+    Node<K, V> node = root;
+    while (true) {
+      int leftSize = size(node.left);
+      if (index < leftSize) {
+        node = node.left;
+      } else if (index == leftSize) {
+        return node.value;
+      } else {
+        index -= leftSize + 1;
+        node = node.right;
+      }
+    }
+  }
+
+  /**
+   * Returns a tree with the given key mapped to the given value, replacing any earlier value.
+   *
+   * @param key the key
+   * @param value the value
+   * @return the new tree
+   */
+  PersistentTree<K, V> put(K key, V value) {
+    return new PersistentTree<>(put(root, key, value));
+  }
+
+  /**
+   * Returns a tree without the given key.
+   *
+   * @param key the key to remove
+   * @return the new tree, or this tree if the key is absent
+   */
+  PersistentTree<K, V> remove(K key) {
+    if (get(key) == null) {
+      return this;
+    }
+    return new PersistentTree<>(remove(root, key));
+  }
+
+  /**
+   * Passes every entry to the given action in ascending key order.
+   *
+   * @param action the action to run on each key and value
+   */
+  void forEach(BiConsumer<? super K, ? super V> action) {
+    forEach(root, action);
+  }
+
+  private static <K, V> void forEach(Node<K, V> node, BiConsumer<? super K, ? super V> action) {
+    // recursion depth is bounded by the tree height, about 1.44 log2 n
+    while (node != null) {
+      forEach(node.left, action);
+      action.accept(node.key, node.value);
+      node = node.right;
+    }
+  }
+
+  private static <K extends Comparable<? super K>, V> Node<K, V> put(Node<K, V> node, K key,
+          V value) {
+    if (node == null) {
+      return new Node<>(key, value, null, null);
+    }
+    int cmp = key.compareTo(node.key);
+    if (cmp < 0) {
+      return balance(node.key, node.value, put(node.left, key, value), node.right);
+    } else if (cmp > 0) {
+      return balance(node.key, node.value, node.left, put(node.right, key, value));
+    }
+    return new Node<>(key, value, node.left, node.right);
+  }
+
+  private static <K extends Comparable<? super K>, V> Node<K, V> remove(Node<K, V> node, K key) {
+    int cmp = key.compareTo(node.key);
+    if (cmp < 0) {
+      return balance(node.key, node.value, remove(node.left, key), node.right);
+    } else if (cmp > 0) {
+      return balance(node.key, node.value, node.left, remove(node.right, key));
+    }
+    if (node.left == null) {
+      return node.right;
+    }
+    if (node.right == null) {
+      return node.left;
+    }
+    // replace the removed node with its successor
+    Node<K, V> successor = node.right;
+    while (successor.left != null) {
+      successor = successor.left;
+    }
+    return balance(successor.key, successor.value, node.left, removeFirst(node.right));
+  }
+
+  private static <K, V> Node<K, V> removeFirst(Node<K, V> node) {
+    if (node.left == null) {
+      return node.right;
+    }
+    return balance(node.key, node.value, removeFirst(node.left), node.right);
+  }
+
+  /**
+   * Makes a node from the given parts, rotating once or twice if the two subtrees' heights
+   * differ by two, as they can after a single insertion or removal.
+   */
+  private static <K, V> Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+    int leftHeight = height(left);
+    int rightHeight = height(right);
+    if (leftHeight > rightHeight + 1) {
+      if (height(left.left) >= height(left.right)) {
+        return new Node<>(left.key, left.value, left.left,
+                new Node<>(key, value, left.right, right));
+      }
+      Node<K, V> middle = left.right;
+      return new Node<>(middle.key, middle.value,
+              new Node<>(left.key, left.value, left.left, middle.left),
+              new Node<>(key, value, middle.right, right));
+    }
+    if (rightHeight > leftHeight + 1) {
+      if (height(right.right) >= height(right.left)) {
+        return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left),
+                right.right);
+      }
+      Node<K, V> middle = right.left;
+      return new Node<>(middle.key, middle.value, new Node<>(key, value, left, middle.left),
+              new Node<>(right.key, right.value, middle.right, right.right));
+    }
+    return new Node<>(key, value, left, right);
+  }
+
+  private static <K, V> Node<K, V> build(K[] keys, V[] values, int from, int to) {
+    if (from >= to) {
+      return null;
+    }
+    int mid = (from + to) >>> 1;
+    return new Node<>(keys[mid], values[mid], build(keys, values, from, mid),
+            build(keys, values, mid + 1, to));
+  }
+
+  private static int size(Node<?, ?> node) {
+    return node == null ? 0 : node.size;
+  }
+
+  private static int height(Node<?, ?> node) {
+    return node == null ? 0 : node.height;
+  }
+
+  /**
+   * An immutable tree node, recording the size and height of the subtree it roots.
+   */
+  private static final class Node<K, V> {
+    final K key;
+    final V value;
+    final Node<K, V> left;
+    final Node<K, V> right;
+    final int size;
+    final int height;
+
+    Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+      this.key = key;
+      this.value = value;
+      this.left = left;
+      this.right = right;
+      this.size = size(left) + size(right) + 1;
+      this.height = Math.max(height(left), height(right)) + 1;
+    }
+  }
+}
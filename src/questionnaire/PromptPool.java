@@ -0,0 +1,192 @@
+package questionnaire;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of prompts that hands out one shared String for every equal prompt, so question
+ * banks where the same prompt recurs across versions and locales keep a single copy of it.
+ * Prompts are held weakly: once no question uses a prompt, it leaves the pool.
+ *
+ * <p>Pooling is off until a pool is installed with {@link #install}. While one is
+ * installed, every question made, whether directly, by {@link QuestionnaireCodec} or by
+ * {@link ResponseStore}, takes its prompt from it. Copies of a question share its prompt
+ * without a lookup, since it is already the pool's. The pool keeps count of how often a
+ * prompt was already there and an estimate of the memory that saved.
+ *
+ * <p>A pool is safe for use by several threads at once. It is split into independently
+ * locked stripes by hash, so threads making questions at the same time seldom wait for each
+ * other.
+ */
+public final class PromptPool {
+  /** The installed pool, or null when pooling is off. */
+  private static volatile PromptPool installed;
+
+  /** Number of stripes the pool is split into; a power of two. */
+  private static final int STRIPES = 32;
+
+  /** Canonical prompts, each mapped to a weak reference to itself, split by hash. */
+  private final Stripe[] stripes;
+
+  private final LongAdder hits;
+  private final LongAdder misses;
+  private final LongAdder bytesSaved;
+
+  /**
+   * Constructs an empty pool.
+   */
+  public PromptPool() {
+    this.stripes = new Stripe[STRIPES];
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe();
+    }
+    this.hits = new LongAdder();
+    this.misses = new LongAdder();
+    this.bytesSaved = new LongAdder();
+  }
+
+  /**
+   * Installs the given pool for all questions made from now on, or turns pooling off.
+   * Questions already made keep their prompts.
+   *
+   * @param pool the pool to use, or null to stop pooling
+   */
+  public static void install(PromptPool pool) {
+    installed = pool;
+  }
+
+  /**
+   * Returns the installed pool.
+   *
+   * @return the pool in use, or null if pooling is off
+   */
+  public static PromptPool installed() {
+    return installed;
+  }
+
+  /**
+   * Returns the installed pool's copy of the given prompt, or the prompt itself if pooling
+   * is off.
+   *
+   * @param prompt the prompt, not null
+   * @return an equal prompt
+   */
+  static String pooled(String prompt) {
+    PromptPool pool = installed;
+    return pool == null ? prompt : pool.canonicalize(prompt);
+  }
+
+  /**
+   * Returns the pool's copy of the given text, adding the text as that copy if the pool
+   * does not hold an equal one yet. Looking up the pool's own copy is not counted as a hit
+   * or a miss, since it saves nothing.
+   *
+   * @param text the text to look up
+   * @return the pool's String equal to the text
+   * @throws IllegalArgumentException if the text is null
+   */
+  public String canonicalize(String text) {
+    if (text == null) {
+      throw new IllegalArgumentException("Text cannot be null");
+    }
+    int hash = text.hashCode();
+    Stripe stripe = stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    String canonical;
+    synchronized (stripe) {
+      WeakReference<String> ref = stripe.get(text);
+      canonical = ref == null ? null : ref.get();
+      if (canonical == null) {
+        stripe.put(text, new WeakReference<>(text));
+      }
+    }
+    if (canonical == null) {
+      misses.increment();
+      return text;
+    }
+    if (canonical != text) {
+      hits.increment();
+      bytesSaved.add(sizeOf(text));
+    }
+    return canonical;
+  }
+
+  /**
+   * Returns the number of distinct prompts in the pool that are still in use.
+   *
+   * @return the number of prompts
+   */
+  public int size() {
+    int size = 0;
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        size += stripe.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Returns the number of lookups that found an equal prompt already in the pool and handed
+   * it out in place of the one given.
+   *
+   * @return the hit count
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * Returns the number of lookups that added a new prompt to the pool.
+   *
+   * @return the miss count
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the share of counted lookups that found an equal prompt already in the pool.
+   *
+   * @return the hit rate, from 0 to 1, or 0 if there have been no lookups
+   */
+  public double getHitRate() {
+    long hitCount = hits.sum();
+    long lookups = hitCount + misses.sum();
+    return lookups == 0 ? 0 : (double) hitCount / lookups;
+  }
+
+  /**
+   * Returns an estimate of the heap saved by sharing prompts: the size of every duplicate
+   * String handed in whose place was taken by the pool's copy.
+   *
+   * @return the estimated number of bytes saved
+   */
+  public long getBytesSaved() {
+    return bytesSaved.sum();
+  }
+
+  /**
+   * Estimates the heap taken by a String and its character array on a 64-bit JVM with
+   * compressed pointers and compact strings.
+   *
+   * @param s the String
+   * @return the estimated size in bytes
+   */
+  static long sizeOf(String s) {
+    boolean latin1 = true;
+    for (int i = 0; i < s.length() && latin1; i++) {
+      latin1 = s.charAt(i) <= 0xFF;
+    }
+    long chars = latin1 ? s.length() : 2L * s.length();
+    // a 24 byte String object, plus the array's 16 byte header and contents padded to 8
+    return 24 + ((16 + chars + 7) & ~7L);
+  }
+
+  /**
+   * One stripe of the pool, guarded by itself; a class of its own so the stripes fit in a
+   * plain array.
+   */
+  private static final class Stripe extends WeakHashMap<String, WeakReference<String>> {
+  }
+}
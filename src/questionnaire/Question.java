@@ -1,5 +1,7 @@
 package questionnaire;
 
+import java.nio.ByteBuffer;
+
 /**
  * Represents a question in a questionnaire. Each question has a prompt (the question text),
  * can be marked as required or optional, can be answered with a string response, and can be copied.
@@ -30,6 +32,74 @@ public interface Question {
    */
   void answer(String response);
 
+  /**
+   * Checks whether a response would be accepted by {@link #answer}, without recording it or
+   * throwing. The default answers a copy of this question to find out; the question types in
+   * this package check directly and allocate nothing.
+   *
+   * @param response the response to check
+   * @return {@link ValidationResult#OK} if the response is valid, otherwise why it is not
+   */
+  default ValidationResult validate(CharSequence response) {
+    if (response == null) {
+      return ValidationResult.NULL;
+    }
+    try {
+      copy().answer(response.toString());
+      return ValidationResult.OK;
+    } catch (IllegalArgumentException e) {
+      return ValidationResult.INVALID;
+    }
+  }
+
+  /**
+   * Records an answer if it is valid, and otherwise reports why not instead of throwing.
+   * An invalid response leaves the current answer unchanged.
+   *
+   * @param response the answer to record for this question
+   * @return {@link ValidationResult#OK} if the answer was recorded, otherwise why it was not
+   */
+  default ValidationResult tryAnswer(CharSequence response) {
+    ValidationResult result = validate(response);
+    if (result.isValid()) {
+      answer(response.toString());
+    }
+    return result;
+  }
+
+  /**
+   * Records an answer given as UTF-8 bytes if it is valid, and otherwise reports why not
+   * instead of throwing. The bytes are those from the buffer's position to its limit; the
+   * buffer's position is not changed. The question types in this package decode only as
+   * much as they must: a usual spelling of a yes/no or Likert answer is recognized straight
+   * from the bytes, and an overlong short answer is rejected without being decoded.
+   *
+   * @param utf8 the answer as UTF-8 bytes
+   * @return {@link ValidationResult#OK} if the answer was recorded, otherwise why it was not
+   */
+  default ValidationResult tryAnswerUtf8(ByteBuffer utf8) {
+    if (utf8 == null) {
+      return ValidationResult.NULL;
+    }
+    String response = AbstractQuestion.decodeUtf8(utf8);
+    return response == null ? ValidationResult.NOT_UTF8 : tryAnswer(response);
+  }
+
+  /**
+   * Records an answer given as UTF-8 bytes, as {@link #tryAnswerUtf8} does, but throws if it
+   * is not valid.
+   *
+   * @param utf8 the answer as UTF-8 bytes
+   * @throws IllegalArgumentException if the bytes are null, not valid UTF-8, or not a valid
+   *                                  answer for this question type
+   */
+  default void answerUtf8(ByteBuffer utf8) {
+    ValidationResult result = tryAnswerUtf8(utf8);
+    if (!result.isValid()) {
+      throw new IllegalArgumentException(result.getMessage());
+    }
+  }
+
   /**
    * Returns the current answer to this question. If no answer has been recorded,
    * returns an empty string.
@@ -1,10 +1,19 @@
 package questionnaire;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
 import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
 
 /**
  * Represents a collection of {@link Question}s, forming a questionnaire.
@@ -29,6 +38,87 @@ public interface Questionnaire {
    */
 
   void removeQuestion(String identifier);
+  /**
+   * Add several questions to the end of the questionnaire, in the map's iteration order.
+   * Every identifier and question is checked before any is added, so either all of them
+   * are added or none is. The default checks them, then adds them one at a time.
+   *
+   * @param questions the questions to add, by identifier
+   * @throws IllegalArgumentException if the map is null, or holds a null or empty
+   *                                  identifier, an identifier already in the
+   *                                  questionnaire, or a null question
+   */
+
+  default void addAll(Map<String, Question> questions) {
+    if (questions == null) {
+      throw new IllegalArgumentException("Questions cannot be null");
+    }
+    for (Map.Entry<String, Question> entry : questions.entrySet()) {
+      String identifier = entry.getKey();
+      if (identifier == null || identifier.isEmpty()) {
+        throw new IllegalArgumentException("please enter a valid identifier");
+      }
+      if (entry.getValue() == null) {
+        throw new IllegalArgumentException("Question cannot be null");
+      }
+      try {
+        getQuestion(identifier);
+      } catch (NoSuchElementException e) {
+        continue;
+      }
+      throw new IllegalArgumentException("trying to override questions with the same identifier");
+    }
+    questions.forEach(this::addQuestion);
+  }
+  /**
+   * Remove the questions with the given identifiers. Every identifier is checked before any
+   * question is removed, so either all of them are removed or none is; an identifier given
+   * more than once is removed once. The default checks them, then removes them one at a time.
+   *
+   * @param identifiers the identifiers of the questions to remove
+   * @throws IllegalArgumentException if the collection is null
+   * @throws NoSuchElementException if there is no question with one of the identifiers
+   */
+
+  default void removeAll(Collection<String> identifiers) {
+    if (identifiers == null) {
+      throw new IllegalArgumentException("Identifiers cannot be null");
+    }
+    Set<String> distinct = new LinkedHashSet<>(identifiers);
+    for (String identifier : distinct) {
+      getQuestion(identifier);
+    }
+    distinct.forEach(this::removeQuestion);
+  }
+  /**
+   * Answer several questions. Every response is validated before any question is answered,
+   * so either all of them are recorded or none is.
+   *
+   * @param responses the responses to record, by question identifier
+   * @throws IllegalArgumentException if the map is null or one of the responses is not
+   *                                  valid for its question
+   * @throws NoSuchElementException if there is no question with one of the identifiers
+   */
+
+  default void answerAll(Map<String, String> responses) {
+    if (responses == null) {
+      throw new IllegalArgumentException("Responses cannot be null");
+    }
+    List<Question> questions = new ArrayList<>(responses.size());
+    List<String> answers = new ArrayList<>(responses.size());
+    for (Map.Entry<String, String> entry : responses.entrySet()) {
+      Question question = getQuestion(entry.getKey());
+      ValidationResult result = question.validate(entry.getValue());
+      if (!result.isValid()) {
+        throw new IllegalArgumentException(entry.getKey() + ": " + result.getMessage());
+      }
+      questions.add(question);
+      answers.add(entry.getValue());
+    }
+    for (int i = 0; i < questions.size(); i++) {
+      questions.get(i).answer(answers.get(i));
+    }
+  }
   /**
    * Get the question with the given number, based on the order in which it was
    added to the
@@ -81,6 +171,36 @@ public interface Questionnaire {
    */
 
   List<String> getResponses();
+  /**
+   * Return a stream of the required questions, in questionnaire order. The default streams
+   * the list from {@code getRequiredQuestions()}.
+   *
+   * @return the required questions
+   */
+
+  default Stream<Question> requiredQuestions() {
+    return getRequiredQuestions().stream();
+  }
+  /**
+   * Return a stream of the optional questions, in questionnaire order. The default streams
+   * the list from {@code getOptionalQuestions()}.
+   *
+   * @return the optional questions
+   */
+
+  default Stream<Question> optionalQuestions() {
+    return getOptionalQuestions().stream();
+  }
+  /**
+   * Return a stream of the responses to all the questions, in questionnaire order. The
+   * default streams the list from {@code getResponses()}.
+   *
+   * @return the responses
+   */
+
+  default Stream<String> responses() {
+    return getResponses().stream();
+  }
   /**
    * Produce a new questionnaire containing just the questions where the given
    predicate returns
@@ -113,6 +233,41 @@ public interface Questionnaire {
    */
 
   <R> R fold(BiFunction<Question, R, R> bf, R seed);
+  /**
+   * Produce a single summary value by folding parts of the questionnaire independently
+   * and combining the partial results. Implementations may fold the parts in parallel,
+   * so the combiner must be associative and {@code identity} must be its identity
+   * value. The default folds every question in order, starting from {@code identity}.
+   *
+   * @param bf the folding function
+   * @param combiner an associative function combining two partial results
+   * @param identity the identity value for the combiner
+   * @param <R> the return type
+   * @return the summary value
+   */
+
+  default <R> R fold(BiFunction<Question, R, R> bf, BinaryOperator<R> combiner, R identity) {
+    return fold(bf, identity);
+  }
+  /**
+   * Produce a single summary value by running the questions through the given
+   * collector. Implementations may collect in parallel, relying on the collector's
+   * combiner. The default accumulates every question in order.
+   *
+   * @param collector the collector
+   * @param <A> the collector's intermediate accumulation type
+   * @param <R> the return type
+   * @return the summary value
+   */
+
+  default <A, R> R collect(Collector<? super Question, A, R> collector) {
+    BiConsumer<A, ? super Question> accumulator = collector.accumulator();
+    A container = fold((question, acc) -> {
+      accumulator.accept(acc, question);
+      return acc;
+    }, collector.supplier().get());
+    return collector.finisher().apply(container);
+  }
   /**
    * Convert the questionnaire into a single string in the format of
    * Question: [prompt] then two newlines
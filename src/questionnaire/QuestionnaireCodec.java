@@ -0,0 +1,342 @@
+package questionnaire;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves questionnaires in a compact binary format and loads them back. Unlike the text from
+ * {@code toString()}, the format keeps everything needed to rebuild the questionnaire:
+ * identifiers, question types, required flags, prompts and answers, in order.
+ *
+ * <p>The format, version {@value #VERSION}, is:
+ * <pre>
+ *   magic      4 bytes, "QSTN"
+ *   version    1 byte
+ *   count      varint, the number of questions
+ *   count times:
+ *     flags      1 byte: question type in bits 0-1 (0 yes/no, 1 Likert, 2 short answer),
+ *                required in bit 2
+ *     identifier string
+ *     prompt     dictionary string
+ *     answer     yes/no and Likert: 1 byte, 0 for no answer, 1 to 6 (yes/no) or 1 to 15
+ *                (Likert) for one of the usual spellings of an answer, or 0xFF followed
+ *                by a dictionary string for any other spelling; short answer:
+ *                dictionary string
+ * </pre>
+ * Varints are unsigned LEB128. A string is a varint byte length followed by UTF-8 bytes. A
+ * dictionary string is a varint: 0 for a new string, which follows and is added to the
+ * dictionary, or n to repeat the n-th string added, so text that recurs is stored once.
+ */
+public final class QuestionnaireCodec {
+  /** The format version written by {@link #encode}. */
+  public static final int VERSION = 1;
+
+  private static final byte[] MAGIC = {'Q', 'S', 'T', 'N'};
+
+  /** Question types, in the low bits of the flags byte. */
+  private static final int YES_NO = 0;
+  private static final int LIKERT = 1;
+  private static final int SHORT_ANSWER = 2;
+  private static final int TYPE_MASK = 0x3;
+  private static final int REQUIRED = 0x4;
+
+  /** Answer byte for a spelling that is not in the table, so is written out. */
+  private static final int OTHER_SPELLING = 0xFF;
+
+  /** Answer bytes 1 to n stand for these spellings. Changing them needs a new version. */
+  private static final String[] YES_NO_SPELLINGS = concat(YesNo.NO_SPELLINGS,
+          YesNo.YES_SPELLINGS);
+  private static final String[] LIKERT_SPELLINGS = likertSpellings();
+
+  private QuestionnaireCodec() {
+  }
+
+  /**
+   * Encodes the given questionnaire.
+   *
+   * @param questionnaire the questionnaire to encode
+   * @return the encoded bytes
+   * @throws IllegalArgumentException if the questionnaire is null or holds a question that
+   *                                  is not a YesNo, Likert or ShortAnswer
+   */
+  public static byte[] encode(QuestionnaireImpl questionnaire) {
+    if (questionnaire == null) {
+      throw new IllegalArgumentException("Questionnaire cannot be null");
+    }
+    List<String> identifiers = questionnaire.getIdentifiers();
+    Output out = new Output(16 + identifiers.size() * 32);
+    out.bytes(MAGIC);
+    out.put(VERSION);
+    out.varint(identifiers.size());
+
+    for (String identifier : identifiers) {
+      Question question = questionnaire.getQuestion(identifier);
+      int type = typeOf(question);
+      out.put(type | (question.isRequired() ? REQUIRED : 0));
+      out.string(identifier);
+      out.dictionaryString(question.getPrompt());
+
+      String answer = question.getAnswer();
+      if (type == SHORT_ANSWER) {
+        out.dictionaryString(answer);
+      } else if (answer.isEmpty()) {
+        out.put(0);
+      } else {
+        int code = spellingCode(type == YES_NO ? YES_NO_SPELLINGS : LIKERT_SPELLINGS, answer);
+        out.put(code);
+        if (code == OTHER_SPELLING) {
+          out.dictionaryString(answer);
+        }
+      }
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Decodes a questionnaire from the given buffer, reading from its position up to the end
+   * of the encoded questionnaire and leaving the position there. Text is read straight out
+   * of the buffer's backing array when it has one, and answers written as a usual spelling
+   * become the shared string for that spelling rather than a new one.
+   *
+   * @param buffer the buffer holding an encoded questionnaire
+   * @return the decoded questionnaire
+   * @throws IllegalArgumentException if the buffer is null, is not in this format, is of an
+   *                                  unsupported version, or is truncated or corrupt
+   */
+  public static QuestionnaireImpl decode(ByteBuffer buffer) {
+    if (buffer == null) {
+      throw new IllegalArgumentException("Buffer cannot be null");
+    }
+    try {
+      return new Input(buffer).questionnaire();
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException("Encoded questionnaire is truncated", e);
+    }
+  }
+
+  private static int typeOf(Question question) {
+    if (question instanceof YesNo) {
+      return YES_NO;
+    } else if (question instanceof Likert) {
+      return LIKERT;
+    } else if (question instanceof ShortAnswer) {
+      return SHORT_ANSWER;
+    }
+    throw new IllegalArgumentException(
+            "Cannot encode question of type " + question.getClass().getName());
+  }
+
+  private static int spellingCode(String[] spellings, String answer) {
+    for (int i = 0; i < spellings.length; i++) {
+      if (spellings[i].equals(answer)) {
+        return i + 1;
+      }
+    }
+    return OTHER_SPELLING;
+  }
+
+  private static String[] concat(String[] first, String[] second) {
+    String[] all = Arrays.copyOf(first, first.length + second.length);
+    System.arraycopy(second, 0, all, first.length, second.length);
+    return all;
+  }
+
+  private static String[] likertSpellings() {
+    List<String> spellings = new ArrayList<>();
+    for (LikertResponseOption option : LikertResponseOption.values()) {
+      spellings.addAll(Arrays.asList(option.getSpellings()));
+    }
+    return spellings.toArray(new String[0]);
+  }
+
+  /**
+   * A growable byte array the encoder writes into.
+   */
+  private static final class Output {
+    private byte[] bytes;
+    private int length;
+    /** Dictionary strings written so far, numbered from 1. */
+    private final Map<String, Integer> dictionary = new HashMap<>();
+
+    Output(int capacity) {
+      this.bytes = new byte[capacity];
+    }
+
+    void put(int b) {
+      ensure(1);
+      bytes[length++] = (byte) b;
+    }
+
+    void bytes(byte[] b) {
+      ensure(b.length);
+      System.arraycopy(b, 0, bytes, length, b.length);
+      length += b.length;
+    }
+
+    void varint(int value) {
+      ensure(5);
+      while ((value & ~0x7F) != 0) {
+        bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      bytes[length++] = (byte) value;
+    }
+
+    void string(String s) {
+      byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+      varint(utf8.length);
+      bytes(utf8);
+    }
+
+    void dictionaryString(String s) {
+      Integer index = dictionary.get(s);
+      if (index != null) {
+        varint(index);
+        return;
+      }
+      varint(0);
+      string(s);
+      dictionary.put(s, dictionary.size() + 1);
+    }
+
+    private void ensure(int extra) {
+      if (length + extra > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+      }
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(bytes, length);
+    }
+  }
+
+  /**
+   * Reads an encoded questionnaire from a buffer.
+   */
+  private static final class Input {
+    private final ByteBuffer buffer;
+    /** Dictionary strings read so far, in the order they were added. */
+    private final List<String> dictionary = new ArrayList<>();
+    /** Scratch space for decoding text from buffers without a backing array. */
+    private byte[] scratch = new byte[64];
+
+    Input(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    QuestionnaireImpl questionnaire() {
+      for (byte b : MAGIC) {
+        if (buffer.get() != b) {
+          throw new IllegalArgumentException("Not an encoded questionnaire");
+        }
+      }
+      int version = buffer.get() & 0xFF;
+      if (version != VERSION) {
+        throw new IllegalArgumentException("Unsupported format version " + version);
+      }
+
+      int count = varint();
+      QuestionnaireImpl questionnaire = new QuestionnaireImpl();
+      for (int i = 0; i < count; i++) {
+        int flags = buffer.get() & 0xFF;
+        if ((flags & ~(TYPE_MASK | REQUIRED)) != 0) {
+          throw new IllegalArgumentException("Corrupt question flags " + flags);
+        }
+        boolean required = (flags & REQUIRED) != 0;
+        String identifier = string();
+        String prompt = dictionaryString();
+
+        Question question;
+        String answer;
+        switch (flags & TYPE_MASK) {
+          case YES_NO:
+            question = new YesNo(prompt, required);
+            answer = spelling(YES_NO_SPELLINGS);
+            break;
+          case LIKERT:
+            question = new Likert(prompt, required);
+            answer = spelling(LIKERT_SPELLINGS);
+            break;
+          case SHORT_ANSWER:
+            question = new ShortAnswer(prompt, required);
+            answer = dictionaryString();
+            break;
+          default:
+            throw new IllegalArgumentException("Corrupt question flags " + flags);
+        }
+        if (!answer.isEmpty()) {
+          question.answer(answer);
+        }
+        questionnaire.addQuestion(identifier, question);
+      }
+      return questionnaire;
+    }
+
+    private String spelling(String[] spellings) {
+      int code = buffer.get() & 0xFF;
+      if (code == 0) {
+        return "";
+      } else if (code == OTHER_SPELLING) {
+        return dictionaryString();
+      } else if (code > spellings.length) {
+        throw new IllegalArgumentException("Corrupt answer code " + code);
+      }
+      return spellings[code - 1];
+    }
+
+    private int varint() {
+      int value = 0;
+      for (int shift = 0; shift < 28; shift += 7) {
+        byte b = buffer.get();
+        value |= (b & 0x7F) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+      // the fifth byte holds the top bits and must keep the value a non-negative int
+      byte b = buffer.get();
+      if ((b & 0xF8) != 0) {
+        throw new IllegalArgumentException("Corrupt varint");
+      }
+      return value | b << 28;
+    }
+
+    private String string() {
+      int length = varint();
+      if (length > buffer.remaining()) {
+        throw new IllegalArgumentException("Encoded questionnaire is truncated");
+      }
+      String s;
+      if (buffer.hasArray()) {
+        s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+      } else {
+        if (length > scratch.length) {
+          scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(scratch, 0, length);
+        s = new String(scratch, 0, length, StandardCharsets.UTF_8);
+      }
+      return s;
+    }
+
+    private String dictionaryString() {
+      int index = varint();
+      if (index == 0) {
+        String s = string();
+        dictionary.add(s);
+        return s;
+      } else if (index > dictionary.size()) {
+        throw new IllegalArgumentException("Corrupt dictionary reference " + index);
+      }
+      return dictionary.get(index - 1);
+    }
+  }
+}
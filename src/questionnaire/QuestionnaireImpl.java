@@ -1,29 +1,115 @@
 package questionnaire;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 import java.util.function.Predicate;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /** List to maintain order of questions. */
 public class QuestionnaireImpl implements Questionnaire {
+  /** Questionnaire size from which bulk operations spread their work across threads. */
+  private static final int PARALLEL_THRESHOLD = 4096;
+
+  /** Pieces of the text format produced by toString, shared with the other questionnaires. */
+  static final String QUESTION_LABEL = "Question: ";
+  static final String ANSWER_LABEL = "Answer: ";
+  static final String SEPARATOR = "\n\n";
+
+  /**
+   * Questions by slot, in questionnaire order. A removed question leaves its slot behind until
+   * the lists are compacted, so removal never has to shift or renumber the later questions.
+   */
   private final List<Question> questions;
 
-  /** Map of identifiers to their positions in the questions list for O(1) lookup. */
+  /** Identifiers by slot, parallel to {@code questions}; null marks a removed slot. */
+  private final List<String> identifiers;
+
+  /** Map of identifiers to their slots in the questions list for O(1) lookup. */
   private final Map<String, Integer> questionMap;
 
+  /** Ranks the live slots so that question numbers map to slots in O(log n). */
+  private final OrderIndex order;
+
+  /** Ranks the slots holding required questions, for the required partition. */
+  private final OrderIndex requiredOrder;
+
+  /** Ranks the slots holding optional questions, for the optional partition. */
+  private final OrderIndex optionalOrder;
+
+  /** Read-only views of the two partitions, handed out by the getters. */
+  private final List<Question> requiredView;
+  private final List<Question> optionalView;
+
+  /** Read-only view of the answers, handed out by getResponses. */
+  private final List<String> responsesView;
+
+  /**
+   * Kept informed of every answer to a required question we can observe. Questions hold it
+   * only weakly, so a question shared with other questionnaires does not keep this one alive.
+   */
+  private final AnswerListener completionTracker;
+
+  /**
+   * Number of observed required questions that currently have an empty answer. Atomic
+   * because questions report their answers from whichever thread answered them.
+   */
+  private final AtomicInteger unansweredRequired;
+
+  /** Number of required questions that cannot report their answers to us. */
+  private int unobservedRequired;
+
   /**
    * Constructs an empty questionnaire.
    * Initializes both the list of questions and the identifier-to-index mapping.
    */
   public QuestionnaireImpl() {
-    this.questions = new ArrayList<>();
-    this.questionMap = new HashMap<>();
+    this(10);
+  }
+
+  /**
+   * Constructs an empty questionnaire with room for the given number of questions.
+   *
+   * @param capacity the number of questions expected
+   */
+  private QuestionnaireImpl(int capacity) {
+    this.questions = new ArrayList<>(capacity);
+    this.identifiers = new ArrayList<>(capacity);
+    // HashMap resizes at 3/4 full
+    this.questionMap = new HashMap<>(capacity * 4 / 3 + 1);
+    this.order = new OrderIndex();
+    this.requiredOrder = new OrderIndex();
+    this.optionalOrder = new OrderIndex();
+    this.requiredView = new PartitionView(requiredOrder);
+    this.optionalView = new PartitionView(optionalOrder);
+    this.responsesView = new ResponsesView();
+    this.completionTracker = this::answerChanged;
+    this.unansweredRequired = new AtomicInteger();
   }
 
   /**
@@ -33,7 +119,8 @@ public class QuestionnaireImpl implements Questionnaire {
    *
    * @param identifier a unique identifier for the question, must not be null or empty
    * @param q the question to add
-   * @throws IllegalArgumentException if the identifier is null, empty, or already exists
+   * @throws IllegalArgumentException if the identifier is null, empty, or already exists,
+   *                                  or the question is null
    */
   @Override
   public void addQuestion(String identifier, Question q) {
@@ -43,11 +130,29 @@ public class QuestionnaireImpl implements Questionnaire {
     if (questionMap.containsKey(identifier)) {
       throw new IllegalArgumentException("trying to override questions with the same identifier");
     }
+    if (q == null) {
+      throw new IllegalArgumentException("Question cannot be null");
+    }
+    append(identifier, q);
+  }
+
+  /**
+   * Adds a question with an already validated identifier to the end of the questionnaire.
+   *
+   * @param identifier a unique identifier for the question
+   * @param q the question to add
+   */
+  private void append(String identifier, Question q) {
     // this maps the identifier for a specific to the index of where that question exists.
     // took  me a lot of googling to understand this, but it makes it for fast loop up on
     // map and list of questions even after removing a question.
     questionMap.put(identifier, questions.size());
     questions.add(q);
+    identifiers.add(identifier);
+    order.append(true);
+    requiredOrder.append(q.isRequired());
+    optionalOrder.append(!q.isRequired());
+    track(q);
   }
 
   /**
@@ -59,23 +164,103 @@ public class QuestionnaireImpl implements Questionnaire {
    */
   @Override
   public void removeQuestion(String identifier) {
-    Integer index = questionMap.get(identifier);
+    Integer slot = questionMap.remove(identifier);
 
-    if (index == null) {
+    if (slot == null) {
       throw new NoSuchElementException("No question found with identifier: " + identifier);
     }
+    vacate(slot);
+    compactIfSparse();
+  }
 
-    questions.remove(index.intValue());
-    questionMap.remove(identifier);
+  /**
+   * Adds several questions to the end of the questionnaire, in the map's iteration order.
+   * Every identifier and question is checked before any is added, so either all of them
+   * are added or none is.
+   *
+   * @param questions the questions to add, by identifier
+   * @throws IllegalArgumentException if the map is null, or holds a null or empty
+   *                                  identifier, an identifier already in the
+   *                                  questionnaire, or a null question
+   */
+  @Override
+  public void addAll(Map<String, Question> questions) {
+    if (questions == null) {
+      throw new IllegalArgumentException("Questions cannot be null");
+    }
+    for (Map.Entry<String, Question> entry : questions.entrySet()) {
+      String identifier = entry.getKey();
+      if (identifier == null || identifier.isEmpty()) {
+        throw new IllegalArgumentException("please enter a valid identifier");
+      }
+      if (questionMap.containsKey(identifier)) {
+        throw new IllegalArgumentException(
+                "trying to override questions with the same identifier");
+      }
+      if (entry.getValue() == null) {
+        throw new IllegalArgumentException("Question cannot be null");
+      }
+    }
+    questions.forEach(this::append);
+  }
 
-    // update the indexes that are out of wack after removing question from map.
-    // basically it's going to look at every element that goes after the one we removed
-    // and subtract the value by 1 to update all the indexes after the one that was removed.
-    for (Map.Entry<String, Integer> mapEntry : questionMap.entrySet()) {
-      if (mapEntry.getValue() > index) {
-        questionMap.put(mapEntry.getKey(), mapEntry.getValue() - 1);
+  /**
+   * Removes the questions with the given identifiers. Every identifier is checked before
+   * any question is removed, so either all of them are removed or none is; an identifier
+   * given more than once is removed once. The storage is compacted at most once, after
+   * all the removals, so the whole batch takes time linear in the questionnaire's size.
+   *
+   * @param identifiers the identifiers of the questions to remove
+   * @throws IllegalArgumentException if the collection is null
+   * @throws NoSuchElementException if there is no question with one of the identifiers
+   */
+  @Override
+  public void removeAll(Collection<String> identifiers) {
+    if (identifiers == null) {
+      throw new IllegalArgumentException("Identifiers cannot be null");
+    }
+    for (String identifier : identifiers) {
+      if (!questionMap.containsKey(identifier)) {
+        throw new NoSuchElementException("No question found with identifier: " + identifier);
+      }
+    }
+    for (String identifier : identifiers) {
+      Integer slot = questionMap.remove(identifier);
+      // null for a repeat of an identifier already removed in this batch
+      if (slot != null) {
+        vacate(slot);
       }
     }
+    compactIfSparse();
+  }
+
+  /**
+   * Empties the given slot of a question being removed. The slot is left behind instead of
+   * shifting every later question down by one; the order indexes skip it when numbering
+   * questions.
+   *
+   * @param slot the slot of the question, already dropped from the identifier map
+   */
+  private void vacate(int slot) {
+    Question removed = questions.set(slot, null);
+    identifiers.set(slot, null);
+    order.remove(slot);
+    if (removed.isRequired()) {
+      requiredOrder.remove(slot);
+    } else {
+      optionalOrder.remove(slot);
+    }
+    untrack(removed);
+  }
+
+  /**
+   * Compacts once removed slots outnumber the live ones, so the lists stay proportional to
+   * the questionnaire. This costs O(n) at most once every n removals.
+   */
+  private void compactIfSparse() {
+    if (questions.size() - order.size() > order.size()) {
+      compact();
+    }
   }
 
   /**
@@ -91,11 +276,11 @@ public class QuestionnaireImpl implements Questionnaire {
    */
   @Override
   public Question getQuestion(int num) {
-    if (num < 1 || num > questions.size()) {
+    if (num < 1 || num > order.size()) {
       throw new IndexOutOfBoundsException("No valid question with that index");
     }
-    // account for zero based index
-    return questions.get(num - 1);
+    // find the slot holding the num-th live question
+    return questions.get(order.select(num));
   }
 
   /**
@@ -109,55 +294,53 @@ public class QuestionnaireImpl implements Questionnaire {
    */
   @Override
   public Question getQuestion(String identifier) {
-    Integer index = questionMap.get(identifier);
+    Integer slot = questionMap.get(identifier);
 
-    if (index == null) {
+    if (slot == null) {
       throw new NoSuchElementException("No questions found with that Identifier");
     }
-    return questions.get(index);
+    return questions.get(slot);
   }
 
   /**
-   * Return a list of all required questions in the questionnaire.
+   * Return a list of all required questions in the questionnaire. The list is a read-only
+   * view that follows later changes to the questionnaire; copy it to keep a snapshot.
    *
    * @return the required questions.
    */
   @Override
   public List<Question> getRequiredQuestions() {
-    List<Question> required = new ArrayList<>();
-    for (Question question : questions) {
-      if (question.isRequired()) {
-        required.add(question);
-      }
-    }
-    return required;
+    return requiredView;
   }
 
   /**
-   * Return a list of all optional questions in the questionnaire.
+   * Return a list of all optional questions in the questionnaire. The list is a read-only
+   * view that follows later changes to the questionnaire; copy it to keep a snapshot.
    *
    * @return the optional questions.
    */
   @Override
   public List<Question> getOptionalQuestions() {
-    List<Question> isOptional = new ArrayList<>();
-    for (Question question : questions) {
-      if (!question.isRequired()) {
-        isOptional.add(question);
-      }
-    }
-    return isOptional;
+    return optionalView;
   }
 
   /**
-   * Report if all required questions have some non-empty answer.
+   * Report if all required questions have some non-empty answer. This is O(1) unless the
+   * questionnaire holds required questions of a type that does not report its answers,
+   * in which case only the required questions are checked.
    *
    * @return true if all required questions have responses, false otherwise.
    */
   @Override
   public boolean isComplete() {
-    for (Question question : questions) {
-      if (question.isRequired() && question.getAnswer().isEmpty()) {
+    if (unansweredRequired.get() > 0) {
+      return false;
+    }
+    if (unobservedRequired == 0) {
+      return true;
+    }
+    for (Question question : requiredView) {
+      if (question.getAnswer().isEmpty()) {
         return false;
       }
     }
@@ -165,17 +348,15 @@ public class QuestionnaireImpl implements Questionnaire {
   }
 
   /**
-   * Return a list of just the responses to all the questions in the questionnaire.
+   * Return a list of just the responses to all the questions in the questionnaire. The list
+   * is a read-only view that reads each answer when asked for it, so it follows later
+   * changes to the questionnaire and its answers; copy it to keep a snapshot.
    *
    * @return the responses
    */
   @Override
   public List<String> getResponses() {
-    List<String> responses = new ArrayList<>();
-    for (Question question : questions) {
-      responses.add(question.getAnswer());
-    }
-    return responses;
+    return responsesView;
   }
 
   /**
@@ -184,7 +365,15 @@ public class QuestionnaireImpl implements Questionnaire {
    * true. The returned questionnaire is completely independent of this
    * questionnaire. That is,
    * the questions in the returned questionnaire are <b>copies</b> of the original
-   * questions.
+   * questions. The copies keep the order they have in this questionnaire.
+   *
+   * <p>Every match is copied before this returns, one {@link Question#copy()} each; only the
+   * questions the predicate rejects are never copied. Callers that just need to read the
+   * matching questions can use {@link #fold} instead, which copies nothing.
+   *
+   * <p>For questionnaires of at least {@value #PARALLEL_THRESHOLD} questions the
+   * predicate is evaluated on the common fork/join pool, so it may be called from several
+   * threads at once and must be safe for that.
    *
    * @param pq the predicate
    * @return the new questionnaire
@@ -195,23 +384,30 @@ public class QuestionnaireImpl implements Questionnaire {
       throw new IllegalArgumentException("Predicate cannot be null");
     }
 
-    Questionnaire filtered = new QuestionnaireImpl();
+    compact();
+    int size = questions.size();
+
+    // test every question first, in parallel for big questionnaires; each task writes only
+    // its own elements of keep, and the stream's join makes them visible here
+    boolean[] keep = new boolean[size];
+    IntStream positions = IntStream.range(0, size);
+    if (size >= PARALLEL_THRESHOLD) {
+      positions = positions.parallel();
+    }
+    positions.forEach(i -> keep[i] = pq.test(questions.get(i)));
 
-    // loop through each entry (key-value pair) in our map
-    // each entry contains an identifier (String) and its position (Integer) in our questions list
-    for (Map.Entry<String, Integer> mapEntry : questionMap.entrySet()) {
-      String identifier = mapEntry.getKey();
-      // gets the question at the index in the questions List.
-      Question question = questions.get(mapEntry.getValue());
+    int matches = 0;
+    for (boolean k : keep) {
+      if (k) {
+        matches++;
+      }
+    }
 
-      // test if this question matches our filter condition
-      // pq.test() returns true if the question meets the condition
-      // (like isRequired(), or has a specific word in prompt, etc.)
-      if (pq.test(question)) {
-        // If the question passes the test:
-        //  Make a copy of the question
-        //  Add it to our new questionnaire with its original identifier
-        filtered.addQuestion(identifier, question.copy());
+    // then copy the matches across in order, eagerly, into storage sized for them up front
+    QuestionnaireImpl filtered = new QuestionnaireImpl(matches);
+    for (int i = 0; i < size; i++) {
+      if (keep[i]) {
+        filtered.append(identifiers.get(i), questions.get(i).copy());
       }
     }
     return filtered;
@@ -225,27 +421,55 @@ public class QuestionnaireImpl implements Questionnaire {
    */
   @Override
   public void sort(Comparator<Question> comp) throws IllegalArgumentException {
+    sort(comp, false);
+  }
+
+  /**
+   * Sort the questions according to the given comparator, like {@link #sort(Comparator)},
+   * but split the work across the common fork/join pool. The sort is stable, so questions
+   * that compare equal keep their relative order. The comparator may be called from several
+   * threads at once and must be safe for that.
+   *
+   * @param comp a comparator for Question
+   * @throws IllegalArgumentException if the comparator is null
+   */
+  public void parallelSort(Comparator<Question> comp) throws IllegalArgumentException {
+    sort(comp, true);
+  }
+
+  /**
+   * Sorts identifiers and questions together as pairs, then writes them back and renumbers
+   * the identifier map in a single pass.
+   *
+   * @param comp a comparator for Question
+   * @param parallel true to sort on the common fork/join pool
+   */
+  private void sort(Comparator<Question> comp, boolean parallel) {
     if (comp == null) {
       throw new IllegalArgumentException("Comparator cannot be null");
     }
+    compact();
+
+    // keep each identifier attached to its question while sorting, so there is nothing
+    // to search for afterwards
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Map.Entry<String, Question>[] entries = new Map.Entry[questions.size()];
+    for (int i = 0; i < entries.length; i++) {
+      entries[i] = new AbstractMap.SimpleImmutableEntry<>(identifiers.get(i), questions.get(i));
+    }
+    Comparator<Map.Entry<String, Question>> byQuestion = Map.Entry.comparingByValue(comp);
+    if (parallel) {
+      Arrays.parallelSort(entries, byQuestion);
+    } else {
+      Arrays.sort(entries, byQuestion);
+    }
 
-    // first sort the questions list by comparator
-    questions.sort(comp);
-
-    // for each ID in our map, update its position after sorting due to it being out of wack
-    for (Map.Entry<String, Integer> mapEntry : questionMap.entrySet()) {
-      // get the question's ID (like "name" or "age")
-      String questionId = mapEntry.getKey();
-
-      // find this question in our sorted list
-      Question currentQuestion = getQuestion(questionId);
-
-      // get its new position after sorting
-      int newSortedPosition = questions.indexOf(currentQuestion);
-
-      // update the map with the question's new position
-      questionMap.put(questionId, newSortedPosition);
+    for (int i = 0; i < entries.length; i++) {
+      questions.set(i, entries[i].getValue());
+      identifiers.set(i, entries[i].getKey());
+      questionMap.put(entries[i].getKey(), i);
     }
+    reindexPartitions();
   }
 
   /**
@@ -261,6 +485,7 @@ public class QuestionnaireImpl implements Questionnaire {
     if (bf == null) {
       throw new IllegalArgumentException("BiFunction cannot be null");
     }
+    compact();
     R result = seed;
     for (Question question : questions) {
       result = bf.apply(question, result);
@@ -268,6 +493,113 @@ public class QuestionnaireImpl implements Questionnaire {
     return result;
   }
 
+  /**
+   * Produce a single summary value by folding parts of the questionnaire independently and
+   * combining the partial results. For questionnaires of at least
+   * {@value #PARALLEL_THRESHOLD} questions the parts are folded on the common fork/join pool,
+   * so both functions may be called from several threads at once.
+   *
+   * @param bf       the folding function
+   * @param combiner an associative function combining two partial results
+   * @param identity the identity value for the combiner, used to start each part
+   * @param <R>      the return type
+   * @return the summary value
+   * @throws IllegalArgumentException if either function is null
+   */
+  @Override
+  public <R> R fold(BiFunction<Question, R, R> bf, BinaryOperator<R> combiner, R identity)
+          throws IllegalArgumentException {
+    if (bf == null) {
+      throw new IllegalArgumentException("BiFunction cannot be null");
+    }
+    if (combiner == null) {
+      throw new IllegalArgumentException("Combiner cannot be null");
+    }
+    return questionStream().reduce(identity, (result, question) -> bf.apply(question, result),
+            combiner);
+  }
+
+  /**
+   * Produce a single summary value by running the questions through the given collector.
+   * For questionnaires of at least {@value #PARALLEL_THRESHOLD} questions the collection runs
+   * on the common fork/join pool.
+   *
+   * @param collector the collector
+   * @param <A>       the collector's intermediate accumulation type
+   * @param <R>       the return type
+   * @return the summary value
+   * @throws IllegalArgumentException if the collector is null
+   */
+  @Override
+  public <A, R> R collect(Collector<? super Question, A, R> collector)
+          throws IllegalArgumentException {
+    if (collector == null) {
+      throw new IllegalArgumentException("Collector cannot be null");
+    }
+    return questionStream().collect(collector);
+  }
+
+  /**
+   * Returns a stream over the questions in order, split across threads when the
+   * questionnaire is large enough to be worth it.
+   *
+   * @return a stream of the questions
+   */
+  private Stream<Question> questionStream() {
+    Spliterator<Question> spliterator = spliterator();
+    return StreamSupport.stream(spliterator, spliterator.estimateSize() >= PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Returns a spliterator over the questions in order. It reads straight from the
+   * questionnaire's storage without copying it, knows its exact size, and splits its range
+   * in half so parallel work is shared evenly. The questionnaire must not have questions
+   * added, removed or sorted while the spliterator is in use; answering them is fine.
+   *
+   * @return a spliterator over the questions
+   */
+  public Spliterator<Question> spliterator() {
+    compact();
+    return new SlotSpliterator<>(questions::get, 0, questions.size());
+  }
+
+  /**
+   * Returns a sequential stream over the questions in order, read straight from the
+   * questionnaire's storage. The questionnaire must not have questions added, removed or
+   * sorted while the stream is in use.
+   *
+   * @return a stream of the questions
+   */
+  public Stream<Question> stream() {
+    return StreamSupport.stream(spliterator(), false);
+  }
+
+  /**
+   * Returns a parallel stream over the questions in order, read straight from the
+   * questionnaire's storage. The questionnaire must not have questions added, removed or
+   * sorted while the stream is in use.
+   *
+   * @return a parallel stream of the questions
+   */
+  public Stream<Question> parallelStream() {
+    return StreamSupport.stream(spliterator(), true);
+  }
+
+  /**
+   * Returns a sequential stream over the questions in order, each paired with its
+   * identifier. Call {@code parallel()} on it to split the work across threads. The
+   * questionnaire must not have questions added, removed or sorted while the stream is in
+   * use.
+   *
+   * @return a stream of read-only identifier and question pairs
+   */
+  public Stream<Map.Entry<String, Question>> entryStream() {
+    compact();
+    IntFunction<Map.Entry<String, Question>> entry = slot ->
+            new AbstractMap.SimpleImmutableEntry<>(identifiers.get(slot), questions.get(slot));
+    return StreamSupport.stream(new SlotSpliterator<>(entry, 0, questions.size()), false);
+  }
+
   /**
    * Returns a string representation of the questionnaire.
    * Format: Each question-answer pair is formatted as:
@@ -278,25 +610,318 @@ public class QuestionnaireImpl implements Questionnaire {
    */
   @Override
   public String toString() {
+    compact();
     if (questions.isEmpty()) {
       return "";
     }
 
-    StringBuilder stringBuilder = new StringBuilder();
+    // work out the exact length first so the builder never has to grow and copy
+    long length = 0;
+    for (Question question : questions) {
+      length += QUESTION_LABEL.length() + question.getPrompt().length() + SEPARATOR.length()
+              + ANSWER_LABEL.length() + question.getAnswer().length() + SEPARATOR.length();
+    }
+    length -= SEPARATOR.length();
+
+    StringBuilder stringBuilder = new StringBuilder((int) Math.min(length, Integer.MAX_VALUE - 8));
+    try {
+      writeTo(stringBuilder);
+    } catch (IOException e) {
+      // a StringBuilder never throws
+      throw new UncheckedIOException(e);
+    }
+    return stringBuilder.toString();
+  }
+
+  /**
+   * Writes the questionnaire to the given destination in the same format as
+   * {@link #toString()}, one piece at a time, without building the whole text in memory.
+   *
+   * @param out where to write the questionnaire
+   * @throws IOException if the destination fails to accept the text
+   * @throws IllegalArgumentException if the destination is null
+   */
+  public void writeTo(Appendable out) throws IOException {
+    if (out == null) {
+      throw new IllegalArgumentException("Destination cannot be null");
+    }
+    compact();
     for (int i = 0; i < questions.size(); i++) {
       Question question = questions.get(i);
 
+      // add double newline ONLY between questions, not after last one
+      if (i > 0) {
+        out.append(SEPARATOR);
+      }
+
       // add question
-      stringBuilder.append("Question: ").append(question.getPrompt()).append("\n\n");
+      out.append(QUESTION_LABEL).append(question.getPrompt()).append(SEPARATOR);
 
       // add answer
-      stringBuilder.append("Answer: ").append(question.getAnswer());
+      out.append(ANSWER_LABEL).append(question.getAnswer());
+    }
+  }
 
-      // add double newline ONLY between questions, not after last one
-      if (i < questions.size() - 1) {
-        stringBuilder.append("\n\n");
+  /**
+   * Writes the questionnaire to the given channel as UTF-8 in the same format as
+   * {@link #toString()}. The text is encoded and written through a small fixed-size buffer,
+   * so memory use does not grow with the size of the questionnaire. The channel is left open.
+   *
+   * @param channel where to write the questionnaire
+   * @throws IOException if writing to the channel fails
+   * @throws IllegalArgumentException if the channel is null
+   */
+  public void writeTo(WritableByteChannel channel) throws IOException {
+    if (channel == null) {
+      throw new IllegalArgumentException("Channel cannot be null");
+    }
+    Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8);
+    writeTo(writer);
+    // flush rather than close, which would close the caller's channel
+    writer.flush();
+  }
+
+  /**
+   * Returns the identifiers of the questions in order, as a read-only list that stays
+   * valid until the questionnaire is next changed.
+   *
+   * @return the identifiers
+   */
+  List<String> getIdentifiers() {
+    compact();
+    return Collections.unmodifiableList(identifiers);
+  }
+
+  /**
+   * Reports whether every slot is live, in which case traversals will not need to compact
+   * and so will not modify the questionnaire.
+   *
+   * @return true if no removed slot is waiting to be squeezed out
+   */
+  boolean isCompact() {
+    return questions.size() == order.size();
+  }
+
+  /**
+   * Squeezes removed slots out of the questions and identifiers lists, renumbering the
+   * identifier map to match. Does nothing if no question has been removed since the last
+   * compaction. Whole-questionnaire traversals call this first so they can walk the lists
+   * directly.
+   */
+  void compact() {
+    if (isCompact()) {
+      return;
+    }
+    int size = order.size();
+    int next = 0;
+    for (int slot = 0; slot < questions.size(); slot++) {
+      String identifier = identifiers.get(slot);
+      if (identifier != null) {
+        questions.set(next, questions.get(slot));
+        identifiers.set(next, identifier);
+        questionMap.put(identifier, next);
+        next++;
       }
     }
-    return stringBuilder.toString();
+    questions.subList(size, questions.size()).clear();
+    identifiers.subList(size, identifiers.size()).clear();
+    order.reset(size, slot -> true);
+    reindexPartitions();
+  }
+
+  /**
+   * Returns the number of the question with the given identifier, as {@code getQuestion(int)}
+   * counts them. Takes O(log n) and does not compact.
+   *
+   * @param identifier the identifier of the question
+   * @return its number, counting from 1
+   * @throws NoSuchElementException if there is no question with the identifier
+   */
+  int positionOf(String identifier) {
+    Integer slot = questionMap.get(identifier);
+    if (slot == null) {
+      throw new NoSuchElementException("No questions found with that Identifier");
+    }
+    return order.rank(slot);
+  }
+
+  /**
+   * Returns a new questionnaire holding copies of the questions with the given identifiers,
+   * in the order given.
+   *
+   * @param selected identifiers of questions in this questionnaire, without repeats
+   * @return the new questionnaire
+   * @throws NoSuchElementException if an identifier is not in this questionnaire
+   */
+  QuestionnaireImpl subset(List<String> selected) {
+    QuestionnaireImpl subset = new QuestionnaireImpl(selected.size());
+    for (String identifier : selected) {
+      subset.append(identifier, getQuestion(identifier).copy());
+    }
+    return subset;
+  }
+
+  /**
+   * Rebuilds the partition indexes from the questions list, which must have no removed
+   * slots.
+   */
+  private void reindexPartitions() {
+    requiredOrder.reset(questions.size(), slot -> questions.get(slot).isRequired());
+    optionalOrder.reset(questions.size(), slot -> !questions.get(slot).isRequired());
+  }
+
+  /**
+   * Starts counting the given newly added question towards completion.
+   *
+   * @param q the question added
+   */
+  private void track(Question q) {
+    if (!q.isRequired()) {
+      return;
+    }
+    if (q instanceof AbstractQuestion) {
+      if (((AbstractQuestion) q).addAnswerListener(completionTracker).isEmpty()) {
+        unansweredRequired.incrementAndGet();
+      }
+    } else {
+      unobservedRequired++;
+    }
+  }
+
+  /**
+   * Stops counting the given removed question towards completion.
+   *
+   * @param q the question removed
+   */
+  private void untrack(Question q) {
+    if (!q.isRequired()) {
+      return;
+    }
+    if (q instanceof AbstractQuestion) {
+      if (((AbstractQuestion) q).removeAnswerListener(completionTracker).isEmpty()) {
+        unansweredRequired.decrementAndGet();
+      }
+    } else {
+      unobservedRequired--;
+    }
+  }
+
+  /**
+   * Updates the unanswered count when a required question we hold is answered.
+   *
+   * @param q the question answered
+   * @param previous its answer before this one
+   */
+  private void answerChanged(Question q, String previous) {
+    boolean wasEmpty = previous.isEmpty();
+    boolean isEmpty = q.getAnswer().isEmpty();
+    if (wasEmpty && !isEmpty) {
+      unansweredRequired.decrementAndGet();
+    } else if (!wasEmpty && isEmpty) {
+      unansweredRequired.incrementAndGet();
+    }
+  }
+
+  /**
+   * A read-only list of the questions in one partition, in questionnaire order. Reads go
+   * straight to the questionnaire's storage through the partition's order index.
+   */
+  private final class PartitionView extends AbstractList<Question> implements RandomAccess {
+    private final OrderIndex partition;
+
+    private PartitionView(OrderIndex partition) {
+      this.partition = partition;
+    }
+
+    @Override
+    public Question get(int index) {
+      if (index < 0 || index >= partition.size()) {
+        throw new IndexOutOfBoundsException("No question at index " + index);
+      }
+      return questions.get(partition.select(index + 1));
+    }
+
+    @Override
+    public int size() {
+      return partition.size();
+    }
+  }
+
+  /**
+   * A read-only list of the answers to the questions, in questionnaire order. While no
+   * removed slot is waiting to be compacted, the n-th answer is in the n-th slot and is
+   * read directly; otherwise the order index finds its slot.
+   */
+  private final class ResponsesView extends AbstractList<String> implements RandomAccess {
+    @Override
+    public String get(int index) {
+      if (index < 0 || index >= order.size()) {
+        throw new IndexOutOfBoundsException("No response at index " + index);
+      }
+      int slot = isCompact() ? index : order.select(index + 1);
+      return questions.get(slot).getAnswer();
+    }
+
+    @Override
+    public int size() {
+      return order.size();
+    }
+  }
+
+  /**
+   * A spliterator over a range of slots, which must have no removed slots among them.
+   * Splitting hands the first half of the range to a new spliterator.
+   *
+   * @param <T> the type of element made from each slot
+   */
+  private static final class SlotSpliterator<T> implements Spliterator<T> {
+    private final IntFunction<T> element;
+    private int origin;
+    private final int fence;
+
+    private SlotSpliterator(IntFunction<T> element, int origin, int fence) {
+      this.element = element;
+      this.origin = origin;
+      this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+      if (origin >= fence) {
+        return false;
+      }
+      action.accept(element.apply(origin++));
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+      int end = fence;
+      for (int slot = origin; slot < end; slot++) {
+        action.accept(element.apply(slot));
+      }
+      origin = end;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+      int mid = (origin + fence) >>> 1;
+      if (mid <= origin) {
+        return null;
+      }
+      Spliterator<T> prefix = new SlotSpliterator<>(element, origin, mid);
+      origin = mid;
+      return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+      return fence - origin;
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED | SIZED | SUBSIZED | NONNULL;
+    }
   }
 }
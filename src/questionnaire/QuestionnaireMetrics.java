@@ -0,0 +1,256 @@
+package questionnaire;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counts and times the operations run through an {@link InstrumentedQuestionnaire} and the
+ * questions it hands out, and counts the responses they reject by question type. One set of
+ * metrics can be shared by any number of questionnaires and threads.
+ *
+ * <p>The metrics can be read with {@link #snapshot()} or, once {@link #register}ed, through
+ * JMX. Measuring can be turned off at any time with {@code setEnabled(false)}, after which
+ * instrumented questionnaires only check a flag before handing each call on.
+ */
+public final class QuestionnaireMetrics implements QuestionnaireMetricsMXBean {
+  /** Passed from {@link #start} to {@link #stop} when not measuring. */
+  private static final long NOT_TIMED = Long.MIN_VALUE;
+
+  /**
+   * The operations that are timed.
+   */
+  public enum Operation {
+    /** Adding a question. */
+    ADD_QUESTION,
+    /** Removing a question. */
+    REMOVE_QUESTION,
+    /** Looking a question up by number or identifier. */
+    GET_QUESTION,
+    /** Answering a question, including validating the response. */
+    ANSWER,
+    /** Checking a response without recording it. */
+    VALIDATE,
+    /** Sorting the questions. */
+    SORT,
+    /** Filtering the questions into a new questionnaire. */
+    FILTER,
+    /** Folding or collecting the questions. */
+    FOLD,
+    /** Adding, removing or answering a batch of questions. */
+    BATCH
+  }
+
+  private volatile boolean enabled;
+  private final LatencyHistogram[] latencies;
+  private final ConcurrentHashMap<String, LongAdder> validationFailures;
+
+  /** The name registered with the platform MBean server, or null; guarded by this. */
+  private ObjectName registeredName;
+
+  /**
+   * Constructs metrics with nothing counted yet, measuring from the start.
+   */
+  public QuestionnaireMetrics() {
+    this.enabled = true;
+    this.latencies = new LatencyHistogram[Operation.values().length];
+    for (int i = 0; i < latencies.length; i++) {
+      latencies[i] = new LatencyHistogram();
+    }
+    this.validationFailures = new ConcurrentHashMap<>();
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Marks the start of an operation.
+   *
+   * @return the time to hand to {@link #stop}
+   */
+  long start() {
+    return enabled ? System.nanoTime() : NOT_TIMED;
+  }
+
+  /**
+   * Records an operation's latency, unless it was started while not measuring.
+   *
+   * @param operation the operation
+   * @param start the value {@link #start} returned
+   */
+  void stop(Operation operation, long start) {
+    if (start != NOT_TIMED) {
+      latencies[operation.ordinal()].record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Counts a response rejected by the given question, if measuring.
+   *
+   * @param question the question that rejected it
+   */
+  void validationFailed(Question question) {
+    if (enabled) {
+      validationFailures.computeIfAbsent(question.getClass().getSimpleName(),
+              type -> new LongAdder()).increment();
+    }
+  }
+
+  /**
+   * Takes a copy of the metrics so far.
+   *
+   * @return the copy
+   */
+  public Snapshot snapshot() {
+    Map<Operation, LatencyHistogram.Snapshot> copies = new EnumMap<>(Operation.class);
+    for (Operation operation : Operation.values()) {
+      copies.put(operation, latencies[operation.ordinal()].snapshot());
+    }
+    Map<String, Long> failures = new TreeMap<>();
+    validationFailures.forEach((type, count) -> failures.put(type, count.sum()));
+    return new Snapshot(copies, failures);
+  }
+
+  @Override
+  public void reset() {
+    for (LatencyHistogram histogram : latencies) {
+      histogram.reset();
+    }
+    validationFailures.clear();
+  }
+
+  @Override
+  public Map<String, Long> getOperationCounts() {
+    return byOperation(LatencyHistogram.Snapshot::getCount);
+  }
+
+  @Override
+  public Map<String, Long> getMeanLatencyNanos() {
+    return byOperation(latency -> Math.round(latency.getMean()));
+  }
+
+  @Override
+  public Map<String, Long> getP99LatencyNanos() {
+    return byOperation(latency -> latency.getValueAtPercentile(99));
+  }
+
+  @Override
+  public Map<String, Long> getMaxLatencyNanos() {
+    return byOperation(LatencyHistogram.Snapshot::getMax);
+  }
+
+  @Override
+  public Map<String, Long> getValidationFailures() {
+    return snapshot().getValidationFailures();
+  }
+
+  private Map<String, Long> byOperation(ToLongFunction<LatencyHistogram.Snapshot> value) {
+    Map<String, Long> values = new LinkedHashMap<>();
+    for (Operation operation : Operation.values()) {
+      values.put(operation.name(), value.applyAsLong(latencies[operation.ordinal()].snapshot()));
+    }
+    return values;
+  }
+
+  /**
+   * Registers these metrics with the platform MBean server under
+   * {@code questionnaire:type=QuestionnaireMetrics,name=<name>}.
+   *
+   * @param name the name to register under
+   * @return the object name registered
+   * @throws IllegalArgumentException if the name is null or empty
+   * @throws IllegalStateException if these metrics are already registered
+   * @throws JMException if the name is not valid or is taken by another MBean
+   */
+  public synchronized ObjectName register(String name) throws JMException {
+    if (name == null || name.isEmpty()) {
+      throw new IllegalArgumentException("Name cannot be null or empty");
+    }
+    if (registeredName != null) {
+      throw new IllegalStateException("Metrics are already registered as " + registeredName);
+    }
+    ObjectName objectName = new ObjectName(
+            "questionnaire:type=QuestionnaireMetrics,name=" + ObjectName.quote(name));
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+    registeredName = objectName;
+    return objectName;
+  }
+
+  /**
+   * Removes these metrics from the platform MBean server, if registered.
+   *
+   * @throws JMException if the MBean server fails to remove them
+   */
+  public synchronized void unregister() throws JMException {
+    if (registeredName != null) {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      if (server.isRegistered(registeredName)) {
+        server.unregisterMBean(registeredName);
+      }
+      registeredName = null;
+    }
+  }
+
+  /**
+   * The metrics at one point in time.
+   */
+  public static final class Snapshot {
+    private final Map<Operation, LatencyHistogram.Snapshot> latencies;
+    private final Map<String, Long> validationFailures;
+
+    private Snapshot(Map<Operation, LatencyHistogram.Snapshot> latencies,
+                     Map<String, Long> validationFailures) {
+      this.latencies = latencies;
+      this.validationFailures = Collections.unmodifiableMap(validationFailures);
+    }
+
+    /**
+     * Returns how many times the given operation ran.
+     *
+     * @param operation the operation
+     * @return the count
+     */
+    public long getCount(Operation operation) {
+      return getLatency(operation).getCount();
+    }
+
+    /**
+     * Returns the latencies of the given operation.
+     *
+     * @param operation the operation
+     * @return the latency histogram
+     * @throws IllegalArgumentException if the operation is null
+     */
+    public LatencyHistogram.Snapshot getLatency(Operation operation) {
+      if (operation == null) {
+        throw new IllegalArgumentException("Operation cannot be null");
+      }
+      return latencies.get(operation);
+    }
+
+    /**
+     * Returns how many responses were rejected, by question type.
+     *
+     * @return a read-only map from the simple class name of the question to the count
+     */
+    public Map<String, Long> getValidationFailures() {
+      return validationFailures;
+    }
+  }
+}
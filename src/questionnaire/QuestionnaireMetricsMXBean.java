@@ -0,0 +1,63 @@
+package questionnaire;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link QuestionnaireMetrics}, as shown through JMX. Maps are
+ * keyed by operation name, or by question type for validation failures.
+ */
+public interface QuestionnaireMetricsMXBean {
+  /**
+   * Reports whether operations are being measured.
+   *
+   * @return true if measuring
+   */
+  boolean isEnabled();
+
+  /**
+   * Starts or stops measuring operations.
+   *
+   * @param enabled true to measure
+   */
+  void setEnabled(boolean enabled);
+
+  /**
+   * Returns how many times each operation has run.
+   *
+   * @return the counts by operation
+   */
+  Map<String, Long> getOperationCounts();
+
+  /**
+   * Returns the mean latency of each operation.
+   *
+   * @return the mean in nanoseconds by operation
+   */
+  Map<String, Long> getMeanLatencyNanos();
+
+  /**
+   * Returns the 99th percentile latency of each operation.
+   *
+   * @return the 99th percentile in nanoseconds by operation
+   */
+  Map<String, Long> getP99LatencyNanos();
+
+  /**
+   * Returns the largest latency of each operation.
+   *
+   * @return the maximum in nanoseconds by operation
+   */
+  Map<String, Long> getMaxLatencyNanos();
+
+  /**
+   * Returns how many responses were rejected, by question type.
+   *
+   * @return the counts by the simple class name of the question
+   */
+  Map<String, Long> getValidationFailures();
+
+  /**
+   * Clears every count and latency.
+   */
+  void reset();
+}
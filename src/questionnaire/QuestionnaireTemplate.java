@@ -0,0 +1,508 @@
+package questionnaire;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * The fixed shape of a questionnaire, from which any number of respondents' questionnaires
+ * can be made cheaply. The template holds each question's definition (prompt, required
+ * flag, type and rules for valid answers) once; each {@link Instance} made from it holds
+ * only an array of its respondent's answers.
+ *
+ * <p>A template is immutable, so it can be shared by any number of threads. Each instance
+ * is meant for one respondent and, like {@link QuestionnaireImpl}, is not safe for use by
+ * several threads at once.
+ */
+public final class QuestionnaireTemplate {
+  /** Question identifiers by slot, in questionnaire order. */
+  private final String[] identifiers;
+
+  /** Private copies of the questions by slot; never answered again or handed out. */
+  private final Question[] definitions;
+
+  /** Slots by identifier. */
+  private final Map<String, Integer> slots;
+
+  /** Slots of the required and optional questions, in questionnaire order. */
+  private final int[] requiredSlots;
+  private final int[] optionalSlots;
+
+  /** Number of required questions without an answer in their definition. */
+  private final int unansweredRequired;
+
+  private QuestionnaireTemplate(String[] identifiers, Question[] definitions) {
+    this.identifiers = identifiers;
+    this.definitions = definitions;
+    this.slots = new HashMap<>(identifiers.length * 4 / 3 + 1);
+    int required = 0;
+    int unanswered = 0;
+    for (int slot = 0; slot < identifiers.length; slot++) {
+      slots.put(identifiers[slot], slot);
+      if (definitions[slot].isRequired()) {
+        required++;
+        if (definitions[slot].getAnswer().isEmpty()) {
+          unanswered++;
+        }
+      }
+    }
+    this.requiredSlots = new int[required];
+    this.optionalSlots = new int[identifiers.length - required];
+    int r = 0;
+    int o = 0;
+    for (int slot = 0; slot < identifiers.length; slot++) {
+      if (definitions[slot].isRequired()) {
+        requiredSlots[r++] = slot;
+      } else {
+        optionalSlots[o++] = slot;
+      }
+    }
+    this.unansweredRequired = unanswered;
+  }
+
+  /**
+   * Makes a template with the questions of the given questionnaire, in its order. The
+   * questions are copied, so later changes to the questionnaire do not affect the template.
+   * Any answers the questions already have become the starting answers of every instance.
+   *
+   * @param questionnaire the questionnaire to take the questions from
+   * @return the template
+   * @throws IllegalArgumentException if the questionnaire is null
+   */
+  public static QuestionnaireTemplate from(QuestionnaireImpl questionnaire) {
+    if (questionnaire == null) {
+      throw new IllegalArgumentException("Questionnaire cannot be null");
+    }
+    List<String> identifiers = questionnaire.getIdentifiers();
+    Question[] definitions = new Question[identifiers.size()];
+    for (int slot = 0; slot < definitions.length; slot++) {
+      definitions[slot] = questionnaire.getQuestion(identifiers.get(slot)).copy();
+    }
+    return new QuestionnaireTemplate(identifiers.toArray(new String[0]), definitions);
+  }
+
+  /**
+   * Returns the number of questions in the template.
+   *
+   * @return the number of questions
+   */
+  public int size() {
+    return identifiers.length;
+  }
+
+  /**
+   * Makes a new questionnaire for one respondent. This allocates only the respondent's
+   * answer array, whatever the size of the template.
+   *
+   * @return a new questionnaire with the template's starting answers
+   */
+  public Instance newInstance() {
+    return new Instance(this);
+  }
+
+  /**
+   * Returns the slot of the question with the given identifier.
+   *
+   * @param identifier the identifier of the question
+   * @return its slot
+   * @throws NoSuchElementException if there is no question with the identifier
+   */
+  private int slotOf(String identifier) {
+    Integer slot = identifier == null ? null : slots.get(identifier);
+    if (slot == null) {
+      throw new NoSuchElementException("No questions found with that Identifier");
+    }
+    return slot;
+  }
+
+  /**
+   * One respondent's questionnaire, made from a template. Its questions are the template's,
+   * and cannot be added, removed or reordered; only their answers belong to the respondent.
+   *
+   * <p>The questions handed out by {@code getQuestion}, the question lists, {@code filter}
+   * and {@code fold} are views of one answer slot, not questions of the definition's own
+   * type: they are not {@link YesNo}, {@link Likert} or {@link ShortAnswer} instances, so
+   * code that checks or casts to those types should work on a copy instead. Answering a view
+   * records the answer in this questionnaire, and copying one makes an ordinary standalone
+   * question of the definition's type with the same answer. Each slot has one view, made the
+   * first time it is asked for, so looking the same question up twice gives the same object.
+   */
+  public static final class Instance implements Questionnaire {
+    private final QuestionnaireTemplate template;
+
+    /** Answers by slot; null where the definition's starting answer still stands. */
+    private final String[] answers;
+
+    /** Number of required questions without a non-empty answer. */
+    private int unansweredRequired;
+
+    /** Views of the questions by slot, each made when first asked for; null until then. */
+    private Slot[] views;
+
+    private Instance(QuestionnaireTemplate template) {
+      this.template = template;
+      this.answers = new String[template.definitions.length];
+      this.unansweredRequired = template.unansweredRequired;
+    }
+
+    /**
+     * Returns the template this questionnaire was made from.
+     *
+     * @return the template
+     */
+    public QuestionnaireTemplate getTemplate() {
+      return template;
+    }
+
+    /**
+     * Records a response to the question with the given identifier, without making a view
+     * of the question.
+     *
+     * @param identifier the identifier of the question
+     * @param response the response
+     * @throws NoSuchElementException if there is no question with the identifier
+     * @throws IllegalArgumentException if the response is not valid for the question
+     */
+    public void answer(String identifier, String response) {
+      answer(template.slotOf(identifier), response);
+    }
+
+    /**
+     * Returns the answer to the question with the given identifier, without making a view
+     * of the question.
+     *
+     * @param identifier the identifier of the question
+     * @return the answer, or an empty String if there is none
+     * @throws NoSuchElementException if there is no question with the identifier
+     */
+    public String getAnswer(String identifier) {
+      return answerAt(template.slotOf(identifier));
+    }
+
+    /**
+     * Makes an ordinary questionnaire holding standalone copies of this one's questions,
+     * with their answers.
+     *
+     * @return the new questionnaire
+     */
+    public QuestionnaireImpl toQuestionnaire() {
+      return filter(q -> true);
+    }
+
+    private Slot view(int slot) {
+      if (views == null) {
+        views = new Slot[answers.length];
+      }
+      Slot view = views[slot];
+      if (view == null) {
+        view = new Slot(slot);
+        views[slot] = view;
+      }
+      return view;
+    }
+
+    private String answerAt(int slot) {
+      String answer = answers[slot];
+      return answer == null ? template.definitions[slot].getAnswer() : answer;
+    }
+
+    private void answer(int slot, String response) {
+      Question definition = template.definitions[slot];
+      ValidationResult result = definition.validate(response);
+      if (!result.isValid()) {
+        throw new IllegalArgumentException(result.getMessage());
+      }
+      // keep the same text a question of this type would, such as a shared spelling
+      String text = definition instanceof AbstractQuestion
+              ? ((AbstractQuestion) definition).answerText(response) : response;
+      if (definition.isRequired()) {
+        boolean wasEmpty = answerAt(slot).isEmpty();
+        if (wasEmpty && !text.isEmpty()) {
+          unansweredRequired--;
+        } else if (!wasEmpty && text.isEmpty()) {
+          unansweredRequired++;
+        }
+      }
+      answers[slot] = text;
+    }
+
+    /**
+     * Not supported; an instance has its template's questions.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void addQuestion(String identifier, Question q) {
+      throw new UnsupportedOperationException("Questions of a template instance are fixed");
+    }
+
+    /**
+     * Not supported; an instance has its template's questions.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void removeQuestion(String identifier) {
+      throw new UnsupportedOperationException("Questions of a template instance are fixed");
+    }
+
+    /**
+     * Not supported; an instance has its template's questions.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void addAll(Map<String, Question> questions) {
+      throw new UnsupportedOperationException("Questions of a template instance are fixed");
+    }
+
+    /**
+     * Not supported; an instance has its template's questions.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void removeAll(Collection<String> identifiers) {
+      throw new UnsupportedOperationException("Questions of a template instance are fixed");
+    }
+
+    /**
+     * Not supported; an instance keeps its template's order.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void sort(Comparator<Question> comp) {
+      throw new UnsupportedOperationException("Questions of a template instance are fixed");
+    }
+
+    /**
+     * Get a view of the question with the given number, in the template's order.
+     *
+     * @param num the number of the question, counting from 1
+     * @return the question
+     * @throws IndexOutOfBoundsException if there is no such question num
+     */
+    @Override
+    public Question getQuestion(int num) {
+      if (num < 1 || num > answers.length) {
+        throw new IndexOutOfBoundsException("No valid question with that index");
+      }
+      return view(num - 1);
+    }
+
+    /**
+     * Get a view of the question with the given identifier.
+     *
+     * @param identifier the identifier of the question
+     * @return the question
+     * @throws NoSuchElementException if there is no question with the identifier
+     */
+    @Override
+    public Question getQuestion(String identifier) {
+      return view(template.slotOf(identifier));
+    }
+
+    /**
+     * Return a read-only list of the required questions.
+     *
+     * @return the required questions.
+     */
+    @Override
+    public List<Question> getRequiredQuestions() {
+      return new SlotList(template.requiredSlots);
+    }
+
+    /**
+     * Return a read-only list of the optional questions.
+     *
+     * @return the optional questions.
+     */
+    @Override
+    public List<Question> getOptionalQuestions() {
+      return new SlotList(template.optionalSlots);
+    }
+
+    /**
+     * Report if all required questions have some non-empty answer, in O(1).
+     *
+     * @return true if all required questions have responses, false otherwise.
+     */
+    @Override
+    public boolean isComplete() {
+      return unansweredRequired == 0;
+    }
+
+    /**
+     * Return a read-only view of the responses to all the questions, which follows later
+     * answers.
+     *
+     * @return the responses
+     */
+    @Override
+    public List<String> getResponses() {
+      return new Responses();
+    }
+
+    /**
+     * Produce a new questionnaire containing standalone copies of the questions where the
+     * given predicate returns true, with their answers.
+     *
+     * @param pq the predicate
+     * @return the new questionnaire
+     * @throws IllegalArgumentException if the predicate is null
+     */
+    @Override
+    public QuestionnaireImpl filter(Predicate<Question> pq) {
+      if (pq == null) {
+        throw new IllegalArgumentException("Predicate cannot be null");
+      }
+      QuestionnaireImpl filtered = new QuestionnaireImpl();
+      for (int slot = 0; slot < answers.length; slot++) {
+        Question question = view(slot);
+        if (pq.test(question)) {
+          filtered.addQuestion(template.identifiers[slot], question.copy());
+        }
+      }
+      return filtered;
+    }
+
+    /**
+     * Produce a single summary value based on the given folding function and seed value.
+     *
+     * @param bf the folding function
+     * @param seed the seed value
+     * @param <R> the return type
+     * @return the summary value
+     * @throws IllegalArgumentException if the function is null
+     */
+    @Override
+    public <R> R fold(BiFunction<Question, R, R> bf, R seed) {
+      if (bf == null) {
+        throw new IllegalArgumentException("BiFunction cannot be null");
+      }
+      R result = seed;
+      for (int slot = 0; slot < answers.length; slot++) {
+        result = bf.apply(view(slot), result);
+      }
+      return result;
+    }
+
+    /**
+     * Returns the questionnaire in the same text format as {@link QuestionnaireImpl}.
+     *
+     * @return the questionnaire as a String
+     */
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder();
+      for (int slot = 0; slot < answers.length; slot++) {
+        if (slot > 0) {
+          sb.append(QuestionnaireImpl.SEPARATOR);
+        }
+        sb.append(QuestionnaireImpl.QUESTION_LABEL)
+                .append(template.definitions[slot].getPrompt())
+                .append(QuestionnaireImpl.SEPARATOR)
+                .append(QuestionnaireImpl.ANSWER_LABEL).append(answerAt(slot));
+      }
+      return sb.toString();
+    }
+
+    /**
+     * A view of one of the instance's questions: the template's definition with this
+     * instance's answer.
+     */
+    private final class Slot implements Question {
+      private final int slot;
+
+      private Slot(int slot) {
+        this.slot = slot;
+      }
+
+      @Override
+      public String getPrompt() {
+        return template.definitions[slot].getPrompt();
+      }
+
+      @Override
+      public boolean isRequired() {
+        return template.definitions[slot].isRequired();
+      }
+
+      @Override
+      public String getAnswer() {
+        return answerAt(slot);
+      }
+
+      @Override
+      public void answer(String response) {
+        Instance.this.answer(slot, response);
+      }
+
+      @Override
+      public ValidationResult validate(CharSequence response) {
+        return template.definitions[slot].validate(response);
+      }
+
+      /**
+       * Makes a standalone question with this one's definition and answer.
+       *
+       * @return the new question
+       */
+      @Override
+      public Question copy() {
+        Question copy = template.definitions[slot].copy();
+        if (answers[slot] != null) {
+          copy.answer(answers[slot]);
+        }
+        return copy;
+      }
+    }
+
+    /**
+     * A read-only list of views of the questions in the given slots.
+     */
+    private final class SlotList extends AbstractList<Question> implements RandomAccess {
+      private final int[] slots;
+
+      private SlotList(int[] slots) {
+        this.slots = slots;
+      }
+
+      @Override
+      public Question get(int index) {
+        return view(slots[index]);
+      }
+
+      @Override
+      public int size() {
+        return slots.length;
+      }
+    }
+
+    /**
+     * A read-only list of the answers, in questionnaire order.
+     */
+    private final class Responses extends AbstractList<String> implements RandomAccess {
+      @Override
+      public String get(int index) {
+        if (index < 0 || index >= answers.length) {
+          throw new IndexOutOfBoundsException("No response at index " + index);
+        }
+        return answerAt(index);
+      }
+
+      @Override
+      public int size() {
+        return answers.length;
+      }
+    }
+  }
+}
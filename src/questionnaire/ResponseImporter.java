@@ -0,0 +1,804 @@
+package questionnaire;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Loads many respondents' answers into a {@link ResponseStore} from a CSV or NDJSON export.
+ *
+ * <p>The input is read as a stream, a chunk of records at a time, so it never has to fit in
+ * memory. Each chunk is parsed and validated on the common fork/join pool while the next is
+ * being read, and the chunks are then added to the store in input order, so respondents are
+ * numbered in the order they appear. Invalid answers are reported rather than thrown: a
+ * rejected answer leaves that question unanswered for the respondent, and a record that
+ * cannot be read at all is skipped. Either way the problem is listed in the returned
+ * {@link ImportReport} and the import carries on.
+ *
+ * <p>A CSV file starts with a header naming a question identifier per column, and each
+ * following record holds one respondent's answers, with an empty field for no answer.
+ * Fields follow RFC 4180: a field may be quoted, and a quoted field may hold commas, line
+ * breaks and doubled quotes. An NDJSON file holds one JSON object per line, mapping
+ * question identifiers to string answers, with a missing or null answer meaning no answer.
+ * Blank lines are skipped in both formats, as is a byte order mark at the start.
+ *
+ * <p>Damaged input costs only the records it touches. A record longer than
+ * {@link #MAX_RECORD_CHARS} characters is rejected, and so is a CSV record whose quoted field
+ * is still open after {@link #MAX_RECORD_LINES} lines or at the end of the input; reading
+ * then carries on from the line after the one the record started on. When importing a file,
+ * a record holding bytes that are not valid UTF-8 is rejected too.
+ */
+public final class ResponseImporter {
+  /** Records parsed together as one task. */
+  private static final int CHUNK_RECORDS = 2048;
+
+  /** The most characters one record may hold, line breaks included. */
+  static final int MAX_RECORD_CHARS = 1 << 20;
+
+  /** The most lines one CSV record may span. */
+  static final int MAX_RECORD_LINES = 1000;
+
+  /**
+   * Put in place of each malformed byte sequence when reading a file. Decoding valid UTF-8
+   * never yields a high surrogate without a low surrogate after it, so unlike U+FFFD, which
+   * may really be in the file, this cannot be mistaken for text.
+   */
+  private static final char MALFORMED = '\uD800';
+
+  private final ResponseStore store;
+  private final List<String> identifiers;
+  private final Map<String, Integer> columnIndex;
+  private final ResponseStore.Column[] columns;
+
+  /** Chunks parsed ahead of the one being added to the store. */
+  private final int window;
+
+  /**
+   * Constructs an importer that adds respondents to the given store.
+   *
+   * @param store the store to import into
+   * @throws IllegalArgumentException if the store is null
+   */
+  public ResponseImporter(ResponseStore store) {
+    if (store == null) {
+      throw new IllegalArgumentException("Store cannot be null");
+    }
+    this.store = store;
+    this.identifiers = store.getIdentifiers();
+    this.columnIndex = new HashMap<>();
+    this.columns = new ResponseStore.Column[identifiers.size()];
+    for (int i = 0; i < columns.length; i++) {
+      columnIndex.put(identifiers.get(i), i);
+      columns[i] = store.getColumn(identifiers.get(i));
+    }
+    this.window = Runtime.getRuntime().availableProcessors() * 2;
+  }
+
+  /**
+   * Imports a UTF-8 CSV file with a header row of question identifiers.
+   *
+   * @param file the file to import
+   * @return what was imported and what was wrong
+   * @throws IOException if the file cannot be read
+   * @throws IllegalArgumentException if the file is null
+   */
+  public ImportReport importCsv(Path file) throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("File cannot be null");
+    }
+    try (Reader reader = open(file)) {
+      return importCsv(new RecordReader(reader, true, true));
+    }
+  }
+
+  /**
+   * Imports CSV text with a header row of question identifiers. The reader is read to the
+   * end but not closed.
+   *
+   * @param in the text to import
+   * @return what was imported and what was wrong
+   * @throws IOException if the text cannot be read
+   * @throws IllegalArgumentException if the reader is null
+   */
+  public ImportReport importCsv(Reader in) throws IOException {
+    if (in == null) {
+      throw new IllegalArgumentException("Reader cannot be null");
+    }
+    return importCsv(new RecordReader(in, true, false));
+  }
+
+  private ImportReport importCsv(RecordReader records) throws IOException {
+    List<ImportReport.LineError> errors = new ArrayList<>();
+    String header = records.next();
+    if (header == null) {
+      return new ImportReport(store.size(), 0, errors);
+    }
+
+    // map each CSV column to a store column, or -1 to skip it
+    List<String> names = records.problem == null ? splitCsv(header) : null;
+    if (names == null) {
+      errors.add(new ImportReport.LineError(records.start, null, "Malformed CSV header"));
+      return new ImportReport(store.size(), 0, errors);
+    }
+    int[] fieldColumns = new int[names.size()];
+    boolean[] seen = new boolean[columns.length];
+    for (int i = 0; i < fieldColumns.length; i++) {
+      String name = names.get(i);
+      Integer column = columnIndex.get(name);
+      if (column == null) {
+        errors.add(new ImportReport.LineError(records.start, name,
+                "No such question; column ignored"));
+        fieldColumns[i] = -1;
+      } else if (seen[column]) {
+        errors.add(new ImportReport.LineError(records.start, name, "Repeated column ignored"));
+        fieldColumns[i] = -1;
+      } else {
+        seen[column] = true;
+        fieldColumns[i] = column;
+      }
+    }
+
+    return run(records, errors, (record, line, chunkErrors) -> {
+      List<String> fields = splitCsv(record);
+      if (fields == null) {
+        chunkErrors.add(new ImportReport.LineError(line, null, "Malformed CSV record"));
+        return null;
+      }
+      if (fields.size() != fieldColumns.length) {
+        chunkErrors.add(new ImportReport.LineError(line, null, "Expected "
+                + fieldColumns.length + " fields but found " + fields.size()));
+        return null;
+      }
+      String[] row = new String[columns.length];
+      for (int i = 0; i < fieldColumns.length; i++) {
+        if (fieldColumns[i] >= 0) {
+          accept(row, fieldColumns[i], fields.get(i), line, chunkErrors);
+        }
+      }
+      return row;
+    });
+  }
+
+  /**
+   * Imports a UTF-8 NDJSON file of one JSON object per respondent.
+   *
+   * @param file the file to import
+   * @return what was imported and what was wrong
+   * @throws IOException if the file cannot be read
+   * @throws IllegalArgumentException if the file is null
+   */
+  public ImportReport importNdjson(Path file) throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("File cannot be null");
+    }
+    try (Reader reader = open(file)) {
+      return importNdjson(new RecordReader(reader, false, true));
+    }
+  }
+
+  /**
+   * Imports NDJSON text of one JSON object per respondent. The reader is read to the end but
+   * not closed.
+   *
+   * @param in the text to import
+   * @return what was imported and what was wrong
+   * @throws IOException if the text cannot be read
+   * @throws IllegalArgumentException if the reader is null
+   */
+  public ImportReport importNdjson(Reader in) throws IOException {
+    if (in == null) {
+      throw new IllegalArgumentException("Reader cannot be null");
+    }
+    return importNdjson(new RecordReader(in, false, false));
+  }
+
+  private ImportReport importNdjson(RecordReader records) throws IOException {
+    return run(records, new ArrayList<>(),
+        (record, line, chunkErrors) -> {
+          Map<String, Object> object = new JsonObjectParser(record).parse();
+          if (object == null) {
+            chunkErrors.add(new ImportReport.LineError(line, null, "Malformed JSON object"));
+            return null;
+          }
+          String[] row = new String[columns.length];
+          for (Map.Entry<String, Object> field : object.entrySet()) {
+            Integer column = columnIndex.get(field.getKey());
+            Object value = field.getValue();
+            if (column == null) {
+              chunkErrors.add(new ImportReport.LineError(line, field.getKey(),
+                      "No such question"));
+            } else if (value instanceof String) {
+              accept(row, column, (String) value, line, chunkErrors);
+            } else if (value != JsonObjectParser.NULL) {
+              chunkErrors.add(new ImportReport.LineError(line, field.getKey(),
+                      "Answer must be a string"));
+            }
+          }
+          return row;
+        });
+  }
+
+  /**
+   * Opens a UTF-8 file so that malformed bytes become {@link #MALFORMED} rather than an
+   * exception, leaving {@link RecordReader} to reject just the records holding them.
+   */
+  private static Reader open(Path file) throws IOException {
+    CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE)
+            .replaceWith(String.valueOf(MALFORMED));
+    return new InputStreamReader(Files.newInputStream(file), decoder);
+  }
+
+  /**
+   * Checks one answer, putting it in the row if it is valid and reporting it if not.
+   */
+  private void accept(String[] row, int column, String response, long line,
+          List<ImportReport.LineError> errors) {
+    if (response.isEmpty()) {
+      return;
+    }
+    ValidationResult result = columns[column].check(response);
+    if (result.isValid()) {
+      row[column] = response;
+    } else {
+      errors.add(new ImportReport.LineError(line, identifiers.get(column), result.getMessage()));
+    }
+  }
+
+  /**
+   * Reads chunks of records, parses each on the common pool while later ones are read, and
+   * adds the parsed rows to the store in input order.
+   */
+  private ImportReport run(RecordReader records, List<ImportReport.LineError> errors,
+          RecordParser parser) throws IOException {
+    int first = store.size();
+    Deque<CompletableFuture<Chunk>> pending = new ArrayDeque<>();
+    while (true) {
+      Chunk chunk = records.nextChunk();
+      if (chunk == null) {
+        break;
+      }
+      pending.add(CompletableFuture.supplyAsync(() -> chunk.parse(parser)));
+      if (pending.size() >= window) {
+        load(join(pending.poll()), errors);
+      }
+    }
+    while (!pending.isEmpty()) {
+      load(join(pending.poll()), errors);
+    }
+    return new ImportReport(first, store.size() - first, errors);
+  }
+
+  private void load(Chunk chunk, List<ImportReport.LineError> errors) {
+    errors.addAll(chunk.errors);
+    for (String[] row : chunk.rows) {
+      int respondent = store.addRespondent();
+      for (int column = 0; column < row.length; column++) {
+        if (row[column] != null) {
+          columns[column].store(respondent, row[column]);
+        }
+      }
+    }
+  }
+
+  private static Chunk join(CompletableFuture<Chunk> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Splits one CSV record into its fields.
+   *
+   * @param record the record, possibly spanning several lines inside quotes
+   * @return the fields, or null if a quote is left open or followed by something other than
+   *         a comma
+   */
+  static List<String> splitCsv(String record) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    int i = 0;
+    int length = record.length();
+    while (true) {
+      if (i < length && record.charAt(i) == '"') {
+        // quoted field: runs to the next quote not doubled
+        i++;
+        while (true) {
+          if (i >= length) {
+            return null;
+          }
+          char c = record.charAt(i++);
+          if (c == '"') {
+            if (i < length && record.charAt(i) == '"') {
+              field.append('"');
+              i++;
+            } else {
+              break;
+            }
+          } else {
+            field.append(c);
+          }
+        }
+        if (i < length && record.charAt(i) != ',') {
+          return null;
+        }
+      } else {
+        int comma = record.indexOf(',', i);
+        int end = comma < 0 ? length : comma;
+        field.append(record, i, end);
+        i = end;
+      }
+      fields.add(field.toString());
+      field.setLength(0);
+      if (i >= length) {
+        return fields;
+      }
+      // skip the comma
+      i++;
+    }
+  }
+
+  /**
+   * Turns one record into a row of valid answers, one per store column with null for no
+   * answer, adding any problems to the list; returns null to skip the whole record.
+   */
+  private interface RecordParser {
+    String[] parse(String record, long line, List<ImportReport.LineError> errors);
+  }
+
+  /**
+   * A run of records read together, and once parsed, their rows and problems.
+   */
+  private static final class Chunk {
+    final String[] records;
+    final String[] problems;
+    final long[] lines;
+    final int count;
+    final List<String[]> rows = new ArrayList<>();
+    final List<ImportReport.LineError> errors = new ArrayList<>();
+
+    Chunk(String[] records, String[] problems, long[] lines, int count) {
+      this.records = records;
+      this.problems = problems;
+      this.lines = lines;
+      this.count = count;
+    }
+
+    Chunk parse(RecordParser parser) {
+      for (int i = 0; i < count; i++) {
+        if (problems[i] != null) {
+          errors.add(new ImportReport.LineError(lines[i], null, problems[i]));
+          continue;
+        }
+        String[] row = parser.parse(records[i], lines[i], errors);
+        if (row != null) {
+          rows.add(row);
+        }
+      }
+      return this;
+    }
+  }
+
+  /**
+   * Splits text into records, remembering the line each starts on. A CSV record continues
+   * onto the next line while a quoted field is left open; other records are single lines, and
+   * blank ones are skipped. A record that cannot be read is still returned, with
+   * {@link #problem} saying why, so that it can be reported in its place.
+   */
+  private static final class RecordReader {
+    /** Returned by {@link #readLine} for a line over the limit; compared by identity. */
+    private static final String TOO_LONG = new String("");
+
+    private final Reader in;
+    private final boolean csv;
+    private final boolean checkDecoding;
+    private final char[] buffer = new char[8192];
+    private int pos;
+    private int limit;
+    private boolean skipLf;
+    private final StringBuilder line = new StringBuilder();
+
+    /** Lines read ahead of a record that turned out to be unreadable, to be read again. */
+    private final Deque<String> pushedBack = new ArrayDeque<>();
+    private long lineNumber;
+
+    /** The line the last record returned starts on. */
+    long start;
+
+    /** Why the last record returned cannot be read, or null if it can. */
+    String problem;
+
+    RecordReader(Reader in, boolean csv, boolean checkDecoding) {
+      this.in = in;
+      this.csv = csv;
+      this.checkDecoding = checkDecoding;
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the record, or null at the end of the input
+     */
+    String next() throws IOException {
+      problem = null;
+      String first = readLine();
+      while (first != null && first != TOO_LONG
+              && (csv ? first.isEmpty() : first.isBlank())) {
+        first = readLine();
+      }
+      start = lineNumber;
+      if (first == TOO_LONG) {
+        problem = "Record longer than " + MAX_RECORD_CHARS + " characters";
+        return first;
+      }
+      if (first == null || !csv || !endsQuoted(first, false)) {
+        return checked(first);
+      }
+
+      StringBuilder record = new StringBuilder(first);
+      int lines = 1;
+      while (true) {
+        String more = readLine();
+        if (more == null || more == TOO_LONG || lines == MAX_RECORD_LINES
+                || record.length() + 1 + more.length() > MAX_RECORD_CHARS) {
+          // the quote never closes: reject the first line alone and read on after it
+          if (more != null) {
+            pushedBack.offerFirst(more);
+          }
+          String[] rest = record.toString().split("\n", -1);
+          for (int i = rest.length - 1; i > 0; i--) {
+            pushedBack.offerFirst(rest[i]);
+          }
+          lineNumber = start;
+          problem = more == null ? "Malformed CSV record"
+                  : "Malformed CSV record: quoted field not closed within "
+                          + MAX_RECORD_LINES + " lines or " + MAX_RECORD_CHARS + " characters";
+          return first;
+        }
+        record.append('\n').append(more);
+        lines++;
+        if (!endsQuoted(more, true)) {
+          return checked(record.toString());
+        }
+      }
+    }
+
+    Chunk nextChunk() throws IOException {
+      String[] records = new String[CHUNK_RECORDS];
+      String[] problems = new String[CHUNK_RECORDS];
+      long[] lines = new long[CHUNK_RECORDS];
+      int count = 0;
+      while (count < CHUNK_RECORDS) {
+        String record = next();
+        if (record == null) {
+          break;
+        }
+        records[count] = record;
+        problems[count] = problem;
+        lines[count] = start;
+        count++;
+      }
+      return count == 0 ? null : new Chunk(records, problems, lines, count);
+    }
+
+    private String checked(String record) {
+      if (checkDecoding && record != null && hasMalformed(record)) {
+        problem = "Record is not valid UTF-8";
+      }
+      return record;
+    }
+
+    /**
+     * Reports whether the decoder put {@link #MALFORMED} anywhere in a record: a high
+     * surrogate with no low surrogate after it, which valid UTF-8 cannot produce.
+     */
+    private static boolean hasMalformed(String record) {
+      for (int at = record.indexOf(MALFORMED); at >= 0; at = record.indexOf(MALFORMED, at + 1)) {
+        if (at + 1 == record.length() || !Character.isLowSurrogate(record.charAt(at + 1))) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Reads one line, ended by a line feed, a carriage return or both, dropping a byte order
+     * mark at the very start of the input.
+     *
+     * @return the line, {@link #TOO_LONG} if it holds more than {@link #MAX_RECORD_CHARS}
+     *         characters, or null at the end of the input
+     */
+    private String readLine() throws IOException {
+      if (!pushedBack.isEmpty()) {
+        lineNumber++;
+        return pushedBack.pollFirst();
+      }
+      line.setLength(0);
+      boolean tooLong = false;
+      boolean empty = true;
+      while (true) {
+        if (pos == limit) {
+          int read = in.read(buffer, 0, buffer.length);
+          if (read < 0) {
+            if (empty) {
+              return null;
+            }
+            break;
+          }
+          pos = 0;
+          limit = read;
+          continue;
+        }
+        if (skipLf) {
+          skipLf = false;
+          if (buffer[pos] == '\n') {
+            pos++;
+            continue;
+          }
+        }
+        empty = false;
+        int end = pos;
+        while (end < limit && buffer[end] != '\n' && buffer[end] != '\r') {
+          end++;
+        }
+        int room = MAX_RECORD_CHARS - line.length();
+        if (end - pos > room) {
+          tooLong = true;
+        }
+        line.append(buffer, pos, Math.min(end - pos, Math.max(room, 0)));
+        pos = end;
+        if (pos < limit) {
+          skipLf = buffer[pos++] == '\r';
+          break;
+        }
+      }
+      lineNumber++;
+      if (tooLong) {
+        return TOO_LONG;
+      }
+      if (lineNumber == 1 && line.length() > 0 && line.charAt(0) == '\uFEFF') {
+        line.deleteCharAt(0);
+      }
+      return line.toString();
+    }
+
+    /**
+     * Reports whether a quoted field is still open at the end of a line. Only a quote at the
+     * start of a field opens one; a quote anywhere else in an unquoted field is just text.
+     *
+     * @param line the line
+     * @param quoted whether the line starts inside a quoted field
+     * @return whether it ends inside one
+     */
+    private static boolean endsQuoted(String line, boolean quoted) {
+      boolean fieldStart = !quoted;
+      int length = line.length();
+      for (int i = 0; i < length; i++) {
+        char c = line.charAt(i);
+        if (quoted) {
+          if (c == '"') {
+            if (i + 1 < length && line.charAt(i + 1) == '"') {
+              i++;
+            } else {
+              quoted = false;
+            }
+          }
+        } else if (c == ',') {
+          fieldStart = true;
+        } else {
+          quoted = fieldStart && c == '"';
+          fieldStart = false;
+        }
+      }
+      return quoted;
+    }
+  }
+
+  /**
+   * Reads a single JSON object whose values are the answers. String values come back as
+   * Strings, null as {@link #NULL}, and anything else as {@link #OTHER}.
+   */
+  private static final class JsonObjectParser {
+    static final Object NULL = new Object();
+    static final Object OTHER = new Object();
+
+    private final String text;
+    private int pos;
+
+    JsonObjectParser(String text) {
+      this.text = text;
+    }
+
+    /**
+     * Parses the text.
+     *
+     * @return the fields in order, or null if the text is not a single JSON object
+     */
+    Map<String, Object> parse() {
+      Map<String, Object> fields = new LinkedHashMap<>();
+      skipSpace();
+      if (!consume('{')) {
+        return null;
+      }
+      skipSpace();
+      if (!consume('}')) {
+        do {
+          skipSpace();
+          String key = string();
+          skipSpace();
+          if (key == null || !consume(':')) {
+            return null;
+          }
+          skipSpace();
+          Object value = value();
+          if (value == null) {
+            return null;
+          }
+          fields.put(key, value);
+          skipSpace();
+        } while (consume(','));
+        if (!consume('}')) {
+          return null;
+        }
+      }
+      skipSpace();
+      return pos == text.length() ? fields : null;
+    }
+
+    /** Reads any value, returning null if it is malformed. */
+    private Object value() {
+      if (pos >= text.length()) {
+        return null;
+      }
+      char c = text.charAt(pos);
+      if (c == '"') {
+        return string();
+      }
+      if (c == '{' || c == '[') {
+        return skipNested() ? OTHER : null;
+      }
+      if (text.startsWith("null", pos)) {
+        pos += 4;
+        return NULL;
+      }
+      if (text.startsWith("true", pos)) {
+        pos += 4;
+        return OTHER;
+      }
+      if (text.startsWith("false", pos)) {
+        pos += 5;
+        return OTHER;
+      }
+      int start = pos;
+      while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+        pos++;
+      }
+      return pos > start ? OTHER : null;
+    }
+
+    /** Skips a nested object or array, returning false if it is not closed properly. */
+    private boolean skipNested() {
+      int depth = 0;
+      while (pos < text.length()) {
+        char c = text.charAt(pos);
+        if (c == '"') {
+          if (string() == null) {
+            return false;
+          }
+          continue;
+        }
+        pos++;
+        if (c == '{' || c == '[') {
+          depth++;
+        } else if (c == '}' || c == ']') {
+          depth--;
+          if (depth == 0) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    /** Reads a string, returning null if it is malformed. */
+    private String string() {
+      if (!consume('"')) {
+        return null;
+      }
+      StringBuilder s = null;
+      int start = pos;
+      while (pos < text.length()) {
+        char c = text.charAt(pos++);
+        if (c == '"') {
+          return s == null ? text.substring(start, pos - 1) : s.toString();
+        }
+        if (c != '\\') {
+          if (s != null) {
+            s.append(c);
+          }
+          continue;
+        }
+        if (s == null) {
+          s = new StringBuilder(text.substring(start, pos - 1));
+        }
+        if (pos >= text.length()) {
+          return null;
+        }
+        char escape = text.charAt(pos++);
+        switch (escape) {
+          case '"':
+          case '\\':
+          case '/':
+            s.append(escape);
+            break;
+          case 'b':
+            s.append('\b');
+            break;
+          case 'f':
+            s.append('\f');
+            break;
+          case 'n':
+            s.append('\n');
+            break;
+          case 'r':
+            s.append('\r');
+            break;
+          case 't':
+            s.append('\t');
+            break;
+          case 'u':
+            if (pos + 4 > text.length()) {
+              return null;
+            }
+            int code = 0;
+            for (int i = 0; i < 4; i++) {
+              int digit = Character.digit(text.charAt(pos++), 16);
+              if (digit < 0) {
+                return null;
+              }
+              code = code * 16 + digit;
+            }
+            s.append((char) code);
+            break;
+          default:
+            return null;
+        }
+      }
+      return null;
+    }
+
+    private boolean consume(char c) {
+      if (pos < text.length() && text.charAt(pos) == c) {
+        pos++;
+        return true;
+      }
+      return false;
+    }
+
+    private void skipSpace() {
+      while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+        pos++;
+      }
+    }
+  }
+}
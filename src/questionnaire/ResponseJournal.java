@@ -0,0 +1,416 @@
+package questionnaire;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of answers, kept on disk so that they survive a crash. Each answer is
+ * recorded as the respondent's number, the question's identifier and the response. After a
+ * restart, the log can be replayed into a {@link ResponseStore} or a {@link Questionnaire}.
+ *
+ * <p>The log is a series of segment files in one directory, each memory-mapped, so appending
+ * a record is a copy into memory with no system call. Records reach the disk when
+ * {@link #commit()} is called. Many threads can append and commit at once; a commit forces
+ * every record appended before it in one go, so threads that commit together share a single
+ * disk flush.
+ *
+ * <p>Each record is a 4-byte payload length, a 4-byte CRC32 of the payload, then the payload:
+ * the respondent as a varint, and the identifier and response each as a varint byte length
+ * followed by UTF-8 bytes. A length of zero marks the end of a segment. A record whose
+ * checksum does not match was torn by a crash; it and anything after it in the same segment
+ * is ignored, and on reopening the log new records overwrite it.
+ */
+public final class ResponseJournal implements Closeable {
+  /** Segment size used by {@link #ResponseJournal(Path)}: 64 MiB. */
+  public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+  private static final int MIN_SEGMENT_SIZE = 64;
+  private static final int HEADER = 8;
+  private static final String PREFIX = "responses-";
+  private static final String SUFFIX = ".journal";
+
+  private final Path directory;
+  private final int segmentSize;
+
+  /** Encoded identifiers, so repeated answers to a question do not re-encode it. */
+  private final Map<String, byte[]> identifierBytes;
+  private final CRC32 crc;
+
+  /** The segment being appended to; guarded by this. */
+  private int segmentIndex;
+  private FileChannel channel;
+  private MappedByteBuffer segment;
+  private boolean closed;
+
+  /** Number of records appended since opening; guarded by this. */
+  private long appended;
+
+  /** Held while forcing, so concurrent commits queue up behind one flush. */
+  private final Object commitLock;
+
+  /** Number of records known to be on disk. */
+  private volatile long durable;
+
+  /**
+   * Opens the journal in the given directory with the default segment size, creating the
+   * directory if needed. New records go after any already in the journal.
+   *
+   * @param directory the directory holding the segment files
+   * @throws IOException if the directory or segment files cannot be opened
+   * @throws IllegalArgumentException if the directory is null
+   */
+  public ResponseJournal(Path directory) throws IOException {
+    this(directory, DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * Opens the journal in the given directory, creating the directory if needed. New records
+   * go after any already in the journal.
+   *
+   * @param directory the directory holding the segment files
+   * @param segmentSize the size in bytes of each new segment file
+   * @throws IOException if the directory or segment files cannot be opened
+   * @throws IllegalArgumentException if the directory is null or the segment size is too
+   *                                  small to hold a record
+   */
+  public ResponseJournal(Path directory, int segmentSize) throws IOException {
+    if (directory == null) {
+      throw new IllegalArgumentException("Directory cannot be null");
+    }
+    if (segmentSize < MIN_SEGMENT_SIZE) {
+      throw new IllegalArgumentException("Segment size must be at least " + MIN_SEGMENT_SIZE);
+    }
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.identifierBytes = new HashMap<>();
+    this.crc = new CRC32();
+    this.commitLock = new Object();
+
+    Files.createDirectories(directory);
+    List<Integer> segments = segmentIndexes();
+    openSegment(segments.isEmpty() ? 0 : segments.get(segments.size() - 1));
+
+    // carry on after the last whole record, clearing what is left of any torn one so that
+    // none of it can be mistaken for a record once shorter new records are written over it
+    int end = scan(segment, null);
+    int dirty = segment.limit();
+    while (dirty > end && segment.get(dirty - 1) == 0) {
+      dirty--;
+    }
+    if (dirty > end) {
+      for (int i = end; i < dirty; i++) {
+        segment.put(i, (byte) 0);
+      }
+      segment.force();
+    }
+    segment.position(end);
+  }
+
+  /**
+   * Appends an answer to the journal. The record is not on disk until the next
+   * {@link #commit()}.
+   *
+   * @param respondent the respondent's number, from 0
+   * @param identifier the identifier of the question answered
+   * @param response the response given
+   * @throws IOException if a new segment file is needed and cannot be created
+   * @throws IllegalArgumentException if the respondent is negative, the identifier is null or
+   *                                  empty, the response is null, or the record is too large
+   *                                  for a segment
+   * @throws IllegalStateException if the journal is closed
+   */
+  public synchronized void append(int respondent, String identifier, String response)
+          throws IOException {
+    checkOpen();
+    if (respondent < 0) {
+      throw new IllegalArgumentException("Respondent cannot be negative");
+    }
+    if (identifier == null || identifier.isEmpty()) {
+      throw new IllegalArgumentException("please enter a valid identifier");
+    }
+    if (response == null) {
+      throw new IllegalArgumentException("Response cannot be null");
+    }
+    byte[] id = identifierBytes.computeIfAbsent(identifier,
+        s -> s.getBytes(StandardCharsets.UTF_8));
+    byte[] answer = response.getBytes(StandardCharsets.UTF_8);
+    int length = varintSize(respondent) + varintSize(id.length) + id.length
+            + varintSize(answer.length) + answer.length;
+    if (HEADER + length > segmentSize) {
+      throw new IllegalArgumentException("Record too large for a journal segment");
+    }
+    if (segment.remaining() < HEADER + length) {
+      roll();
+    }
+
+    int start = segment.position();
+    segment.position(start + HEADER);
+    putVarint(respondent);
+    putVarint(id.length);
+    segment.put(id);
+    putVarint(answer.length);
+    segment.put(answer);
+
+    ByteBuffer payload = segment.duplicate();
+    payload.position(start + HEADER).limit(start + HEADER + length);
+    crc.reset();
+    crc.update(payload);
+    segment.putInt(start + 4, (int) crc.getValue());
+    // the length goes in last, so readers in this process never see half a record
+    segment.putInt(start, length);
+    appended++;
+  }
+
+  /**
+   * Forces every record appended so far to disk. If another thread is already forcing, this
+   * waits for it, and returns without forcing again if that covered this thread's records.
+   *
+   * @throws IOException if the records cannot be written
+   * @throws IllegalStateException if the journal is closed
+   */
+  public void commit() throws IOException {
+    long target;
+    synchronized (this) {
+      checkOpen();
+      target = appended;
+    }
+    if (durable >= target) {
+      return;
+    }
+    synchronized (commitLock) {
+      if (durable >= target) {
+        return;
+      }
+      MappedByteBuffer toForce;
+      long upTo;
+      synchronized (this) {
+        checkOpen();
+        toForce = segment;
+        upTo = appended;
+      }
+      // earlier segments were forced when they filled up
+      toForce.force();
+      durable = upTo;
+    }
+  }
+
+  /**
+   * Replays every record into the given store, in the order appended, adding respondents
+   * as needed so every recorded respondent number exists.
+   *
+   * @param store the store to answer into
+   * @return the number of records replayed
+   * @throws IOException if a segment file cannot be read
+   * @throws IllegalArgumentException if the store is null, or rejects a recorded answer
+   * @throws java.util.NoSuchElementException if a record names a question not in the store
+   */
+  public synchronized int replay(ResponseStore store) throws IOException {
+    if (store == null) {
+      throw new IllegalArgumentException("Store cannot be null");
+    }
+    return forEachRecord((respondent, identifier, response) -> {
+      while (store.size() <= respondent) {
+        store.addRespondent();
+      }
+      store.answer(respondent, identifier, response);
+    });
+  }
+
+  /**
+   * Replays one respondent's records into the given questionnaire, in the order appended,
+   * so it ends up with that respondent's latest answers.
+   *
+   * @param respondent the respondent's number
+   * @param questionnaire the questionnaire to answer
+   * @return the number of records replayed
+   * @throws IOException if a segment file cannot be read
+   * @throws IllegalArgumentException if the questionnaire is null, or rejects a recorded
+   *                                  answer
+   * @throws java.util.NoSuchElementException if a record names a question not in the
+   *                                          questionnaire
+   */
+  public synchronized int replay(int respondent, Questionnaire questionnaire)
+          throws IOException {
+    if (questionnaire == null) {
+      throw new IllegalArgumentException("Questionnaire cannot be null");
+    }
+    int[] replayed = new int[1];
+    forEachRecord((recorded, identifier, response) -> {
+      if (recorded == respondent) {
+        questionnaire.getQuestion(identifier).answer(response);
+        replayed[0]++;
+      }
+    });
+    return replayed[0];
+  }
+
+  /**
+   * Forces any records not yet on disk and closes the journal.
+   *
+   * @throws IOException if the records cannot be written or the file cannot be closed
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (commitLock) {
+      synchronized (this) {
+        if (closed) {
+          return;
+        }
+        segment.force();
+        durable = appended;
+        closed = true;
+        channel.close();
+      }
+    }
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("Journal is closed");
+    }
+  }
+
+  private void roll() throws IOException {
+    segment.force();
+    channel.close();
+    openSegment(segmentIndex + 1);
+  }
+
+  private void openSegment(int index) throws IOException {
+    channel = FileChannel.open(segmentPath(index), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+    // a segment written with a different size keeps its own size
+    long size = Math.max(channel.size(), segmentSize);
+    segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    segmentIndex = index;
+  }
+
+  private Path segmentPath(int index) {
+    return directory.resolve(String.format("%s%08d%s", PREFIX, index, SUFFIX));
+  }
+
+  private List<Integer> segmentIndexes() throws IOException {
+    List<Integer> indexes = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+        PREFIX + "*" + SUFFIX)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        String number = name.substring(PREFIX.length(), name.length() - SUFFIX.length());
+        try {
+          indexes.add(Integer.parseInt(number));
+        } catch (NumberFormatException e) {
+          // not one of ours
+        }
+      }
+    }
+    Collections.sort(indexes);
+    return indexes;
+  }
+
+  private int forEachRecord(RecordHandler handler) throws IOException {
+    int[] count = new int[1];
+    RecordHandler counting = (respondent, identifier, response) -> {
+      handler.accept(respondent, identifier, response);
+      count[0]++;
+    };
+    for (int index : segmentIndexes()) {
+      if (index == segmentIndex && !closed) {
+        scan(segment, counting);
+        continue;
+      }
+      try (FileChannel file = FileChannel.open(segmentPath(index), StandardOpenOption.READ)) {
+        scan(file.map(FileChannel.MapMode.READ_ONLY, 0, file.size()), counting);
+      }
+    }
+    return count[0];
+  }
+
+  /**
+   * Walks the whole records at the start of a segment, passing each to the handler if there
+   * is one.
+   *
+   * @return the offset just past the last whole record
+   */
+  private static int scan(ByteBuffer segment, RecordHandler handler) {
+    CRC32 check = new CRC32();
+    int limit = segment.limit();
+    int pos = 0;
+    while (pos + HEADER <= limit) {
+      int length = segment.getInt(pos);
+      if (length <= 0 || length > limit - pos - HEADER) {
+        break;
+      }
+      ByteBuffer payload = segment.duplicate();
+      payload.position(pos + HEADER).limit(pos + HEADER + length);
+      check.reset();
+      check.update(payload);
+      if ((int) check.getValue() != segment.getInt(pos + 4)) {
+        break;
+      }
+      if (handler != null) {
+        payload.position(pos + HEADER);
+        int respondent = getVarint(payload);
+        String identifier = getString(payload);
+        String response = getString(payload);
+        handler.accept(respondent, identifier, response);
+      }
+      pos += HEADER + length;
+    }
+    return pos;
+  }
+
+  private void putVarint(int value) {
+    while ((value & ~0x7F) != 0) {
+      segment.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    segment.put((byte) value);
+  }
+
+  private static int varintSize(int value) {
+    int size = 1;
+    while ((value & ~0x7F) != 0) {
+      value >>>= 7;
+      size++;
+    }
+    return size;
+  }
+
+  private static int getVarint(ByteBuffer buffer) {
+    int value = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = buffer.get();
+      value |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    byte[] bytes = new byte[getVarint(buffer)];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Receives the records read back from the journal.
+   */
+  private interface RecordHandler {
+    void accept(int respondent, String identifier, String response);
+  }
+}
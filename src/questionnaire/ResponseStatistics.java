@@ -0,0 +1,185 @@
+package questionnaire;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Computes summary statistics over the answers held in a {@link ResponseStore}: the
+ * distribution, mean and median of Likert answers, the share of yes answers to yes/no
+ * questions, and how many respondents answered each question. Each statistic is a single
+ * pass over the question's column, so it reflects the store as it is when called.
+ *
+ * <p>Likert statistics use the scale values of {@link LikertResponseOption}, from -2 for
+ * strongly disagree to 2 for strongly agree. The mean and median are both derived from the
+ * distribution, so every statistic of a column is computed from the same counts.
+ */
+public class ResponseStatistics {
+  private static final LikertResponseOption[] OPTIONS = LikertResponseOption.values();
+
+  private final ResponseStore store;
+
+  /**
+   * Constructs statistics over the given store.
+   *
+   * @param store the store holding the answers
+   * @throws IllegalArgumentException if the store is null
+   */
+  public ResponseStatistics(ResponseStore store) {
+    if (store == null) {
+      throw new IllegalArgumentException("Store cannot be null");
+    }
+    this.store = store;
+  }
+
+  /**
+   * Counts the answers to a Likert question by option, in scale order from strongly
+   * disagree to strongly agree.
+   *
+   * @param identifier the identifier of a Likert question
+   * @return the count for each option; unanswered rows are not counted
+   * @throws java.util.NoSuchElementException if there is no question with the identifier
+   * @throws IllegalArgumentException if the question is not a Likert question
+   */
+  public int[] likertDistribution(String identifier) {
+    byte[] codes = likertColumn(identifier).codes();
+    int rows = store.size();
+
+    // four independent tallies, so consecutive equal answers do not wait on each other's
+    // increment; codes run 0 (unanswered) to OPTIONS.length
+    int width = OPTIONS.length + 1;
+    int[] tallies = new int[width * 4];
+    int row = 0;
+    for (; row + 3 < rows; row += 4) {
+      tallies[codes[row]]++;
+      tallies[width + codes[row + 1]]++;
+      tallies[2 * width + codes[row + 2]]++;
+      tallies[3 * width + codes[row + 3]]++;
+    }
+    for (; row < rows; row++) {
+      tallies[codes[row]]++;
+    }
+
+    int[] counts = new int[OPTIONS.length];
+    for (int option = 0; option < OPTIONS.length; option++) {
+      int code = option + 1;
+      counts[option] = tallies[code] + tallies[width + code] + tallies[2 * width + code]
+              + tallies[3 * width + code];
+    }
+    return counts;
+  }
+
+  /**
+   * Returns the mean scale value of the answers to a Likert question.
+   *
+   * @param identifier the identifier of a Likert question
+   * @return the mean, or NaN if nobody has answered
+   * @throws java.util.NoSuchElementException if there is no question with the identifier
+   * @throws IllegalArgumentException if the question is not a Likert question
+   */
+  public double likertMean(String identifier) {
+    int[] counts = likertDistribution(identifier);
+    long total = 0;
+    long sum = 0;
+    for (int option = 0; option < counts.length; option++) {
+      total += counts[option];
+      sum += (long) counts[option] * OPTIONS[option].getValue();
+    }
+    return total == 0 ? Double.NaN : (double) sum / total;
+  }
+
+  /**
+   * Returns the median scale value of the answers to a Likert question. With an even number
+   * of answers this is the mean of the two middle values.
+   *
+   * @param identifier the identifier of a Likert question
+   * @return the median, or NaN if nobody has answered
+   * @throws java.util.NoSuchElementException if there is no question with the identifier
+   * @throws IllegalArgumentException if the question is not a Likert question
+   */
+  public double likertMedian(String identifier) {
+    int[] counts = likertDistribution(identifier);
+    long total = 0;
+    for (int count : counts) {
+      total += count;
+    }
+    if (total == 0) {
+      return Double.NaN;
+    }
+    // values at the two middle positions, counting from 0; equal when total is odd
+    int lower = valueAt(counts, (total - 1) / 2);
+    int upper = valueAt(counts, total / 2);
+    return (lower + upper) / 2.0;
+  }
+
+  /**
+   * Returns the share of answers to a yes/no question that are yes.
+   *
+   * @param identifier the identifier of a yes/no question
+   * @return the ratio of yes answers to all answers, or NaN if nobody has answered
+   * @throws java.util.NoSuchElementException if there is no question with the identifier
+   * @throws IllegalArgumentException if the question is not a yes/no question
+   */
+  public double yesRatio(String identifier) {
+    ResponseStore.Column column = store.getColumn(identifier);
+    if (!(column instanceof ResponseStore.YesNoColumn)) {
+      throw new IllegalArgumentException("Question is not a yes/no question");
+    }
+    ResponseStore.YesNoColumn yesNo = (ResponseStore.YesNoColumn) column;
+    int answered = yesNo.answeredCount(store.size());
+    if (answered == 0) {
+      return Double.NaN;
+    }
+    BitSet yes = yesNo.yesRows();
+    return (double) yes.cardinality() / answered;
+  }
+
+  /**
+   * Returns the share of respondents who have given a non-empty answer to a question.
+   *
+   * @param identifier the identifier of the question
+   * @return the completion rate, or NaN if the store has no respondents
+   * @throws java.util.NoSuchElementException if there is no question with the identifier
+   */
+  public double completionRate(String identifier) {
+    if (store.size() == 0) {
+      return Double.NaN;
+    }
+    return (double) store.getColumn(identifier).answeredCount(store.size()) / store.size();
+  }
+
+  /**
+   * Returns the completion rate of every required question, in questionnaire order.
+   *
+   * @return the completion rates keyed by identifier
+   */
+  public Map<String, Double> requiredCompletionRates() {
+    Map<String, Double> rates = new LinkedHashMap<>();
+    for (String identifier : store.getIdentifiers()) {
+      if (store.getColumn(identifier).isRequired()) {
+        rates.put(identifier, completionRate(identifier));
+      }
+    }
+    return rates;
+  }
+
+  private ResponseStore.LikertColumn likertColumn(String identifier) {
+    ResponseStore.Column column = store.getColumn(identifier);
+    if (!(column instanceof ResponseStore.LikertColumn)) {
+      throw new IllegalArgumentException("Question is not a Likert question");
+    }
+    return (ResponseStore.LikertColumn) column;
+  }
+
+  // the scale value of the answer at the given position when answers are sorted by value
+  private static int valueAt(int[] counts, long position) {
+    long seen = 0;
+    for (int option = 0; option < counts.length; option++) {
+      seen += counts[option];
+      if (position < seen) {
+        return OPTIONS[option].getValue();
+      }
+    }
+    throw new IllegalStateException("Position past the last answer");
+  }
+}
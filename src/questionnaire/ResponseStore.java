@@ -0,0 +1,653 @@
+package questionnaire;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Holds the answers of many respondents to one questionnaire. The questions themselves are
+ * kept once, as the schema, and the answers are stored column by column, one column per
+ * question: yes/no answers as bits, Likert answers as one byte each, and text answers packed
+ * into shared chunks of characters. This takes a small fraction of the memory of keeping a
+ * copied questionnaire per respondent, and lets a whole column be scanned in a tight loop.
+ *
+ * <p>Yes/no and Likert answers are stored by meaning rather than by text, so they read back
+ * in their canonical spelling ("yes", "no", or the Likert option text) whatever
+ * capitalization they were given in.
+ */
+public class ResponseStore {
+  /** Rows allocated when the store is first created. */
+  private static final int INITIAL_ROWS = 16;
+
+  private final List<String> identifiers;
+  private final Map<String, Integer> columnIndex;
+  private final Column[] columns;
+
+  /** Number of respondents added so far. */
+  private int size;
+
+  /** Number of rows every column currently has room for. */
+  private int capacity;
+
+  /**
+   * Constructs an empty store for the questions of the given questionnaire, in its current
+   * order. Answers already recorded in the questionnaire are not copied into the store, and
+   * later changes to its questions do not reach the store.
+   *
+   * @param schema the questionnaire whose questions the respondents answer
+   * @throws IllegalArgumentException if the schema is null, or holds an answered question of
+   *                                  a type other than YesNo, Likert or ShortAnswer, since such
+   *                                  a question can only be recreated with its answer
+   */
+  public ResponseStore(QuestionnaireImpl schema) {
+    if (schema == null) {
+      throw new IllegalArgumentException("Schema cannot be null");
+    }
+    this.identifiers = new ArrayList<>(schema.getIdentifiers());
+    this.columnIndex = new HashMap<>();
+    this.columns = new Column[identifiers.size()];
+    this.capacity = INITIAL_ROWS;
+    for (int i = 0; i < columns.length; i++) {
+      String identifier = identifiers.get(i);
+      columnIndex.put(identifier, i);
+      columns[i] = Column.forQuestion(schema.getQuestion(identifier), capacity);
+    }
+  }
+
+  /**
+   * Returns the number of respondents in the store.
+   *
+   * @return the respondent count
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the identifiers of the schema's questions, in order.
+   *
+   * @return a read-only list of the identifiers
+   */
+  public List<String> getIdentifiers() {
+    return Collections.unmodifiableList(identifiers);
+  }
+
+  /**
+   * Adds a new respondent with no answers.
+   *
+   * @return the number of the new respondent, counting from 0
+   */
+  public int addRespondent() {
+    ensureRoom();
+    return size++;
+  }
+
+  /**
+   * Adds a new respondent whose answers are those recorded in the given questionnaire. The
+   * questionnaire must contain a question for every identifier in the schema, such as a copy
+   * or filter of the schema that has been filled in.
+   *
+   * @param answered the answered questionnaire
+   * @return the number of the new respondent, counting from 0
+   * @throws IllegalArgumentException if the questionnaire is null or an answer is not valid
+   *                                  for the schema's question
+   * @throws NoSuchElementException if the questionnaire lacks one of the schema's questions
+   */
+  public int addResponses(Questionnaire answered) {
+    if (answered == null) {
+      throw new IllegalArgumentException("Questionnaire cannot be null");
+    }
+    // look every question up before adding the row, so a missing one leaves no trace
+    Question[] questions = new Question[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      questions[i] = answered.getQuestion(identifiers.get(i));
+    }
+    // fill the next row before counting it, so an invalid answer leaves no trace either
+    ensureRoom();
+    int respondent = size;
+    try {
+      for (int i = 0; i < columns.length; i++) {
+        String response = questions[i].getAnswer();
+        if (!response.isEmpty()) {
+          columns[i].set(respondent, response);
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      for (Column column : columns) {
+        column.clear(respondent);
+      }
+      throw e;
+    }
+    return size++;
+  }
+
+  /**
+   * Records one respondent's answer to one question, following the rules of the schema's
+   * question of that identifier.
+   *
+   * @param respondent the respondent number, counting from 0
+   * @param identifier the identifier of the question
+   * @param response the answer
+   * @throws IndexOutOfBoundsException if there is no such respondent
+   * @throws NoSuchElementException if there is no question with the identifier
+   * @throws IllegalArgumentException if the response is not valid for the question
+   */
+  public void answer(int respondent, String identifier, String response) {
+    checkRespondent(respondent);
+    columns[column(identifier)].set(respondent, response);
+  }
+
+  /**
+   * Returns one respondent's answer to one question.
+   *
+   * @param respondent the respondent number, counting from 0
+   * @param identifier the identifier of the question
+   * @return the answer, or an empty string if the respondent has not answered it
+   * @throws IndexOutOfBoundsException if there is no such respondent
+   * @throws NoSuchElementException if there is no question with the identifier
+   */
+  public String getAnswer(int respondent, String identifier) {
+    checkRespondent(respondent);
+    return columns[column(identifier)].get(respondent);
+  }
+
+  /**
+   * Rebuilds one respondent's questionnaire: fresh copies of the schema's questions, in
+   * order, holding that respondent's answers.
+   *
+   * @param respondent the respondent number, counting from 0
+   * @return the respondent's questionnaire
+   * @throws IndexOutOfBoundsException if there is no such respondent
+   */
+  public Questionnaire toQuestionnaire(int respondent) {
+    checkRespondent(respondent);
+    QuestionnaireImpl result = new QuestionnaireImpl();
+    for (int i = 0; i < columns.length; i++) {
+      Question question = columns[i].blank();
+      String response = columns[i].get(respondent);
+      if (!response.isEmpty()) {
+        question.answer(response);
+      }
+      result.addQuestion(identifiers.get(i), question);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the column holding the answers to the question with the given identifier.
+   *
+   * @param identifier the identifier of the question
+   * @return the column
+   * @throws NoSuchElementException if there is no question with the identifier
+   */
+  Column getColumn(String identifier) {
+    return columns[column(identifier)];
+  }
+
+  private void ensureRoom() {
+    if (size == capacity) {
+      capacity *= 2;
+      for (Column column : columns) {
+        column.grow(capacity);
+      }
+    }
+  }
+
+  private int column(String identifier) {
+    Integer index = columnIndex.get(identifier);
+    if (index == null) {
+      throw new NoSuchElementException("No questions found with that Identifier");
+    }
+    return index;
+  }
+
+  private void checkRespondent(int respondent) {
+    if (respondent < 0 || respondent >= size) {
+      throw new IndexOutOfBoundsException("No respondent with number " + respondent);
+    }
+  }
+
+  /**
+   * The answers of every respondent to one question.
+   */
+  abstract static class Column {
+    /** The schema's question, used for its prompt and required flag. */
+    final Question prototype;
+
+    private Column(Question prototype) {
+      this.prototype = prototype;
+    }
+
+    /**
+     * Creates an empty column suited to the given question's type.
+     *
+     * @param question the schema's question
+     * @param capacity the number of rows to make room for
+     * @return the column
+     * @throws IllegalArgumentException if the question is answered and of a type other than
+     *                                  YesNo, Likert or ShortAnswer
+     */
+    static Column forQuestion(Question question, int capacity) {
+      if (question instanceof YesNo) {
+        return new YesNoColumn(question);
+      }
+      if (question instanceof Likert) {
+        return new LikertColumn(question, capacity);
+      }
+      if (question instanceof ShortAnswer) {
+        return new TextColumn(question, capacity);
+      }
+      // other types can only be recreated by copy(), which keeps the answer, so keep an
+      // unanswered copy of our own to recreate them from
+      String answer = question.getAnswer();
+      if (answer != null && !answer.isEmpty()) {
+        throw new IllegalArgumentException("Schema question \"" + question.getPrompt()
+                + "\" must be unanswered");
+      }
+      return new TextColumn(question.copy(), capacity);
+    }
+
+    /**
+     * Returns whether answers to this column's question are required.
+     *
+     * @return true if the question is required
+     */
+    boolean isRequired() {
+      return prototype.isRequired();
+    }
+
+    /**
+     * Returns a new, unanswered question like the schema's.
+     *
+     * @return the question
+     */
+    Question blank() {
+      if (prototype instanceof YesNo) {
+        return new YesNo(prototype.getPrompt(), prototype.isRequired());
+      }
+      if (prototype instanceof Likert) {
+        return new Likert(prototype.getPrompt(), prototype.isRequired());
+      }
+      if (prototype instanceof ShortAnswer) {
+        return new ShortAnswer(prototype.getPrompt(), prototype.isRequired());
+      }
+      // other question types only offer copy(); this prototype is a private, unanswered one
+      return prototype.copy();
+    }
+
+    /**
+     * Makes room for the given number of rows.
+     *
+     * @param rows the new row capacity
+     */
+    abstract void grow(int rows);
+
+    /**
+     * Validates and records the answer for one row.
+     *
+     * @param row the row
+     * @param response the answer
+     * @throws IllegalArgumentException if the response is not valid for the question
+     */
+    void set(int row, String response) {
+      ValidationResult result = check(response);
+      if (!result.isValid()) {
+        throw new IllegalArgumentException(result.getMessage());
+      }
+      store(row, response);
+    }
+
+    /**
+     * Checks an answer against the question's rules without recording it or throwing.
+     * Safe to call from several threads at once.
+     *
+     * @param response the answer
+     * @return {@link ValidationResult#OK} if the answer is valid, otherwise why it is not
+     */
+    ValidationResult check(String response) {
+      return prototype.validate(response);
+    }
+
+    /**
+     * Records an answer for one row that {@link #check} has accepted.
+     *
+     * @param row the row
+     * @param response the answer
+     */
+    abstract void store(int row, String response);
+
+    /**
+     * Removes the answer recorded for one row, if any.
+     *
+     * @param row the row
+     */
+    abstract void clear(int row);
+
+    /**
+     * Returns the answer recorded for one row.
+     *
+     * @param row the row
+     * @return the answer, or an empty string if there is none
+     */
+    abstract String get(int row);
+
+    /**
+     * Counts the rows, among the first given number, that have a non-empty answer.
+     *
+     * @param rows the number of rows to look at
+     * @return the number of answered rows
+     */
+    abstract int answeredCount(int rows);
+
+    /**
+     * Returns whether one row has a non-empty answer.
+     *
+     * @param row the row
+     * @return true if the row is answered
+     */
+    abstract boolean isAnswered(int row);
+  }
+
+  /**
+   * Yes/no answers as two bits per row: whether the row is answered, and whether it is yes.
+   */
+  static final class YesNoColumn extends Column {
+    private final BitSet answered = new BitSet();
+    private final BitSet yes = new BitSet();
+
+    private YesNoColumn(Question prototype) {
+      super(prototype);
+    }
+
+    @Override
+    void grow(int rows) {
+      // bit sets grow on demand
+    }
+
+    @Override
+    void store(int row, String response) {
+      yes.set(row, response.equalsIgnoreCase("yes"));
+      answered.set(row);
+    }
+
+    @Override
+    void clear(int row) {
+      answered.clear(row);
+      yes.clear(row);
+    }
+
+    @Override
+    String get(int row) {
+      if (!answered.get(row)) {
+        return "";
+      }
+      return yes.get(row) ? "yes" : "no";
+    }
+
+    @Override
+    boolean isAnswered(int row) {
+      return answered.get(row);
+    }
+
+    @Override
+    int answeredCount(int rows) {
+      // rows past the store's size are never set, so this is almost always the whole set
+      return rows >= answered.length() ? answered.cardinality()
+              : answered.get(0, rows).cardinality();
+    }
+
+    /**
+     * Returns the rows holding an answer, as a live bit set; do not modify it.
+     *
+     * @return the answered rows
+     */
+    BitSet answeredRows() {
+      return answered;
+    }
+
+    /**
+     * Returns the rows answered yes, as a live bit set; do not modify it.
+     *
+     * @return the rows answered yes
+     */
+    BitSet yesRows() {
+      return yes;
+    }
+  }
+
+  /**
+   * Likert answers as one byte per row: 0 when unanswered, otherwise the option's ordinal
+   * plus one.
+   */
+  static final class LikertColumn extends Column {
+    private static final LikertResponseOption[] OPTIONS = LikertResponseOption.values();
+
+    private byte[] codes;
+
+    private LikertColumn(Question prototype, int capacity) {
+      super(prototype);
+      this.codes = new byte[capacity];
+    }
+
+    @Override
+    void grow(int rows) {
+      codes = Arrays.copyOf(codes, rows);
+    }
+
+    @Override
+    void store(int row, String response) {
+      codes[row] = (byte) (LikertResponseOption.parse(response).ordinal() + 1);
+    }
+
+    @Override
+    void clear(int row) {
+      codes[row] = 0;
+    }
+
+    @Override
+    String get(int row) {
+      int code = codes[row];
+      return code == 0 ? "" : OPTIONS[code - 1].getText();
+    }
+
+    @Override
+    boolean isAnswered(int row) {
+      return codes[row] != 0;
+    }
+
+    @Override
+    int answeredCount(int rows) {
+      int count = 0;
+      for (int row = 0; row < rows; row++) {
+        if (codes[row] != 0) {
+          count++;
+        }
+      }
+      return count;
+    }
+
+    /**
+     * Returns the backing code array, which may be longer than the number of respondents;
+     * do not modify it.
+     *
+     * @return the codes, 0 for unanswered or the option's ordinal plus one
+     */
+    byte[] codes() {
+      return codes;
+    }
+  }
+
+  /**
+   * Text answers packed one after another into chunks of characters, with each row's chunk,
+   * offset and length kept alongside. Chunks are bounded in size, so a column can hold far more
+   * text than one array could. A replacing answer that fits where the old one was is written
+   * over it; otherwise the old characters are left behind, and once they outweigh the live text
+   * the live answers are packed into fresh chunks.
+   */
+  static final class TextColumn extends Column {
+    /** Characters per chunk; an answer longer than this gets a chunk of its own. */
+    static final int CHUNK_CHARS = 1 << 16;
+
+    private char[][] chunks = new char[4][];
+    private int chunkCount;
+
+    /** Characters used in the last chunk. */
+    private int chunkUsed;
+
+    /** Characters held by recorded answers. */
+    private long live;
+
+    /** Characters left behind by replaced and cleared answers. */
+    private long garbage;
+
+    /** Each row's chunk number in the high 32 bits and offset in the low 32. */
+    private long[] starts;
+    private int[] lengths;
+
+    private TextColumn(Question prototype, int capacity) {
+      super(prototype);
+      this.starts = new long[capacity];
+      this.lengths = new int[capacity];
+    }
+
+    @Override
+    void grow(int rows) {
+      starts = Arrays.copyOf(starts, rows);
+      lengths = Arrays.copyOf(lengths, rows);
+    }
+
+    @Override
+    void store(int row, String response) {
+      int length = response.length();
+      int old = lengths[row];
+      if (length == 0) {
+        // nothing to copy, and a fresh column has no chunk to copy it into
+        clear(row);
+        return;
+      }
+      long at;
+      if (length <= old) {
+        at = starts[row];
+      } else {
+        at = reserve(length);
+        starts[row] = at;
+      }
+      response.getChars(0, length, chunks[chunk(at)], offset(at));
+      lengths[row] = length;
+      live += length - old;
+      garbage += old - (length <= old ? length : 0);
+      compactIfWasteful();
+    }
+
+    @Override
+    void clear(int row) {
+      live -= lengths[row];
+      garbage += lengths[row];
+      lengths[row] = 0;
+      compactIfWasteful();
+    }
+
+    @Override
+    String get(int row) {
+      int length = lengths[row];
+      if (length == 0) {
+        return "";
+      }
+      long at = starts[row];
+      return new String(chunks[chunk(at)], offset(at), length);
+    }
+
+    @Override
+    boolean isAnswered(int row) {
+      return lengths[row] > 0;
+    }
+
+    @Override
+    int answeredCount(int rows) {
+      int count = 0;
+      for (int row = 0; row < rows; row++) {
+        if (lengths[row] > 0) {
+          count++;
+        }
+      }
+      return count;
+    }
+
+    /**
+     * Returns the characters the chunks have room for, live or not.
+     *
+     * @return the allocated characters
+     */
+    long allocatedChars() {
+      long total = 0;
+      for (int i = 0; i < chunkCount; i++) {
+        total += chunks[i].length;
+      }
+      return total;
+    }
+
+    /**
+     * Makes room for an answer at the end of the text, growing the last chunk while it is
+     * small and starting a new one once it is full.
+     *
+     * @param length the answer's length
+     * @return where the answer goes
+     */
+    private long reserve(int length) {
+      char[] last = chunkCount == 0 ? null : chunks[chunkCount - 1];
+      if (last == null || length > last.length - chunkUsed) {
+        long wanted = (long) chunkUsed + length;
+        if (last != null && wanted <= CHUNK_CHARS) {
+          chunks[chunkCount - 1] = Arrays.copyOf(last,
+                  (int) Math.min(CHUNK_CHARS, Math.max(last.length * 2L, wanted)));
+        } else {
+          if (chunkCount == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+          }
+          chunks[chunkCount++] = new char[Math.max(length, last == null ? 64 : CHUNK_CHARS)];
+          chunkUsed = 0;
+        }
+      }
+      long at = (long) (chunkCount - 1) << 32 | chunkUsed;
+      chunkUsed += length;
+      return at;
+    }
+
+    /**
+     * Packs the live answers into fresh chunks once the characters left behind outweigh both
+     * them and the rows, so the copying is paid for by the garbage it frees.
+     */
+    private void compactIfWasteful() {
+      if (garbage < CHUNK_CHARS || garbage < live || garbage < lengths.length) {
+        return;
+      }
+      char[][] old = chunks;
+      chunks = new char[4][];
+      chunkCount = 0;
+      chunkUsed = 0;
+      for (int row = 0; row < lengths.length; row++) {
+        int length = lengths[row];
+        if (length > 0) {
+          long from = starts[row];
+          long to = reserve(length);
+          System.arraycopy(old[chunk(from)], offset(from), chunks[chunk(to)], offset(to), length);
+          starts[row] = to;
+        }
+      }
+      garbage = 0;
+    }
+
+    private static int chunk(long at) {
+      return (int) (at >>> 32);
+    }
+
+    private static int offset(long at) {
+      return (int) at;
+    }
+  }
+}
@@ -0,0 +1,393 @@
+package questionnaire;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * A questionnaire that keeps a full-text index of its prompts and of the answers to its
+ * short answer questions, so questions can be found by keyword without scanning them all.
+ *
+ * <p>Text is split into words at every character that is not a letter or digit, and words
+ * are compared ignoring case. The index follows every change: it is updated as questions
+ * are added and removed, and as short answer questions held here are answered, whoever
+ * answers them. A search costs time in proportion to the number of questions it finds,
+ * not the size of the questionnaire.
+ *
+ * <p>Like {@link QuestionnaireImpl}, this class is not safe for use by several threads at
+ * once, and that includes answering its short answer questions while it is searched.
+ */
+public class SearchableQuestionnaire extends QuestionnaireImpl {
+  /** Marks the gap between a question's prompt and its answer, so no phrase spans both. */
+  private static final String GAP = null;
+
+  /** For each word, the questions that contain it and the positions it appears at. */
+  private final NavigableMap<String, Map<String, int[]>> postings;
+
+  /** For each indexed question, its words in order, with {@link #GAP} between the parts. */
+  private final Map<String, String[]> words;
+
+  /**
+   * Listeners registered on the short answer questions held here, by identifier. The
+   * questions hold them only weakly, so this map is what keeps them registered.
+   */
+  private final Map<String, AnswerListener> answerListeners;
+
+  /**
+   * Constructs an empty questionnaire.
+   */
+  public SearchableQuestionnaire() {
+    super();
+    this.postings = new TreeMap<>();
+    this.words = new HashMap<>();
+    this.answerListeners = new HashMap<>();
+  }
+
+  /**
+   * Adds a question to the end of the questionnaire and indexes its prompt, and its answer
+   * if it is a short answer question.
+   *
+   * @param identifier a unique identifier for the question, must not be null or empty
+   * @param q the question to add
+   * @throws IllegalArgumentException if the identifier is null, empty, or already exists,
+   *                                  or the question is null
+   */
+  @Override
+  public void addQuestion(String identifier, Question q) {
+    super.addQuestion(identifier, q);
+    follow(identifier, q);
+  }
+
+  /**
+   * Removes the question with the given identifier and drops it from the index.
+   *
+   * @param identifier the identifier of the question to be removed.
+   * @throws NoSuchElementException if there is no question with the given identifier.
+   */
+  @Override
+  public void removeQuestion(String identifier) {
+    Question removed = getQuestion(identifier);
+    super.removeQuestion(identifier);
+    unfollow(identifier, removed);
+  }
+
+  /**
+   * Adds several questions to the end of the questionnaire and indexes them. Either all of
+   * them are added or none is.
+   *
+   * @param questions the questions to add, by identifier
+   * @throws IllegalArgumentException if the map is null, or holds a null or empty
+   *                                  identifier, an identifier already in the
+   *                                  questionnaire, or a null question
+   */
+  @Override
+  public void addAll(Map<String, Question> questions) {
+    super.addAll(questions);
+    questions.forEach(this::follow);
+  }
+
+  /**
+   * Removes the questions with the given identifiers and drops them from the index. Either
+   * all of them are removed or none is.
+   *
+   * @param identifiers the identifiers of the questions to remove
+   * @throws IllegalArgumentException if the collection is null
+   * @throws NoSuchElementException if there is no question with one of the identifiers
+   */
+  @Override
+  public void removeAll(Collection<String> identifiers) {
+    if (identifiers == null) {
+      throw new IllegalArgumentException("Identifiers cannot be null");
+    }
+    Map<String, Question> removed = new HashMap<>();
+    for (String identifier : identifiers) {
+      removed.put(identifier, getQuestion(identifier));
+    }
+    super.removeAll(identifiers);
+    removed.forEach(this::unfollow);
+  }
+
+  /**
+   * Returns the identifiers of the questions containing every word of the given text,
+   * anywhere in their prompt or answer, in questionnaire order.
+   *
+   * @param terms one or more words
+   * @return a read-only list of the matching identifiers
+   * @throws IllegalArgumentException if the text is null or has no words in it
+   */
+  public List<String> findTerms(String terms) {
+    String[] query = queryWords(terms);
+    List<String> matches = new ArrayList<>();
+    for (String identifier : candidates(query)) {
+      if (containsAll(identifier, query)) {
+        matches.add(identifier);
+      }
+    }
+    return inOrder(matches);
+  }
+
+  /**
+   * Returns the identifiers of the questions containing a word that starts with the given
+   * prefix, in questionnaire order.
+   *
+   * @param prefix the start of a word
+   * @return a read-only list of the matching identifiers
+   * @throws IllegalArgumentException if the prefix is null or is not one partial word
+   */
+  public List<String> findPrefix(String prefix) {
+    String[] query = queryWords(prefix);
+    if (query.length != 1) {
+      throw new IllegalArgumentException("Prefix must be a single word");
+    }
+    Map<String, int[]> matches = new HashMap<>();
+    // every word starting with the prefix sorts between it and the prefix followed by the
+    // greatest char
+    for (Map<String, int[]> postingList
+            : postings.subMap(query[0], true, query[0] + Character.MAX_VALUE, true).values()) {
+      matches.putAll(postingList);
+    }
+    return inOrder(new ArrayList<>(matches.keySet()));
+  }
+
+  /**
+   * Returns the identifiers of the questions containing the words of the given phrase next
+   * to each other and in order, within the prompt or within the answer, in questionnaire
+   * order.
+   *
+   * @param phrase one or more words
+   * @return a read-only list of the matching identifiers
+   * @throws IllegalArgumentException if the phrase is null or has no words in it
+   */
+  public List<String> findPhrase(String phrase) {
+    String[] query = queryWords(phrase);
+    List<String> matches = new ArrayList<>();
+    for (String identifier : candidates(query)) {
+      if (containsPhrase(identifier, query)) {
+        matches.add(identifier);
+      }
+    }
+    return inOrder(matches);
+  }
+
+  /**
+   * Returns a new questionnaire holding copies of the questions with the given identifiers,
+   * such as the result of a search, in this questionnaire's order. The result is the same as
+   * {@code filter} with a predicate matching those questions, without testing every one.
+   *
+   * @param found identifiers of questions in this questionnaire
+   * @return the new questionnaire
+   * @throws IllegalArgumentException if the list is null
+   * @throws NoSuchElementException if an identifier is not in this questionnaire
+   */
+  public Questionnaire select(Iterable<String> found) {
+    if (found == null) {
+      throw new IllegalArgumentException("Identifiers cannot be null");
+    }
+    // drop repeats; putting them in order then checks every identifier before anything is
+    // copied
+    LinkedHashSet<String> selected = new LinkedHashSet<>();
+    for (String identifier : found) {
+      selected.add(identifier);
+    }
+    return subset(inOrder(new ArrayList<>(selected)));
+  }
+
+  /**
+   * Splits text into lower case words, breaking at every character that is not a letter or
+   * digit.
+   *
+   * @param text the text to split
+   * @return the words, in order
+   */
+  static List<String> tokenize(String text) {
+    List<String> tokens = new ArrayList<>();
+    StringBuilder word = new StringBuilder();
+    int i = 0;
+    while (i < text.length()) {
+      int c = text.codePointAt(i);
+      i += Character.charCount(c);
+      if (Character.isLetterOrDigit(c)) {
+        word.appendCodePoint(Character.toLowerCase(c));
+      } else if (word.length() > 0) {
+        tokens.add(word.toString());
+        word.setLength(0);
+      }
+    }
+    if (word.length() > 0) {
+      tokens.add(word.toString());
+    }
+    return tokens;
+  }
+
+  private static String[] queryWords(String text) {
+    if (text == null) {
+      throw new IllegalArgumentException("Query cannot be null");
+    }
+    List<String> tokens = tokenize(text);
+    if (tokens.isEmpty()) {
+      throw new IllegalArgumentException("Query must contain at least one word");
+    }
+    return tokens.toArray(new String[0]);
+  }
+
+  /**
+   * Indexes a newly added question and, for a short answer question, starts listening for
+   * its answers.
+   *
+   * @param identifier the identifier of the question
+   * @param q the question
+   */
+  private void follow(String identifier, Question q) {
+    if (q instanceof ShortAnswer) {
+      AnswerListener listener = (question, previous) -> reindex(identifier, question);
+      answerListeners.put(identifier, listener);
+      ((ShortAnswer) q).addAnswerListener(listener);
+    }
+    index(identifier, q);
+  }
+
+  /**
+   * Drops a removed question from the index and stops listening for its answers.
+   *
+   * @param identifier the identifier the question had
+   * @param removed the question
+   */
+  private void unfollow(String identifier, Question removed) {
+    AnswerListener listener = answerListeners.remove(identifier);
+    if (listener != null) {
+      ((ShortAnswer) removed).removeAnswerListener(listener);
+    }
+    unindex(identifier);
+  }
+
+  /**
+   * Indexes the prompt of the given question and, for a short answer question, its answer.
+   *
+   * @param identifier the identifier of the question
+   * @param q the question
+   */
+  private void index(String identifier, Question q) {
+    List<String> tokens = tokenize(q.getPrompt());
+    if (q instanceof ShortAnswer) {
+      tokens.add(GAP);
+      tokens.addAll(tokenize(q.getAnswer()));
+    }
+    String[] indexed = tokens.toArray(new String[0]);
+    words.put(identifier, indexed);
+
+    Map<String, int[]> positions = new HashMap<>();
+    for (int i = 0; i < indexed.length; i++) {
+      if (indexed[i] != GAP) {
+        int[] at = positions.get(indexed[i]);
+        at = at == null ? new int[1] : Arrays.copyOf(at, at.length + 1);
+        at[at.length - 1] = i;
+        positions.put(indexed[i], at);
+      }
+    }
+    for (Map.Entry<String, int[]> entry : positions.entrySet()) {
+      postings.computeIfAbsent(entry.getKey(), w -> new HashMap<>())
+              .put(identifier, entry.getValue());
+    }
+  }
+
+  /**
+   * Drops the given question from the index.
+   *
+   * @param identifier the identifier of the question
+   */
+  private void unindex(String identifier) {
+    String[] indexed = words.remove(identifier);
+    for (String word : indexed) {
+      if (word == GAP) {
+        continue;
+      }
+      Map<String, int[]> postingList = postings.get(word);
+      if (postingList != null) {
+        postingList.remove(identifier);
+        if (postingList.isEmpty()) {
+          postings.remove(word);
+        }
+      }
+    }
+  }
+
+  private void reindex(String identifier, Question q) {
+    unindex(identifier);
+    index(identifier, q);
+  }
+
+  /**
+   * Returns the questions containing the rarest of the given words, which include every
+   * question containing all of them.
+   *
+   * @param query the words searched for
+   * @return the identifiers of the candidate questions
+   */
+  private Iterable<String> candidates(String[] query) {
+    Map<String, int[]> rarest = null;
+    for (String word : query) {
+      Map<String, int[]> postingList = postings.get(word);
+      if (postingList == null) {
+        return Collections.emptyList();
+      }
+      if (rarest == null || postingList.size() < rarest.size()) {
+        rarest = postingList;
+      }
+    }
+    return rarest.keySet();
+  }
+
+  private boolean containsAll(String identifier, String[] query) {
+    for (String word : query) {
+      if (!postings.get(word).containsKey(identifier)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean containsPhrase(String identifier, String[] query) {
+    int[] starts = postings.get(query[0]).get(identifier);
+    if (starts == null) {
+      return false;
+    }
+    for (int start : starts) {
+      boolean match = true;
+      for (int i = 1; i < query.length && match; i++) {
+        int[] at = postings.get(query[i]).get(identifier);
+        match = at != null && Arrays.binarySearch(at, start + i) >= 0;
+      }
+      if (match) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Sorts identifiers into questionnaire order.
+   *
+   * @param found identifiers of questions in this questionnaire
+   * @return the same identifiers, read-only and in order
+   */
+  private List<String> inOrder(List<String> found) {
+    // sort on the position in the high half and the index into found in the low half
+    long[] keys = new long[found.size()];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = (long) positionOf(found.get(i)) << 32 | i;
+    }
+    Arrays.sort(keys);
+    String[] ordered = new String[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      ordered[i] = found.get((int) keys[i]);
+    }
+    return Collections.unmodifiableList(Arrays.asList(ordered));
+  }
+}
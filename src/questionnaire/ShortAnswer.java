@@ -1,5 +1,7 @@
 package questionnaire;
 
+import java.nio.ByteBuffer;
+
 /**
  * Represents a short answer question that accepts text responses up to 280 characters.
  * This class extends AbstractQuestion and implements specific validation for
@@ -11,7 +13,7 @@ public class ShortAnswer extends AbstractQuestion {
    * The maximum number of characters allowed in a response.
    * Chosen to match common short-form text limits (e.g., Twitter's original limit).
    */
-  private static final int MAX_LENGTH = 280;
+  static final int MAX_LENGTH = 280;
 
   /**
    * Constructs a new short answer question.
@@ -24,6 +26,15 @@ public class ShortAnswer extends AbstractQuestion {
     super(prompt, required);
   }
 
+  /**
+   * Constructs a copy of the given question, answer included.
+   *
+   * @param original the question to copy
+   */
+  private ShortAnswer(ShortAnswer original) {
+    super(original);
+  }
+
   /**
    * Validates that the response meets the short answer requirements.
    * The response must not be null and must not exceed MAX_LENGTH characters.
@@ -33,13 +44,68 @@ public class ShortAnswer extends AbstractQuestion {
    */
   @Override
   protected void validateResponse(String response) {
+    ValidationResult result = validate(response);
+    if (!result.isValid()) {
+      throw new IllegalArgumentException(result.getMessage());
+    }
+  }
+
+  /**
+   * Checks that the response is not null and does not exceed MAX_LENGTH characters, without
+   * throwing or allocating.
+   *
+   * @param response the response to check
+   * @return {@link ValidationResult#OK}, {@link ValidationResult#NULL} or
+   *         {@link ValidationResult#TOO_LONG}
+   */
+  @Override
+  public ValidationResult validate(CharSequence response) {
     if (response == null) {
-      throw new IllegalArgumentException("Response cannot be null");
+      return ValidationResult.NULL;
     }
     if (response.length() > MAX_LENGTH) {
-      throw new IllegalArgumentException(
-              "Response cannot be longer than " + MAX_LENGTH + " characters");
+      return ValidationResult.TOO_LONG;
+    }
+    return ValidationResult.OK;
+  }
+
+  /**
+   * Records an answer given as UTF-8 bytes if it is valid. The length limit is checked by
+   * counting the characters the bytes encode, stopping as soon as the count passes
+   * MAX_LENGTH, so an overlong answer is rejected without being decoded.
+   *
+   * @param utf8 the answer as UTF-8 bytes
+   * @return {@link ValidationResult#OK} if the answer was recorded, otherwise why it was not
+   */
+  @Override
+  public ValidationResult tryAnswerUtf8(ByteBuffer utf8) {
+    if (utf8 != null && utf16Length(utf8, MAX_LENGTH) > MAX_LENGTH) {
+      return ValidationResult.TOO_LONG;
+    }
+    return super.tryAnswerUtf8(utf8);
+  }
+
+  /**
+   * Counts the UTF-16 characters, as String.length() counts them, that the UTF-8 bytes
+   * between the buffer's position and limit encode. Continuation bytes count nothing, and a
+   * four-byte sequence counts two, for its surrogate pair.
+   *
+   * @param utf8 the bytes
+   * @param limit a count past which to stop counting
+   * @return the count, or some number greater than the limit if the count exceeds it
+   */
+  static int utf16Length(ByteBuffer utf8, int limit) {
+    int count = 0;
+    int end = utf8.limit();
+    for (int i = utf8.position(); i < end && count <= limit; i++) {
+      int b = utf8.get(i) & 0xFF;
+      if (b < 0x80 || (b >= 0xC0 && b < 0xF0)) {
+        count++;
+      } else if (b >= 0xF0) {
+        count += 2;
+      }
     }
+    return count;
   }
 
   /**
@@ -50,8 +116,6 @@ public class ShortAnswer extends AbstractQuestion {
    */
   @Override
   public Question copy() {
-    ShortAnswer copy = new ShortAnswer(this.prompt, this.required);
-    copy.answer = this.answer;
-    return copy;
+    return new ShortAnswer(this);
   }
 }
\ No newline at end of file
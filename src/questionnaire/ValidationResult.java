@@ -0,0 +1,48 @@
+package questionnaire;
+
+/**
+ * The outcome of checking a response against a question's rules, returned by
+ * {@link Question#validate} and {@link Question#tryAnswer} in place of throwing. The results
+ * are constants, so reporting one allocates nothing; each carries the message that
+ * {@link Question#answer} puts in its exception for the same response.
+ */
+public enum ValidationResult {
+  /** The response is valid. */
+  OK("Response is valid"),
+  /** The response is null. */
+  NULL("Response cannot be null"),
+  /** The response is longer than a short answer allows. */
+  TOO_LONG("Response cannot be longer than " + ShortAnswer.MAX_LENGTH + " characters"),
+  /** The response is not "yes" or "no", ignoring case. */
+  NOT_YES_NO("Response must be yes or no"),
+  /** The response is not one of the Likert options, ignoring case. */
+  NOT_LIKERT("Invalid Likert answer"),
+  /** The response was given as bytes that are not valid UTF-8. */
+  NOT_UTF8("Response is not valid UTF-8"),
+  /** The response breaks the rules of some other type of question. */
+  INVALID("Response is not valid for this question");
+
+  private final String message;
+
+  ValidationResult(String message) {
+    this.message = message;
+  }
+
+  /**
+   * Reports whether the response is valid.
+   *
+   * @return true for {@link #OK}, false otherwise
+   */
+  public boolean isValid() {
+    return this == OK;
+  }
+
+  /**
+   * Returns a description of the result, as used in exception messages.
+   *
+   * @return the message
+   */
+  public String getMessage() {
+    return message;
+  }
+}
@@ -7,6 +7,14 @@ package questionnaire;
  * or any combination of case is valid.
  */
 public class YesNo extends AbstractQuestion {
+  /** Codes returned by {@link #getCode()}. */
+  static final byte UNANSWERED = -1;
+  static final byte NO = 0;
+  static final byte YES = 1;
+
+  /** The usual ways of writing each answer, shared by every answered question. */
+  static final String[] YES_SPELLINGS = {"yes", "Yes", "YES"};
+  static final String[] NO_SPELLINGS = {"no", "No", "NO"};
 
   /**
    * Constructs a new Yes/No question.
@@ -19,6 +27,15 @@ public class YesNo extends AbstractQuestion {
     super(prompt, required);
   }
 
+  /**
+   * Constructs a copy of the given question, answer included.
+   *
+   * @param original the question to copy
+   */
+  private YesNo(YesNo original) {
+    super(original);
+  }
+
   /**
    * Validates that the response is either "yes" or "no" (case-insensitive).
    * For example, "YES", "yes", "No", "NO" are all valid responses.
@@ -29,12 +46,71 @@ public class YesNo extends AbstractQuestion {
    */
   @Override
   protected void validateResponse(String response) {
+    ValidationResult result = validate(response);
+    if (!result.isValid()) {
+      throw new IllegalArgumentException(result.getMessage());
+    }
+  }
+
+  /**
+   * Checks that the response is either "yes" or "no" (case-insensitive), without throwing
+   * or allocating.
+   *
+   * @param response the response to check
+   * @return {@link ValidationResult#OK}, {@link ValidationResult#NULL} or
+   *         {@link ValidationResult#NOT_YES_NO}
+   */
+  @Override
+  public ValidationResult validate(CharSequence response) {
     if (response == null) {
-      throw new IllegalArgumentException("Response cannot be null");
+      return ValidationResult.NULL;
+    }
+    if (!equalsIgnoreCase(response, "yes") && !equalsIgnoreCase(response, "no")) {
+      return ValidationResult.NOT_YES_NO;
     }
-    if (!response.equalsIgnoreCase("yes") && !response.equalsIgnoreCase("no")) {
-      throw new IllegalArgumentException("Response must be yes or no");
+    return ValidationResult.OK;
+  }
+
+  /**
+   * Returns the text to keep for the response. {@link #getAnswer()} gives back the response
+   * as the caller spelled it, so the text cannot be reduced to a code; instead the shared
+   * spelling is kept when there is one, and only unusual capitalizations keep their own
+   * string.
+   *
+   * @param response the validated response
+   * @return the text to keep, equal to the response
+   */
+  @Override
+  protected String storeAnswer(String response) {
+    return sharedSpelling(response, response.equalsIgnoreCase("yes") ? YES_SPELLINGS
+            : NO_SPELLINGS);
+  }
+
+  /**
+   * Returns the shared spelling of the validated response if it has one, so a response given
+   * as a view of other text need not become a String of its own.
+   *
+   * @param response the validated response
+   * @return the response as a String
+   */
+  @Override
+  protected String answerText(CharSequence response) {
+    return sharedSpelling(response, equalsIgnoreCase(response, "yes") ? YES_SPELLINGS
+            : NO_SPELLINGS);
+  }
+
+  /**
+   * Returns the current answer as a code: {@link #YES}, {@link #NO}, or {@link #UNANSWERED}.
+   * The code is worked out from the answer text, so it always matches {@link #getAnswer()}.
+   *
+   * @return the answer code
+   */
+  byte getCode() {
+    String current = answer;
+    if (current.isEmpty()) {
+      return UNANSWERED;
     }
+    return current.equalsIgnoreCase("yes") ? YES : NO;
   }
 
   /**
@@ -45,8 +121,6 @@ public class YesNo extends AbstractQuestion {
    */
   @Override
   public Question copy() {
-    YesNo copy = new YesNo(this.prompt, this.required);
-    copy.answer = this.answer;
-    return copy;
+    return new YesNo(this);
   }
 }
\ No newline at end of file
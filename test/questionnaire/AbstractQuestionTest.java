@@ -183,4 +183,26 @@ public class AbstractQuestionTest {
     required = false;
     assertTrue(q.isRequired());
   }
-}
\ No newline at end of file
+
+  /**
+   * Tests that question types which only throw from validateResponse still support
+   * validate and tryAnswer, reporting rejected responses as INVALID.
+   */
+  @Test
+  public void testTryAnswerFallsBackToValidateResponse() {
+    Question q = new TestQuestion("Test prompt", true) {
+      @Override
+      protected void validateResponse(String response) {
+        if (!"ok".equals(response)) {
+          throw new IllegalArgumentException("Only ok will do");
+        }
+      }
+    };
+    assertEquals(ValidationResult.INVALID, q.validate("no"));
+    assertEquals(ValidationResult.NULL, q.tryAnswer(null));
+    assertEquals(ValidationResult.INVALID, q.tryAnswer("no"));
+    assertEquals("", q.getAnswer());
+    assertEquals(ValidationResult.OK, q.tryAnswer(new StringBuilder("ok")));
+    assertEquals("ok", q.getAnswer());
+  }
+}
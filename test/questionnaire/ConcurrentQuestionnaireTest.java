@@ -0,0 +1,333 @@
+package questionnaire;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for ConcurrentQuestionnaire.
+ * Covers the single-threaded behavior shared with every questionnaire, then
+ * stress tests it from many threads at once and checks that the result is one
+ * that some sequential order of the same operations would have produced.
+ */
+public class ConcurrentQuestionnaireTest {
+  private static final int THREADS = 8;
+
+  private ConcurrentQuestionnaire questionnaire;
+  private ExecutorService pool;
+
+  /**
+   * Sets up an empty questionnaire and a thread pool.
+   */
+  @Before
+  public void setUp() {
+    questionnaire = new ConcurrentQuestionnaire();
+    pool = Executors.newFixedThreadPool(THREADS);
+  }
+
+  /**
+   * Shuts the thread pool down.
+   */
+  @After
+  public void tearDown() {
+    pool.shutdownNow();
+  }
+
+  /**
+   * Runs the same task on every thread, released together, and waits for them all.
+   */
+  private void runTogether(Callable<Void> task) throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Void>> futures = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      futures.add(pool.submit(() -> {
+        start.await();
+        return task.call();
+      }));
+    }
+    start.countDown();
+    for (Future<Void> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+  }
+
+  // Single-threaded behavior
+  @Test
+  public void testBasicOperations() {
+    YesNo yesNo = new YesNo("Question 1?", true);
+    ShortAnswer shortAnswer = new ShortAnswer("Question 2?", false);
+    questionnaire.addQuestion("q1", yesNo);
+    questionnaire.addQuestion("q2", shortAnswer);
+
+    assertSame(yesNo, questionnaire.getQuestion(1));
+    assertSame(shortAnswer, questionnaire.getQuestion("q2"));
+    assertEquals(List.of(yesNo), questionnaire.getRequiredQuestions());
+    assertEquals(List.of(shortAnswer), questionnaire.getOptionalQuestions());
+    assertFalse(questionnaire.isComplete());
+
+    yesNo.answer("yes");
+    assertTrue(questionnaire.isComplete());
+    assertEquals(List.of("yes", ""), questionnaire.getResponses());
+    assertEquals("Question: Question 1?\n\nAnswer: yes\n\nQuestion: Question 2?\n\nAnswer: ",
+            questionnaire.toString());
+
+    questionnaire.sort(Comparator.comparing(Question::getPrompt).reversed());
+    assertSame(shortAnswer, questionnaire.getQuestion(1));
+    questionnaire.removeQuestion("q2");
+    assertSame(yesNo, questionnaire.getQuestion(1));
+    assertThrows(NoSuchElementException.class, () -> questionnaire.getQuestion("q2"));
+    assertThrows(IndexOutOfBoundsException.class, () -> questionnaire.getQuestion(2));
+  }
+
+  @Test
+  public void testFilterReturnsConcurrentCopy() {
+    YesNo yesNo = new YesNo("Question 1?", true);
+    questionnaire.addQuestion("q1", yesNo);
+    questionnaire.addQuestion("q2", new ShortAnswer("Question 2?", false));
+
+    Questionnaire filtered = questionnaire.filter(Question::isRequired);
+    assertTrue(filtered instanceof ConcurrentQuestionnaire);
+    assertEquals("Question 1?", filtered.getQuestion("q1").getPrompt());
+    assertNotSame(yesNo, filtered.getQuestion("q1"));
+    assertThrows(NoSuchElementException.class, () -> filtered.getQuestion("q2"));
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    questionnaire.addQuestion("q1", new YesNo("Question 1?", true));
+    assertThrows(IllegalArgumentException.class,
+        () -> questionnaire.addQuestion("q1", new YesNo("Again?", true)));
+    assertThrows(IllegalArgumentException.class,
+        () -> questionnaire.addQuestion(null, new YesNo("Again?", true)));
+    assertThrows(NoSuchElementException.class, () -> questionnaire.removeQuestion("nope"));
+    assertThrows(NoSuchElementException.class, () -> questionnaire.getQuestion(null));
+    assertThrows(IllegalArgumentException.class, () -> questionnaire.sort(null));
+  }
+
+  @Test
+  public void testBatchOperations() {
+    YesNo yesNo = new YesNo("Question 1?", true);
+    Map<String, Question> batch = new LinkedHashMap<>();
+    batch.put("q1", yesNo);
+    batch.put("q2", new ShortAnswer("Question 2?", false));
+    questionnaire.addAll(batch);
+    assertSame(yesNo, questionnaire.getQuestion(1));
+
+    questionnaire.answerAll(Map.of("q1", "no", "q2", "Fine"));
+    assertEquals(List.of("no", "Fine"), questionnaire.getResponses());
+
+    assertThrows(IllegalArgumentException.class, () -> questionnaire.addAll(batch));
+    assertThrows(NoSuchElementException.class,
+        () -> questionnaire.removeAll(List.of("q1", "nope")));
+    assertSame(yesNo, questionnaire.getQuestion("q1"));
+    questionnaire.removeAll(List.of("q1", "q2"));
+    assertThrows(NoSuchElementException.class, () -> questionnaire.getQuestion("q1"));
+    assertThrows(IndexOutOfBoundsException.class, () -> questionnaire.getQuestion(1));
+  }
+
+  // Stress tests
+  @Test
+  public void testConcurrentAddsKeepEachThreadsOrder() throws Exception {
+    int perThread = 2000;
+    AtomicInteger threadIds = new AtomicInteger();
+    runTogether(() -> {
+      int thread = threadIds.getAndIncrement();
+      for (int i = 0; i < perThread; i++) {
+        questionnaire.addQuestion(thread + ":" + i, new ShortAnswer(thread + ":" + i, false));
+      }
+      return null;
+    });
+
+    // every question is present, and each thread's questions appear in the order it added them
+    int total = THREADS * perThread;
+    int[] nextExpected = new int[THREADS];
+    for (int num = 1; num <= total; num++) {
+      String[] parts = questionnaire.getQuestion(num).getPrompt().split(":");
+      int thread = Integer.parseInt(parts[0]);
+      assertEquals(nextExpected[thread]++, Integer.parseInt(parts[1]));
+    }
+    assertThrows(IndexOutOfBoundsException.class, () -> questionnaire.getQuestion(total + 1));
+  }
+
+  @Test
+  public void testConcurrentDuplicateAddsOnlyOneWins() throws Exception {
+    AtomicInteger wins = new AtomicInteger();
+    runTogether(() -> {
+      for (int i = 0; i < 500; i++) {
+        try {
+          questionnaire.addQuestion("shared" + i, new YesNo("Shared " + i + "?", true));
+          wins.incrementAndGet();
+        } catch (IllegalArgumentException e) {
+          // another thread got there first
+        }
+      }
+      return null;
+    });
+
+    assertEquals(500, wins.get());
+    assertEquals(500, questionnaire.getRequiredQuestions().size());
+  }
+
+  @Test
+  public void testConcurrentAddRemoveAndRead() throws Exception {
+    int perThread = 1000;
+    AtomicInteger threadIds = new AtomicInteger();
+    runTogether(() -> {
+      int thread = threadIds.getAndIncrement();
+      for (int i = 0; i < perThread; i++) {
+        String identifier = thread + ":" + i;
+        questionnaire.addQuestion(identifier, new YesNo(identifier, i % 2 == 0));
+        // readers see a consistent questionnaire while others change it
+        assertEquals(identifier, questionnaire.getQuestion(identifier).getPrompt());
+        questionnaire.getResponses();
+        questionnaire.fold((q, count) -> count + 1, 0);
+        if (i % 2 == 1) {
+          questionnaire.removeQuestion(identifier);
+        }
+      }
+      return null;
+    });
+
+    // only the even, required questions are left
+    int left = THREADS * perThread / 2;
+    assertEquals(left, (int) questionnaire.fold((q, count) -> count + 1, 0));
+    assertEquals(left, questionnaire.getRequiredQuestions().size());
+    assertEquals(0, questionnaire.getOptionalQuestions().size());
+    for (int num = 1; num <= left; num++) {
+      Question question = questionnaire.getQuestion(num);
+      assertSame(question, questionnaire.getQuestion(question.getPrompt()));
+    }
+  }
+
+  @Test
+  public void testConcurrentBatchesAreAtomic() throws Exception {
+    AtomicInteger threadIds = new AtomicInteger();
+    runTogether(() -> {
+      int thread = threadIds.getAndIncrement();
+      for (int i = 0; i < 500; i++) {
+        String first = thread + ":" + i + "a";
+        String second = thread + ":" + i + "b";
+        Map<String, Question> pair = new LinkedHashMap<>();
+        pair.put(first, new YesNo(first, true));
+        pair.put(second, new YesNo(second, true));
+        questionnaire.addAll(pair);
+        // readers never see half a batch
+        assertEquals(0, questionnaire.getRequiredQuestions().size() % 2);
+        if (i % 2 == 1) {
+          questionnaire.removeAll(pair.keySet());
+        }
+      }
+      return null;
+    });
+
+    assertEquals(THREADS * 500, questionnaire.getRequiredQuestions().size());
+  }
+
+  @Test
+  public void testConcurrentAnswerBatchesAreAtomic() throws Exception {
+    questionnaire.addQuestion("first", new YesNo("First?", true));
+    questionnaire.addQuestion("second", new YesNo("Second?", true));
+    AtomicInteger threadIds = new AtomicInteger();
+    runTogether(() -> {
+      String answer = threadIds.getAndIncrement() % 2 == 0 ? "yes" : "no";
+      Map<String, String> batch = new LinkedHashMap<>();
+      batch.put("first", answer);
+      batch.put("second", answer);
+      for (int i = 0; i < 2000; i++) {
+        questionnaire.answerAll(batch);
+        // readers never see one batch's first answer beside another batch's second
+        List<String> responses = questionnaire.getResponses();
+        assertEquals(responses.get(0), responses.get(1));
+      }
+      return null;
+    });
+
+    // a batch that fails validation or names a missing question answers nothing
+    Map<String, String> bad = new LinkedHashMap<>();
+    bad.put("first", "maybe");
+    bad.put("second", "maybe");
+    List<String> before = questionnaire.getResponses();
+    assertThrows(IllegalArgumentException.class, () -> questionnaire.answerAll(bad));
+    bad.put("first", before.get(0).equals("yes") ? "no" : "yes");
+    bad.put("second", bad.get("first"));
+    bad.put("missing", "yes");
+    assertThrows(NoSuchElementException.class, () -> questionnaire.answerAll(bad));
+    assertEquals(before, questionnaire.getResponses());
+  }
+
+  @Test
+  public void testConcurrentAnswersCompleteTheQuestionnaire() throws Exception {
+    int size = 4000;
+    List<YesNo> all = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      YesNo question = new YesNo("Question " + i + "?", true);
+      all.add(question);
+      questionnaire.addQuestion("q" + i, question);
+    }
+    assertFalse(questionnaire.isComplete());
+
+    // every thread answers every question, so each one is answered many times concurrently
+    runTogether(() -> {
+      for (YesNo question : all) {
+        question.answer("yes");
+        question.answer("no");
+      }
+      return null;
+    });
+
+    assertTrue(questionnaire.isComplete());
+    for (YesNo question : all) {
+      assertEquals("no", question.getAnswer());
+    }
+
+    questionnaire.addQuestion("late", new YesNo("Late question?", true));
+    assertFalse(questionnaire.isComplete());
+  }
+
+  @Test
+  public void testConcurrentSortsAndLookups() throws Exception {
+    for (int i = 0; i < 1000; i++) {
+      questionnaire.addQuestion("q" + i, new ShortAnswer(String.format("%04d", i), false));
+    }
+    AtomicInteger threadIds = new AtomicInteger();
+    runTogether(() -> {
+      boolean ascending = threadIds.getAndIncrement() % 2 == 0;
+      Comparator<Question> byPrompt = Comparator.comparing(Question::getPrompt);
+      for (int round = 0; round < 20; round++) {
+        questionnaire.sort(ascending ? byPrompt : byPrompt.reversed());
+        for (int i = 0; i < 1000; i += 97) {
+          assertEquals(String.format("%04d", i), questionnaire.getQuestion("q" + i).getPrompt());
+        }
+      }
+      return null;
+    });
+
+    // whichever sort ran last, the order is one of the two complete orders
+    String first = questionnaire.getQuestion(1).getPrompt();
+    boolean ascending = first.equals("0000");
+    for (int num = 1; num <= 1000; num++) {
+      int expected = ascending ? num - 1 : 1000 - num;
+      assertEquals(String.format("%04d", expected), questionnaire.getQuestion(num).getPrompt());
+    }
+  }
+}
@@ -0,0 +1,200 @@
+package questionnaire;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for InstrumentedQuestionnaire and QuestionnaireMetrics.
+ * Covers handing calls on unchanged, counting each kind of operation and
+ * rejected response, turning measuring off, and reading the metrics through
+ * the snapshot API and through JMX.
+ */
+public class InstrumentedQuestionnaireTest {
+  private QuestionnaireImpl impl;
+  private QuestionnaireMetrics metrics;
+  private InstrumentedQuestionnaire questionnaire;
+
+  /**
+   * Sets up an instrumented questionnaire with a question of each type.
+   */
+  @Before
+  public void setUp() {
+    impl = new QuestionnaireImpl();
+    metrics = new QuestionnaireMetrics();
+    questionnaire = new InstrumentedQuestionnaire(impl, metrics);
+    questionnaire.addQuestion("student", new YesNo("Are you a student?", true));
+    questionnaire.addQuestion("course", new Likert("The course was well taught.", true));
+    questionnaire.addQuestion("comments", new ShortAnswer("Any comments?", false));
+  }
+
+  /**
+   * Removes the metrics from JMX in case a test registered them.
+   */
+  @After
+  public void tearDown() throws JMException {
+    metrics.unregister();
+  }
+
+  @Test
+  public void testCallsAreHandedOn() {
+    questionnaire.getQuestion("student").answer("yes");
+    questionnaire.getQuestion(2).answer("Agree");
+    assertTrue(impl.isComplete());
+    assertTrue(questionnaire.isComplete());
+    assertEquals(impl.getResponses(), questionnaire.getResponses());
+    assertEquals(impl.toString(), questionnaire.toString());
+
+    questionnaire.sort(Comparator.comparing(Question::getPrompt));
+    assertEquals("Any comments?", questionnaire.getQuestion(1).getPrompt());
+    assertEquals(2, questionnaire.getRequiredQuestions().size());
+    assertEquals(3, (int) questionnaire.fold((q, n) -> n + 1, 0));
+
+    Questionnaire filtered = questionnaire.filter(Question::isRequired);
+    assertTrue(filtered instanceof InstrumentedQuestionnaire);
+    assertEquals("yes", filtered.getQuestion("student").getAnswer());
+  }
+
+  @Test
+  public void testOperationsAreCounted() {
+    questionnaire.getQuestion("student");
+    questionnaire.getQuestion(1);
+    questionnaire.removeQuestion("comments");
+    questionnaire.sort(Comparator.comparing(Question::getPrompt));
+    questionnaire.filter(Question::isRequired);
+    questionnaire.fold((q, n) -> n + 1, 0);
+    questionnaire.answerAll(Map.of("student", "no"));
+
+    QuestionnaireMetrics.Snapshot snapshot = metrics.snapshot();
+    assertEquals(3, snapshot.getCount(QuestionnaireMetrics.Operation.ADD_QUESTION));
+    assertEquals(2, snapshot.getCount(QuestionnaireMetrics.Operation.GET_QUESTION));
+    assertEquals(1, snapshot.getCount(QuestionnaireMetrics.Operation.REMOVE_QUESTION));
+    assertEquals(1, snapshot.getCount(QuestionnaireMetrics.Operation.SORT));
+    assertEquals(1, snapshot.getCount(QuestionnaireMetrics.Operation.FILTER));
+    assertEquals(1, snapshot.getCount(QuestionnaireMetrics.Operation.FOLD));
+    assertEquals(1, snapshot.getCount(QuestionnaireMetrics.Operation.BATCH));
+    assertEquals(0, snapshot.getCount(QuestionnaireMetrics.Operation.ANSWER));
+    assertTrue(snapshot.getLatency(QuestionnaireMetrics.Operation.SORT).getMax() > 0);
+  }
+
+  @Test
+  public void testAnswersAndFailuresAreCounted() {
+    Question student = questionnaire.getQuestion("student");
+    Question course = questionnaire.getQuestion("course");
+    student.answer("yes");
+    assertThrows(IllegalArgumentException.class, () -> student.answer("maybe"));
+    assertEquals(ValidationResult.NOT_LIKERT, course.tryAnswer("Sometimes"));
+    assertEquals(ValidationResult.OK, course.validate("Agree"));
+    assertEquals(ValidationResult.NOT_LIKERT, course.validate("Neutral"));
+
+    QuestionnaireMetrics.Snapshot snapshot = metrics.snapshot();
+    assertEquals(3, snapshot.getCount(QuestionnaireMetrics.Operation.ANSWER));
+    assertEquals(2, snapshot.getCount(QuestionnaireMetrics.Operation.VALIDATE));
+    assertEquals(Map.of("YesNo", 1L, "Likert", 2L), snapshot.getValidationFailures());
+    assertEquals("yes", impl.getQuestion("student").getAnswer());
+  }
+
+  @Test
+  public void testQuestionsAreHandedOutMeasured() {
+    Question student = questionnaire.getQuestion("student");
+    questionnaire.getRequiredQuestions().get(1).answer("Agree");
+    assertEquals(1, metrics.snapshot().getCount(QuestionnaireMetrics.Operation.ANSWER));
+
+    // a measured question added back is stored unwrapped, so completion is still followed
+    QuestionnaireImpl other = new QuestionnaireImpl();
+    InstrumentedQuestionnaire instrumented = new InstrumentedQuestionnaire(other, metrics);
+    instrumented.addQuestion("student", student);
+    assertFalse(other.isComplete());
+    student.answer("yes");
+    assertTrue(other.isComplete());
+
+    // and the same for a batch
+    Question course = questionnaire.getQuestion("course");
+    QuestionnaireImpl batch = new QuestionnaireImpl();
+    new InstrumentedQuestionnaire(batch, metrics).addAll(Map.of("course", course));
+    assertTrue(batch.getQuestion("course") instanceof Likert);
+    course.answer("Agree");
+    assertTrue(batch.isComplete());
+  }
+
+  @Test
+  public void testRejectedBatchIsCounted() {
+    Map<String, String> responses = new LinkedHashMap<>();
+    responses.put("student", "yes");
+    responses.put("course", "Sometimes");
+    assertThrows(IllegalArgumentException.class, () -> questionnaire.answerAll(responses));
+    assertEquals(Map.of("Likert", 1L), metrics.snapshot().getValidationFailures());
+    assertEquals("", impl.getQuestion("student").getAnswer());
+
+    assertThrows(IllegalArgumentException.class, () -> questionnaire.answerAll(null));
+    assertEquals(Map.of("Likert", 1L), metrics.snapshot().getValidationFailures());
+  }
+
+  @Test
+  public void testDisabled() {
+    metrics.setEnabled(false);
+    assertFalse(metrics.isEnabled());
+    Question student = questionnaire.getQuestion("student");
+    assertSame(impl.getQuestion("student"), student);
+    assertSame(impl.getRequiredQuestions(), questionnaire.getRequiredQuestions());
+    student.answer("yes");
+    questionnaire.sort(Comparator.comparing(Question::getPrompt));
+
+    QuestionnaireMetrics.Snapshot snapshot = metrics.snapshot();
+    assertEquals(0, snapshot.getCount(QuestionnaireMetrics.Operation.GET_QUESTION));
+    assertEquals(0, snapshot.getCount(QuestionnaireMetrics.Operation.SORT));
+    assertEquals(3, snapshot.getCount(QuestionnaireMetrics.Operation.ADD_QUESTION));
+
+    metrics.reset();
+    assertEquals(0, metrics.snapshot().getCount(QuestionnaireMetrics.Operation.ADD_QUESTION));
+  }
+
+  @Test
+  public void testJmx() throws JMException {
+    questionnaire.getQuestion("course").tryAnswer("Sometimes");
+    ObjectName name = metrics.register("test");
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    assertTrue(server.isRegistered(name));
+    assertThrows(IllegalStateException.class, () -> metrics.register("again"));
+
+    assertEquals(true, server.getAttribute(name, "Enabled"));
+    TabularData counts = (TabularData) server.getAttribute(name, "OperationCounts");
+    assertEquals(3L, counts.get(new Object[] {"ADD_QUESTION"}).get("value"));
+    TabularData failures = (TabularData) server.getAttribute(name, "ValidationFailures");
+    assertEquals(1L, failures.get(new Object[] {"Likert"}).get("value"));
+    assertEquals(List.of("ADD_QUESTION", "REMOVE_QUESTION", "GET_QUESTION", "ANSWER",
+            "VALIDATE", "SORT", "FILTER", "FOLD", "BATCH"),
+            List.copyOf(metrics.getP99LatencyNanos().keySet()));
+
+    server.invoke(name, "reset", null, null);
+    assertEquals(0L, (long) metrics.getOperationCounts().get("ADD_QUESTION"));
+
+    metrics.unregister();
+    assertFalse(server.isRegistered(name));
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new InstrumentedQuestionnaire(null, metrics));
+    assertThrows(IllegalArgumentException.class,
+        () -> new InstrumentedQuestionnaire(impl, null));
+    assertThrows(IllegalArgumentException.class, () -> metrics.register(""));
+    assertThrows(IllegalArgumentException.class, () -> metrics.snapshot().getLatency(null));
+  }
+}
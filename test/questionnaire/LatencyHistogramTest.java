@@ -0,0 +1,109 @@
+package questionnaire;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Test class for LatencyHistogram.
+ * Covers bucket boundaries, summary statistics, percentiles against exact
+ * values, and recording from many threads at once.
+ */
+public class LatencyHistogramTest {
+
+  @Test
+  public void testBucketsCoverEveryValue() {
+    long[] values = {0, 1, 31, 32, 33, 63, 64, 65, 1000, 123456789, Long.MAX_VALUE};
+    for (long value : values) {
+      int index = LatencyHistogram.indexOf(value);
+      assertTrue(value <= LatencyHistogram.highestValue(index));
+      // the bucket is narrow: within 1/32 of the value
+      assertTrue(LatencyHistogram.highestValue(index) - value <= value / 32);
+      if (index > 0) {
+        assertTrue(value > LatencyHistogram.highestValue(index - 1));
+      }
+    }
+    assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValue(
+            LatencyHistogram.indexOf(Long.MAX_VALUE)));
+  }
+
+  @Test
+  public void testSnapshot() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    LatencyHistogram.Snapshot empty = histogram.snapshot();
+    assertEquals(0, empty.getCount());
+    assertEquals(0, empty.getMean(), 0);
+    assertEquals(0, empty.getValueAtPercentile(99));
+
+    histogram.record(10);
+    histogram.record(20);
+    histogram.record(-5);
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(3, snapshot.getCount());
+    assertEquals(10, snapshot.getMean(), 1e-9);
+    assertEquals(20, snapshot.getMax());
+    assertEquals(0, snapshot.getValueAtPercentile(0));
+    assertEquals(10, snapshot.getValueAtPercentile(50));
+    assertEquals(20, snapshot.getValueAtPercentile(100));
+
+    histogram.reset();
+    assertEquals(0, histogram.snapshot().getCount());
+    assertEquals(3, snapshot.getCount());
+  }
+
+  @Test
+  public void testPercentilesMatchSortedValues() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    Random random = new Random(25);
+    List<Long> values = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      long value = (long) Math.exp(random.nextDouble() * 20);
+      values.add(value);
+      histogram.record(value);
+    }
+    values.sort(null);
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    for (double percentile : new double[] {1, 25, 50, 90, 99, 99.9}) {
+      long exact = values.get((int) Math.ceil(percentile / 100 * values.size()) - 1);
+      long estimate = snapshot.getValueAtPercentile(percentile);
+      assertTrue(estimate >= exact);
+      assertTrue(estimate - exact <= exact / 32);
+    }
+    assertEquals((long) values.get(values.size() - 1), snapshot.getMax());
+  }
+
+  @Test
+  public void testConcurrentRecording() throws InterruptedException {
+    LatencyHistogram histogram = new LatencyHistogram();
+    Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 10000; i++) {
+          histogram.record(i);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(80000, snapshot.getCount());
+    assertEquals(9999, snapshot.getMax());
+    assertEquals(4999.5, snapshot.getMean(), 1e-9);
+  }
+
+  @Test
+  public void testInvalidPercentile() {
+    LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+    assertThrows(IllegalArgumentException.class, () -> snapshot.getValueAtPercentile(-1));
+    assertThrows(IllegalArgumentException.class, () -> snapshot.getValueAtPercentile(101));
+    assertThrows(IllegalArgumentException.class,
+        () -> snapshot.getValueAtPercentile(Double.NaN));
+  }
+}
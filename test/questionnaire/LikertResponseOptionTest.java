@@ -0,0 +1,83 @@
+package questionnaire;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Test class for LikertResponseOption.
+ * Tests that parsing a response finds the same option a case-insensitive
+ * string comparison would, and rejects everything else.
+ */
+public class LikertResponseOptionTest {
+
+  /**
+   * Tests that every option's own text parses back to that option.
+   */
+  @Test
+  public void testParseOwnText() {
+    for (LikertResponseOption option : LikertResponseOption.values()) {
+      assertEquals(option, LikertResponseOption.parse(option.getText()));
+    }
+  }
+
+  /**
+   * Tests that parsing ignores case and accepts any CharSequence.
+   */
+  @Test
+  public void testParseIgnoresCase() {
+    assertEquals(LikertResponseOption.AGREE, LikertResponseOption.parse("aGrEe"));
+    assertEquals(LikertResponseOption.NEUTRAL,
+            LikertResponseOption.parse(new StringBuilder("NEITHER AGREE NOR DISAGREE")));
+    assertEquals(-2, LikertResponseOption.parse("strongly disagree").getValue());
+  }
+
+  /**
+   * Tests that null, empty, partial and overlong responses match nothing.
+   */
+  @Test
+  public void testParseRejects() {
+    assertNull(LikertResponseOption.parse(null));
+    assertNull(LikertResponseOption.parse(""));
+    assertNull(LikertResponseOption.parse("Agre"));
+    assertNull(LikertResponseOption.parse("Agreed"));
+    assertNull(LikertResponseOption.parse("Strongly Agree!"));
+    assertNull(LikertResponseOption.parse("Neither Agree Nor Disagree, really"));
+  }
+
+  /**
+   * Tests that parsing agrees with String.equalsIgnoreCase on randomly
+   * altered spellings, including characters that only match after case folding.
+   */
+  @Test
+  public void testParseMatchesEqualsIgnoreCase() {
+    Random random = new Random(42);
+    char[] odd = {'\u0131', '\u0130', '\u017f', 'x', ' '};
+    for (int round = 0; round < 5000; round++) {
+      LikertResponseOption target =
+              LikertResponseOption.values()[random.nextInt(LikertResponseOption.values().length)];
+      char[] chars = target.getText().toCharArray();
+      for (int i = 0; i < chars.length; i++) {
+        int pick = random.nextInt(10);
+        if (pick < 4) {
+          chars[i] = Character.toUpperCase(chars[i]);
+        } else if (pick < 8) {
+          chars[i] = Character.toLowerCase(chars[i]);
+        } else if (pick == 8) {
+          chars[i] = odd[random.nextInt(odd.length)];
+        }
+      }
+      String response = new String(chars);
+
+      LikertResponseOption expected = null;
+      for (LikertResponseOption option : LikertResponseOption.values()) {
+        if (option.getText().equalsIgnoreCase(response)) {
+          expected = option;
+        }
+      }
+      assertEquals(response, expected, LikertResponseOption.parse(response));
+    }
+  }
+}
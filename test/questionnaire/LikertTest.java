@@ -2,8 +2,13 @@ package questionnaire;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -151,4 +156,73 @@ public class LikertTest {
     assertEquals("Agree", question.getAnswer());
     assertEquals("Disagree", copy.getAnswer());
   }
-}
\ No newline at end of file
+
+  /**
+   * Tests that an answered question reports the matching Likert option,
+   * and that copies carry the option across.
+   */
+  @Test
+  public void testAnswerOption() {
+    assertNull(question.getOption());
+    assertNull(((Likert) question.copy()).getOption());
+    question.answer("neither agree nor disagree");
+    assertEquals(LikertResponseOption.NEUTRAL, question.getOption());
+    question.answer("STRONGLY AGREE");
+    assertEquals(LikertResponseOption.STRONGLY_AGREE, question.getOption());
+    assertEquals(LikertResponseOption.STRONGLY_AGREE, ((Likert) question.copy()).getOption());
+  }
+
+  /**
+   * Tests that answers written in a common spelling share one string instance,
+   * while other spellings are kept exactly as given.
+   */
+  @Test
+  public void testCommonSpellingsShared() {
+    question.answer(new String("Strongly Agree"));
+    assertSame("Strongly Agree", question.getAnswer());
+    question.answer(new String("disagree"));
+    assertSame("disagree", question.getAnswer());
+
+    String unusual = new String("aGrEe");
+    question.answer(unusual);
+    assertSame(unusual, question.getAnswer());
+  }
+
+  /**
+   * Tests that tryAnswer records valid options in any case and reports the rest.
+   */
+  @Test
+  public void testTryAnswer() {
+    assertSame(ValidationResult.OK, question.tryAnswer(new StringBuilder("agree")));
+    assertEquals("agree", question.getAnswer());
+    assertEquals(LikertResponseOption.AGREE, question.getOption());
+
+    assertSame(ValidationResult.NOT_LIKERT, question.tryAnswer("Agreed"));
+    assertSame(ValidationResult.NOT_LIKERT, question.tryAnswer(""));
+    assertSame(ValidationResult.NULL, question.tryAnswer(null));
+    assertEquals(LikertResponseOption.AGREE, question.getOption());
+
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> question.answer("Agreed"));
+    assertEquals(ValidationResult.NOT_LIKERT.getMessage(), e.getMessage());
+  }
+
+  /**
+   * Tests that UTF-8 answers are recognized from the bytes, sharing the option's spelling.
+   */
+  @Test
+  public void testTryAnswerUtf8() {
+    ByteBuffer direct = ByteBuffer.allocateDirect(32);
+    direct.put("strongly agree".getBytes(StandardCharsets.UTF_8)).flip();
+    assertSame(ValidationResult.OK, question.tryAnswerUtf8(direct));
+    assertSame(LikertResponseOption.STRONGLY_AGREE.getSpellings()[1], question.getAnswer());
+    assertEquals(LikertResponseOption.STRONGLY_AGREE, question.getOption());
+
+    assertSame(ValidationResult.OK,
+        question.tryAnswerUtf8(ByteBuffer.wrap("dIsAgReE".getBytes(StandardCharsets.UTF_8))));
+    assertEquals("dIsAgReE", question.getAnswer());
+    assertSame(ValidationResult.NOT_LIKERT,
+        question.tryAnswerUtf8(ByteBuffer.wrap("Agree!".getBytes(StandardCharsets.UTF_8))));
+    assertEquals(LikertResponseOption.DISAGREE, question.getOption());
+  }
+}
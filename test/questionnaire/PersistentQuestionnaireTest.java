@@ -0,0 +1,303 @@
+package questionnaire;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for PersistentQuestionnaire.
+ * Tests that every change returns a new version, that earlier versions never
+ * change, and that each version behaves like a QuestionnaireImpl with the same
+ * history.
+ */
+public class PersistentQuestionnaireTest {
+  private PersistentQuestionnaire base;
+
+  /**
+   * Sets up a version with one question of each type.
+   */
+  @Before
+  public void setUp() {
+    base = PersistentQuestionnaire.empty()
+            .with("likes", new YesNo("Do you like it?", true))
+            .with("easy", new Likert("It is easy to use.", true))
+            .with("why", new ShortAnswer("Why?", false));
+  }
+
+  /**
+   * Tests that questions can be found by number and identifier in the order added.
+   */
+  @Test
+  public void testWithAndGetQuestion() {
+    assertEquals(0, PersistentQuestionnaire.empty().size());
+    assertEquals(3, base.size());
+    assertEquals("Do you like it?", base.getQuestion(1).getPrompt());
+    assertEquals("Why?", base.getQuestion(3).getPrompt());
+    assertEquals("It is easy to use.", base.getQuestion("easy").getPrompt());
+    assertEquals(2, base.getRequiredQuestions().size());
+    assertEquals("Why?", base.getOptionalQuestions().get(0).getPrompt());
+    assertThrows(IndexOutOfBoundsException.class, () -> base.getQuestion(0));
+    assertThrows(IndexOutOfBoundsException.class, () -> base.getQuestion(4));
+    assertThrows(NoSuchElementException.class, () -> base.getQuestion("nope"));
+    assertThrows(NoSuchElementException.class, () -> base.getQuestion(null));
+  }
+
+  /**
+   * Tests that adding validates its arguments like QuestionnaireImpl.
+   */
+  @Test
+  public void testWithRejectsInvalidArguments() {
+    YesNo question = new YesNo("Again?", true);
+    assertThrows(IllegalArgumentException.class, () -> base.with(null, question));
+    assertThrows(IllegalArgumentException.class, () -> base.with("", question));
+    assertThrows(IllegalArgumentException.class, () -> base.with("likes", question));
+    assertThrows(IllegalArgumentException.class, () -> base.with("again", null));
+    assertEquals(3, base.size());
+  }
+
+  /**
+   * Tests that earlier versions are unchanged by later ones.
+   */
+  @Test
+  public void testVersionsAreIndependent() {
+    PersistentQuestionnaire removed = base.without("easy");
+    PersistentQuestionnaire answered = base.withAnswer("likes", "yes");
+
+    assertEquals(3, base.size());
+    assertEquals(List.of("", "", ""), base.getResponses());
+    assertEquals(2, removed.size());
+    assertEquals("Why?", removed.getQuestion(2).getPrompt());
+    assertThrows(NoSuchElementException.class, () -> removed.getQuestion("easy"));
+    assertEquals(List.of("yes", "", ""), answered.getResponses());
+    assertEquals("yes", answered.getQuestion("likes").getAnswer());
+    assertEquals("", base.getQuestion("likes").getAnswer());
+    assertEquals(List.of("yes", "", ""), answered.responses().collect(Collectors.toList()));
+    assertThrows(UnsupportedOperationException.class, () -> base.getResponses().set(0, "no"));
+  }
+
+  /**
+   * Tests that neither the added question nor returned questions are shared with a version.
+   */
+  @Test
+  public void testQuestionsAreCopied() {
+    YesNo question = new YesNo("Shared?", true);
+    PersistentQuestionnaire version = base.with("shared", question);
+    question.answer("yes");
+    assertEquals("", version.getQuestion("shared").getAnswer());
+
+    Question returned = version.getQuestion(4);
+    returned.answer("no");
+    version.getRequiredQuestions().get(0).answer("yes");
+    assertNotSame(returned, version.getQuestion(4));
+    assertEquals(List.of("", "", "", ""), version.getResponses());
+  }
+
+  /**
+   * Tests that answering validates the response and tracks completion.
+   */
+  @Test
+  public void testWithAnswerAndIsComplete() {
+    assertFalse(base.isComplete());
+    PersistentQuestionnaire half = base.withAnswer("likes", "no");
+    assertFalse(half.isComplete());
+    PersistentQuestionnaire done = half.withAnswer("easy", "Agree");
+    assertTrue(done.isComplete());
+    assertFalse(done.with("more", new YesNo("More?", true)).isComplete());
+    assertTrue(done.with("more", new YesNo("More?", false)).isComplete());
+    assertFalse(base.isComplete());
+
+    assertThrows(IllegalArgumentException.class, () -> base.withAnswer("likes", "maybe"));
+    assertThrows(IllegalArgumentException.class, () -> base.withAnswer("likes", null));
+    assertThrows(NoSuchElementException.class, () -> base.withAnswer("nope", "yes"));
+    assertThrows(NoSuchElementException.class, () -> base.without("nope"));
+  }
+
+  /**
+   * Tests that sorting returns a new, stably sorted version.
+   */
+  @Test
+  public void testSorted() {
+    PersistentQuestionnaire sorted = base.sorted(Comparator.comparing(Question::getPrompt));
+    assertEquals("Do you like it?", sorted.getQuestion(1).getPrompt());
+    assertEquals("It is easy to use.", sorted.getQuestion(2).getPrompt());
+    assertEquals("Why?", sorted.getQuestion(3).getPrompt());
+    assertEquals("Why?", sorted.getQuestion("why").getPrompt());
+
+    PersistentQuestionnaire byRequired =
+            base.sorted(Comparator.comparing(Question::isRequired).reversed());
+    assertEquals("Do you like it?", byRequired.getQuestion(1).getPrompt());
+    assertEquals("It is easy to use.", byRequired.getQuestion(2).getPrompt());
+
+    // new questions still go on the end after a sort
+    PersistentQuestionnaire added = sorted.with("last", new ShortAnswer("A last one", false));
+    assertEquals("A last one", added.getQuestion(4).getPrompt());
+    assertThrows(IllegalArgumentException.class, () -> base.sorted(null));
+  }
+
+  /**
+   * Tests that filtering keeps matching questions in order.
+   */
+  @Test
+  public void testFilter() {
+    PersistentQuestionnaire answered = base.withAnswer("easy", "neither agree nor disagree");
+    PersistentQuestionnaire required = answered.filter(Question::isRequired);
+    assertEquals(2, required.size());
+    assertEquals("neither agree nor disagree", required.getQuestion("easy").getAnswer());
+    assertFalse(required.isComplete());
+    assertTrue(required.withAnswer("likes", "yes").isComplete());
+    assertThrows(NoSuchElementException.class, () -> required.getQuestion("why"));
+    assertThrows(IllegalArgumentException.class, () -> base.filter(null));
+  }
+
+  /**
+   * Tests fold and the text format.
+   */
+  @Test
+  public void testFoldAndToString() {
+    PersistentQuestionnaire answered = base.withAnswer("likes", "yes");
+    assertEquals(3, (int) answered.fold((q, count) -> count + 1, 0));
+    assertEquals("Do you like it?It is easy to use.Why?",
+            answered.fold((q, text) -> text + q.getPrompt(), ""));
+    assertEquals("Question: Do you like it?\n\nAnswer: yes\n\n"
+            + "Question: It is easy to use.\n\nAnswer: \n\n"
+            + "Question: Why?\n\nAnswer: ", answered.toString());
+    assertEquals("", PersistentQuestionnaire.empty().toString());
+    assertThrows(IllegalArgumentException.class, () -> base.fold(null, 0));
+  }
+
+  /**
+   * Tests that functions passed to filter, sorted and fold see questions of their own types
+   * but cannot change the version by answering them, and that the question lists copy
+   * lazily but stably.
+   */
+  @Test
+  public void testFunctionsSeeCopies() {
+    PersistentQuestionnaire text = base.filter(q -> q instanceof ShortAnswer);
+    assertEquals(1, text.size());
+    assertEquals("Why?", text.getQuestion(1).getPrompt());
+    assertEquals(1, (int) base.fold((q, n) -> q instanceof Likert ? n + 1 : n, 0));
+    PersistentQuestionnaire yesNoLast =
+            base.sorted(Comparator.comparing(q -> q instanceof YesNo));
+    assertTrue(yesNoLast.getQuestion(3) instanceof YesNo);
+
+    base.filter(q -> q.tryAnswer("yes").isValid());
+    base.sorted((a, b) -> {
+      a.tryAnswer("yes");
+      return 0;
+    });
+    base.fold((q, n) -> {
+      q.tryAnswerUtf8(ByteBuffer.wrap(new byte[] {'n', 'o'}));
+      return n;
+    }, 0);
+    assertEquals(List.of("", "", ""), base.getResponses());
+    assertFalse(base.isComplete());
+
+    List<Question> required = base.getRequiredQuestions();
+    required.get(0).answer("yes");
+    assertEquals("yes", required.get(0).getAnswer());
+    assertEquals("", base.getRequiredQuestions().get(0).getAnswer());
+    assertThrows(IndexOutOfBoundsException.class, () -> required.get(2));
+  }
+
+  /**
+   * Tests that the mutators inherited from Questionnaire are not supported.
+   */
+  @Test
+  public void testMutatorsUnsupported() {
+    assertThrows(UnsupportedOperationException.class,
+        () -> base.addQuestion("x", new YesNo("X?", true)));
+    assertThrows(UnsupportedOperationException.class, () -> base.removeQuestion("likes"));
+    assertThrows(UnsupportedOperationException.class,
+        () -> base.sort(Comparator.comparing(Question::getPrompt)));
+    assertThrows(UnsupportedOperationException.class,
+        () -> base.addAll(Map.of("x", new YesNo("X?", true))));
+    assertThrows(UnsupportedOperationException.class, () -> base.removeAll(List.of("likes")));
+    assertThrows(UnsupportedOperationException.class,
+        () -> base.answerAll(Map.of("likes", "yes")));
+  }
+
+  /**
+   * Tests that converting to a QuestionnaireImpl gives an independent copy.
+   */
+  @Test
+  public void testToQuestionnaire() {
+    QuestionnaireImpl questionnaire = base.withAnswer("likes", "yes").toQuestionnaire();
+    assertEquals(List.of("yes", "", ""), questionnaire.getResponses());
+    questionnaire.getQuestion("why").answer("Because.");
+    questionnaire.removeQuestion("easy");
+    assertEquals(3, base.size());
+    assertEquals("", base.getQuestion("why").getAnswer());
+  }
+
+  /**
+   * Tests a long random history against a QuestionnaireImpl given the same changes,
+   * checking every kept version still matches its own snapshot afterwards.
+   */
+  @Test
+  public void testRandomHistoryMatchesQuestionnaireImpl() {
+    Random random = new Random(7);
+    PersistentQuestionnaire version = PersistentQuestionnaire.empty();
+    QuestionnaireImpl expected = new QuestionnaireImpl();
+    List<String> live = new ArrayList<>();
+    List<PersistentQuestionnaire> versions = new ArrayList<>();
+    List<String> snapshots = new ArrayList<>();
+
+    for (int step = 0; step < 3000; step++) {
+      int action = random.nextInt(10);
+      if (action < 5 || live.isEmpty()) {
+        String identifier = "q" + step;
+        Question question = random.nextBoolean()
+                ? new YesNo("Prompt " + random.nextInt(100), random.nextBoolean())
+                : new ShortAnswer("Prompt " + random.nextInt(100), random.nextBoolean());
+        version = version.with(identifier, question);
+        expected.addQuestion(identifier, question.copy());
+        live.add(identifier);
+      } else if (action < 7) {
+        String identifier = live.remove(random.nextInt(live.size()));
+        version = version.without(identifier);
+        expected.removeQuestion(identifier);
+      } else if (action < 9) {
+        String identifier = live.get(random.nextInt(live.size()));
+        String answer = random.nextBoolean() ? "yes" : "no";
+        version = version.withAnswer(identifier, answer);
+        expected.getQuestion(identifier).answer(answer);
+      } else {
+        Comparator<Question> byPrompt = Comparator.comparing(Question::getPrompt);
+        version = version.sorted(byPrompt);
+        expected.sort(byPrompt);
+      }
+
+      assertEquals(expected.isComplete(), version.isComplete());
+      if (step % 100 == 0) {
+        assertEquals(expected.toString(), version.toString());
+        for (String identifier : live) {
+          assertEquals(expected.getQuestion(identifier).getAnswer(),
+                  version.getQuestion(identifier).getAnswer());
+        }
+        versions.add(version);
+        snapshots.add(version.toString());
+      }
+    }
+
+    assertEquals(expected.getResponses(), version.getResponses());
+    for (int num = 1; num <= version.size(); num++) {
+      assertEquals(expected.getQuestion(num).getPrompt(), version.getQuestion(num).getPrompt());
+    }
+    for (int i = 0; i < versions.size(); i++) {
+      assertEquals(snapshots.get(i), versions.get(i).toString());
+    }
+  }
+}
@@ -0,0 +1,147 @@
+package questionnaire;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import java.nio.ByteBuffer;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test class for PromptPool.
+ * Covers sharing equal prompts, the pool's counters, installing a pool for
+ * new questions, and prompts leaving the pool once nothing uses them.
+ */
+public class PromptPoolTest {
+
+  /**
+   * Turns pooling back off so other tests are unaffected.
+   */
+  @After
+  public void tearDown() {
+    PromptPool.install(null);
+  }
+
+  @Test
+  public void testCanonicalize() {
+    PromptPool pool = new PromptPool();
+    String first = new String("How old are you?");
+    String second = new String("How old are you?");
+
+    assertSame(first, pool.canonicalize(first));
+    assertSame(first, pool.canonicalize(second));
+    assertSame(first, pool.canonicalize(first));
+    assertEquals(1, pool.size());
+  }
+
+  @Test
+  public void testMetrics() {
+    PromptPool pool = new PromptPool();
+    assertEquals(0, pool.getHitRate(), 0);
+
+    pool.canonicalize(new String("Why?"));
+    pool.canonicalize(new String("Why?"));
+    pool.canonicalize(new String("Why?"));
+    pool.canonicalize(new String("Where?"));
+
+    assertEquals(2, pool.getHits());
+    assertEquals(2, pool.getMisses());
+    assertEquals(0.5, pool.getHitRate(), 1e-9);
+    assertEquals(2 * PromptPool.sizeOf("Why?"), pool.getBytesSaved());
+  }
+
+  @Test
+  public void testSizeOf() {
+    // 24 byte String, 16 byte array header, contents padded to 8
+    assertEquals(48, PromptPool.sizeOf("Why?"));
+    assertEquals(56, PromptPool.sizeOf("\u00bfPor qu\u00e9?"));
+    assertEquals(48, PromptPool.sizeOf("\u4e3a\u4ec0\u4e48"));
+  }
+
+  @Test
+  public void testInstalledPoolSharesPrompts() {
+    PromptPool pool = new PromptPool();
+    PromptPool.install(pool);
+    assertSame(pool, PromptPool.installed());
+
+    YesNo yesNo = new YesNo(new String("Do you agree?"), true);
+    Likert likert = new Likert(new String("Do you agree?"), false);
+    assertSame(yesNo.getPrompt(), likert.getPrompt());
+
+    // questions made by the codec share prompts with those made directly
+    QuestionnaireImpl questionnaire = new QuestionnaireImpl();
+    questionnaire.addQuestion("q1", new ShortAnswer("Do you agree?", false));
+    QuestionnaireImpl decoded =
+        QuestionnaireCodec.decode(ByteBuffer.wrap(QuestionnaireCodec.encode(questionnaire)));
+    assertSame(yesNo.getPrompt(), decoded.getQuestion("q1").getPrompt());
+    assertEquals(1, pool.size());
+  }
+
+  @Test
+  public void testCopiesSkipThePool() {
+    PromptPool pool = new PromptPool();
+    PromptPool.install(pool);
+    YesNo yesNo = new YesNo(new String("Do you agree?"), true);
+    pool.canonicalize(yesNo.getPrompt());
+    for (int i = 0; i < 100; i++) {
+      assertSame(yesNo.getPrompt(), yesNo.copy().getPrompt());
+    }
+    assertEquals(0, pool.getHits());
+    assertEquals(1, pool.getMisses());
+  }
+
+  @Test
+  public void testConcurrentLookups() throws InterruptedException {
+    PromptPool pool = new PromptPool();
+    String[][] results = new String[8][10000];
+    Thread[] threads = new Thread[results.length];
+    for (int t = 0; t < threads.length; t++) {
+      String[] mine = results[t];
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < mine.length; i++) {
+          mine[i] = pool.canonicalize(new String("Prompt " + i % 100));
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    for (String[] mine : results) {
+      for (int i = 0; i < mine.length; i++) {
+        assertSame(results[0][i % 100], mine[i]);
+      }
+    }
+    assertEquals(100, pool.getMisses());
+    assertEquals(8 * 10000 - 100, pool.getHits());
+  }
+
+  @Test
+  public void testPoolingIsOffByDefault() {
+    assertNull(PromptPool.installed());
+    YesNo first = new YesNo(new String("Do you agree?"), true);
+    YesNo second = new YesNo(new String("Do you agree?"), true);
+    assertNotSame(first.getPrompt(), second.getPrompt());
+  }
+
+  @Test
+  public void testUnusedPromptsLeaveThePool() throws InterruptedException {
+    PromptPool pool = new PromptPool();
+    for (int i = 0; i < 100; i++) {
+      pool.canonicalize("Prompt " + i + "?");
+    }
+    for (int attempt = 0; attempt < 50 && pool.size() > 0; attempt++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertEquals(0, pool.size());
+  }
+
+  @Test
+  public void testNullText() {
+    assertThrows(IllegalArgumentException.class, () -> new PromptPool().canonicalize(null));
+  }
+}
@@ -0,0 +1,179 @@
+package questionnaire;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for QuestionnaireCodec.
+ * Tests that questionnaires survive a round trip through the binary format
+ * with identifiers, types, required flags, prompts and answers intact, and
+ * that malformed input is rejected.
+ */
+public class QuestionnaireCodecTest {
+  private QuestionnaireImpl questionnaire;
+
+  /**
+   * Sets up a questionnaire with every question type, answered in various spellings.
+   */
+  @Before
+  public void setUp() {
+    questionnaire = new QuestionnaireImpl();
+    questionnaire.addQuestion("likes", new YesNo("Do you like it?", true));
+    questionnaire.addQuestion("again", new YesNo("Would you use it again?", false));
+    questionnaire.addQuestion("easy", new Likert("It is easy to use.", true));
+    questionnaire.addQuestion("fast", new Likert("It is fast.", false));
+    questionnaire.addQuestion("why", new ShortAnswer("Why?", false));
+    questionnaire.addQuestion("why not", new ShortAnswer("Why?", true));
+    questionnaire.getQuestion("likes").answer("Yes");
+    questionnaire.getQuestion("again").answer("nO");
+    questionnaire.getQuestion("easy").answer("STRONGLY AGREE");
+    questionnaire.getQuestion("fast").answer("dIsAgReE");
+    questionnaire.getQuestion("why").answer("Caf\u00e9 \u2615 reasons.");
+  }
+
+  private static QuestionnaireImpl roundTrip(QuestionnaireImpl questionnaire) {
+    return QuestionnaireCodec.decode(ByteBuffer.wrap(QuestionnaireCodec.encode(questionnaire)));
+  }
+
+  private static void assertSameContents(QuestionnaireImpl expected, QuestionnaireImpl actual) {
+    assertEquals(expected.getIdentifiers(), actual.getIdentifiers());
+    for (String identifier : expected.getIdentifiers()) {
+      Question want = expected.getQuestion(identifier);
+      Question got = actual.getQuestion(identifier);
+      assertEquals(want.getClass(), got.getClass());
+      assertEquals(want.getPrompt(), got.getPrompt());
+      assertEquals(want.isRequired(), got.isRequired());
+      assertEquals(want.getAnswer(), got.getAnswer());
+    }
+    assertEquals(expected.isComplete(), actual.isComplete());
+  }
+
+  /**
+   * Tests that everything survives a round trip, including unusual spellings and
+   * non-ASCII text.
+   */
+  @Test
+  public void testRoundTrip() {
+    QuestionnaireImpl decoded = roundTrip(questionnaire);
+    assertSameContents(questionnaire, decoded);
+    assertEquals(questionnaire.toString(), decoded.toString());
+    assertEquals(LikertResponseOption.DISAGREE, ((Likert) decoded.getQuestion("fast")).getOption());
+  }
+
+  /**
+   * Tests an empty questionnaire and one whose order differs from insertion order.
+   */
+  @Test
+  public void testRoundTripEmptyAndSorted() {
+    assertEquals(0, roundTrip(new QuestionnaireImpl()).getIdentifiers().size());
+
+    questionnaire.removeQuestion("again");
+    questionnaire.sort((a, b) -> a.getPrompt().compareTo(b.getPrompt()));
+    assertSameContents(questionnaire, roundTrip(questionnaire));
+  }
+
+  /**
+   * Tests that usual spellings are stored as a code and decode to the shared string.
+   */
+  @Test
+  public void testUsualSpellingsAreShared() {
+    QuestionnaireImpl decoded = roundTrip(questionnaire);
+    assertSame(YesNo.YES_SPELLINGS[1], decoded.getQuestion("likes").getAnswer());
+    assertSame(LikertResponseOption.STRONGLY_AGREE.getSpellings()[2],
+            decoded.getQuestion("easy").getAnswer());
+  }
+
+  /**
+   * Tests that repeated text is stored once, so a large questionnaire of similar
+   * questions encodes to little more than its identifiers.
+   */
+  @Test
+  public void testRepeatedTextIsStoredOnce() {
+    QuestionnaireImpl large = new QuestionnaireImpl();
+    for (int i = 0; i < 1000; i++) {
+      Likert question = new Likert("How much do you agree with this long statement?", true);
+      question.answer("Agree");
+      large.addQuestion("q" + i, question);
+    }
+    byte[] encoded = QuestionnaireCodec.encode(large);
+    // flags, identifier length and text, prompt reference, answer code
+    assertTrue(encoded.length < 1000 * 9);
+    assertSameContents(large, QuestionnaireCodec.decode(ByteBuffer.wrap(encoded)));
+  }
+
+  /**
+   * Tests decoding from a direct buffer and from the middle of a larger array,
+   * leaving the position just after the questionnaire.
+   */
+  @Test
+  public void testDecodeFromAnyBuffer() {
+    byte[] encoded = QuestionnaireCodec.encode(questionnaire);
+
+    ByteBuffer direct = ByteBuffer.allocateDirect(encoded.length + 3);
+    direct.put(encoded).put(new byte[] {1, 2, 3}).flip();
+    assertSameContents(questionnaire, QuestionnaireCodec.decode(direct));
+    assertEquals(encoded.length, direct.position());
+
+    byte[] padded = new byte[encoded.length + 10];
+    System.arraycopy(encoded, 0, padded, 7, encoded.length);
+    ByteBuffer slice = ByteBuffer.wrap(padded, 7, encoded.length).slice();
+    assertSameContents(questionnaire, QuestionnaireCodec.decode(slice));
+  }
+
+  /**
+   * Tests that unsupported questions and null arguments are rejected.
+   */
+  @Test
+  public void testRejectsInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> QuestionnaireCodec.encode(null));
+    assertThrows(IllegalArgumentException.class, () -> QuestionnaireCodec.decode(null));
+
+    questionnaire.addQuestion("custom", new AbstractQuestion("Custom?", false) {
+      @Override
+      protected void validateResponse(String response) {
+      }
+
+      @Override
+      public Question copy() {
+        return this;
+      }
+    });
+    assertThrows(IllegalArgumentException.class, () -> QuestionnaireCodec.encode(questionnaire));
+  }
+
+  /**
+   * Tests that wrong magic, wrong version, truncation and corruption are all rejected.
+   */
+  @Test
+  public void testRejectsMalformedInput() {
+    byte[] encoded = QuestionnaireCodec.encode(questionnaire);
+
+    byte[] badMagic = encoded.clone();
+    badMagic[0] = 'X';
+    assertThrows(IllegalArgumentException.class,
+        () -> QuestionnaireCodec.decode(ByteBuffer.wrap(badMagic)));
+
+    byte[] badVersion = encoded.clone();
+    badVersion[4] = 99;
+    assertThrows(IllegalArgumentException.class,
+        () -> QuestionnaireCodec.decode(ByteBuffer.wrap(badVersion)));
+
+    for (int length = 0; length < encoded.length; length++) {
+      byte[] truncated = Arrays.copyOf(encoded, length);
+      assertThrows(IllegalArgumentException.class,
+          () -> QuestionnaireCodec.decode(ByteBuffer.wrap(truncated)));
+    }
+
+    byte[] badFlags = encoded.clone();
+    badFlags[6] = (byte) 0x80;
+    assertThrows(IllegalArgumentException.class,
+        () -> QuestionnaireCodec.decode(ByteBuffer.wrap(badFlags)));
+  }
+}
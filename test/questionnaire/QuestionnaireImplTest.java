@@ -3,8 +3,23 @@ package questionnaire;
 import org.junit.Test;
 import org.junit.Before;
 import static org.junit.Assert.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 public class QuestionnaireImplTest {
   private QuestionnaireImpl questionnaire;
@@ -64,6 +79,43 @@ public class QuestionnaireImplTest {
     assertThrows(IndexOutOfBoundsException.class, () -> questionnaire.getQuestion(3));
   }
 
+  @Test
+  public void testRemoveManyQuestionsKeepsOrder() {
+    for (int i = 0; i < 100; i++) {
+      questionnaire.addQuestion("q" + i, new ShortAnswer("Prompt " + i + "?", false));
+    }
+    // remove every question whose number is not a multiple of 3
+    for (int i = 0; i < 100; i++) {
+      if (i % 3 != 0) {
+        questionnaire.removeQuestion("q" + i);
+      }
+    }
+
+    for (int i = 0; i < 34; i++) {
+      assertEquals("Prompt " + (i * 3) + "?", questionnaire.getQuestion(i + 1).getPrompt());
+      assertEquals("Prompt " + (i * 3) + "?",
+              questionnaire.getQuestion("q" + (i * 3)).getPrompt());
+    }
+    assertThrows(IndexOutOfBoundsException.class, () -> questionnaire.getQuestion(35));
+
+    // questions added after removals go to the end
+    questionnaire.addQuestion("last", yesNo);
+    assertEquals(yesNo, questionnaire.getQuestion(35));
+    assertEquals(yesNo, questionnaire.getQuestion("last"));
+  }
+
+  @Test
+  public void testRemoveThenReAddIdentifier() {
+    questionnaire.addQuestion("q1", yesNo);
+    questionnaire.addQuestion("q2", shortAnswer);
+    questionnaire.removeQuestion("q1");
+    questionnaire.addQuestion("q1", likert);
+
+    assertEquals(shortAnswer, questionnaire.getQuestion(1));
+    assertEquals(likert, questionnaire.getQuestion(2));
+    assertEquals(likert, questionnaire.getQuestion("q1"));
+  }
+
   @Test(expected = NoSuchElementException.class)
   public void testRemoveNonexistentQuestion() {
     questionnaire.removeQuestion("nonexistent");
@@ -137,6 +189,168 @@ public class QuestionnaireImplTest {
     assertTrue(questionnaire.isComplete());
   }
 
+  @Test
+  public void testIsCompleteAfterRemovingUnanswered() {
+    questionnaire.addQuestion("q1", yesNo);
+    questionnaire.addQuestion("q3", likert);
+    yesNo.answer("yes");
+    assertFalse(questionnaire.isComplete());
+
+    questionnaire.removeQuestion("q3");
+    assertTrue(questionnaire.isComplete());
+
+    // answering a removed question no longer affects this questionnaire
+    questionnaire.addQuestion("q4", new Likert("Question 4?", true));
+    likert.answer("Agree");
+    assertFalse(questionnaire.isComplete());
+  }
+
+  @Test
+  public void testIsCompleteWithAnsweredQuestionAdded() {
+    yesNo.answer("no");
+    questionnaire.addQuestion("q1", yesNo);
+    assertTrue(questionnaire.isComplete());
+
+    // an empty short answer does not count as a response
+    ShortAnswer requiredText = new ShortAnswer("Question 5?", true);
+    questionnaire.addQuestion("q5", requiredText);
+    requiredText.answer("");
+    assertFalse(questionnaire.isComplete());
+    requiredText.answer("something");
+    assertTrue(questionnaire.isComplete());
+    requiredText.answer("");
+    assertFalse(questionnaire.isComplete());
+  }
+
+  @Test
+  public void testIsCompleteSharedQuestion() {
+    QuestionnaireImpl other = new QuestionnaireImpl();
+    questionnaire.addQuestion("q1", yesNo);
+    other.addQuestion("a", yesNo);
+    other.addQuestion("b", yesNo);
+
+    yesNo.answer("yes");
+    assertTrue(questionnaire.isComplete());
+    assertTrue(other.isComplete());
+
+    other.removeQuestion("a");
+    assertTrue(other.isComplete());
+  }
+
+  @Test
+  public void testPartitionsFollowChanges() {
+    List<Question> required = questionnaire.getRequiredQuestions();
+    List<Question> optional = questionnaire.getOptionalQuestions();
+    questionnaire.addQuestion("q1", yesNo);
+    questionnaire.addQuestion("q2", shortAnswer);
+    questionnaire.addQuestion("q3", likert);
+
+    assertEquals(List.of(yesNo, likert), required);
+    assertEquals(List.of(shortAnswer), optional);
+
+    questionnaire.removeQuestion("q1");
+    questionnaire.sort(Comparator.comparing(Question::getPrompt).reversed());
+    assertEquals(List.of(likert), required);
+    assertEquals(likert, required.get(0));
+    assertEquals(List.of(shortAnswer), optional);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testPartitionsAreReadOnly() {
+    questionnaire.addQuestion("q1", yesNo);
+    questionnaire.getRequiredQuestions().remove(0);
+  }
+
+  @Test
+  public void testResponsesFollowChanges() {
+    List<String> responses = questionnaire.getResponses();
+    questionnaire.addQuestion("q1", yesNo);
+    questionnaire.addQuestion("q2", shortAnswer);
+    questionnaire.addQuestion("q3", likert);
+    assertEquals(List.of("", "", ""), responses);
+
+    yesNo.answer("Yes");
+    likert.answer("Agree");
+    assertEquals(List.of("Yes", "", "Agree"), responses);
+
+    // a removed slot is skipped before and after compaction
+    questionnaire.removeQuestion("q2");
+    assertEquals(List.of("Yes", "Agree"), responses);
+    questionnaire.sort(Comparator.comparing(Question::getPrompt).reversed());
+    assertEquals(List.of("Agree", "Yes"), responses);
+    assertThrows(IndexOutOfBoundsException.class, () -> responses.get(2));
+    assertThrows(UnsupportedOperationException.class, () -> responses.set(0, "No"));
+  }
+
+  @Test
+  public void testStreams() {
+    questionnaire.addQuestion("q1", yesNo);
+    questionnaire.addQuestion("q2", shortAnswer);
+    questionnaire.addQuestion("q3", likert);
+    shortAnswer.answer("Fine");
+
+    assertEquals(List.of(yesNo, likert),
+            questionnaire.requiredQuestions().collect(Collectors.toList()));
+    assertEquals(List.of(shortAnswer),
+            questionnaire.optionalQuestions().collect(Collectors.toList()));
+    assertEquals(List.of("", "Fine", ""), questionnaire.responses().collect(Collectors.toList()));
+    assertEquals(0, new QuestionnaireImpl().responses().count());
+  }
+
+  @Test
+  public void testStreamInOrder() {
+    questionnaire.addQuestion("q1", yesNo);
+    questionnaire.addQuestion("q2", shortAnswer);
+    questionnaire.addQuestion("q3", likert);
+    questionnaire.removeQuestion("q2");
+
+    assertEquals(List.of(yesNo, likert), questionnaire.stream().collect(Collectors.toList()));
+    assertEquals(List.of("q1", "q3"),
+            questionnaire.entryStream().map(Map.Entry::getKey).collect(Collectors.toList()));
+    assertEquals(likert, questionnaire.entryStream().skip(1).findFirst().get().getValue());
+  }
+
+  @Test
+  public void testSpliteratorSplitsEvenly() {
+    for (int i = 0; i < 1000; i++) {
+      questionnaire.addQuestion("q" + i, new YesNo("Prompt " + i + "?", false));
+    }
+    Spliterator<Question> second = questionnaire.spliterator();
+    assertTrue(second.hasCharacteristics(
+            Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED));
+    assertEquals(1000, second.getExactSizeIfKnown());
+
+    Spliterator<Question> first = second.trySplit();
+    assertEquals(500, first.getExactSizeIfKnown());
+    assertEquals(500, second.getExactSizeIfKnown());
+    first.tryAdvance(q -> assertEquals("Prompt 0?", q.getPrompt()));
+    second.tryAdvance(q -> assertEquals("Prompt 500?", q.getPrompt()));
+    assertEquals(499, first.estimateSize());
+  }
+
+  @Test
+  public void testParallelStreamMatchesSequential() {
+    for (int i = 0; i < 10000; i++) {
+      questionnaire.addQuestion("q" + i, new ShortAnswer("Prompt " + i + "?", i % 3 == 0));
+    }
+    for (int i = 0; i < 10000; i += 7) {
+      questionnaire.removeQuestion("q" + i);
+    }
+    List<String> sequential = questionnaire.stream().map(Question::getPrompt)
+            .collect(Collectors.toList());
+    assertEquals(sequential, questionnaire.parallelStream().map(Question::getPrompt)
+            .collect(Collectors.toList()));
+    assertEquals(questionnaire.getRequiredQuestions().size(),
+            questionnaire.parallelStream().filter(Question::isRequired).count());
+    assertEquals(sequential.size(), questionnaire.entryStream().parallel()
+            .filter(e -> e.getValue() == questionnaire.getQuestion(e.getKey())).count());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddNullQuestion() {
+    questionnaire.addQuestion("q1", null);
+  }
+
   // Filter tests
   @Test
   public void testFilter() {
@@ -148,6 +362,54 @@ public class QuestionnaireImplTest {
     assertEquals(yesNo.getPrompt(), filtered.getQuestion(1).getPrompt());
   }
 
+  @Test
+  public void testFilterKeepsOrder() {
+    for (int i = 0; i < 50; i++) {
+      questionnaire.addQuestion("q" + i, new YesNo("Prompt " + i + "?", i % 2 == 0));
+    }
+
+    Questionnaire filtered = questionnaire.filter(Question::isRequired);
+
+    for (int i = 0; i < 25; i++) {
+      assertEquals("Prompt " + (i * 2) + "?", filtered.getQuestion(i + 1).getPrompt());
+      assertEquals("Prompt " + (i * 2) + "?", filtered.getQuestion("q" + (i * 2)).getPrompt());
+    }
+    assertThrows(IndexOutOfBoundsException.class, () -> filtered.getQuestion(26));
+  }
+
+  @Test
+  public void testFilterReturnsCopies() {
+    questionnaire.addQuestion("q1", yesNo);
+    yesNo.answer("yes");
+
+    Questionnaire filtered = questionnaire.filter(q -> true);
+    Question copy = filtered.getQuestion("q1");
+    assertNotSame(yesNo, copy);
+    assertEquals("yes", copy.getAnswer());
+
+    // the copy and the original are answered independently
+    copy.answer("no");
+    assertEquals("yes", yesNo.getAnswer());
+    yesNo.answer("no");
+    yesNo.answer("yes");
+    assertEquals("no", copy.getAnswer());
+  }
+
+  @Test
+  public void testFilterLargeQuestionnaire() {
+    int size = 10000;
+    for (int i = 0; i < size; i++) {
+      questionnaire.addQuestion("q" + i, new ShortAnswer("Prompt " + i + "?", false));
+    }
+
+    Questionnaire filtered = questionnaire.filter(q -> q.getPrompt().endsWith("7?"));
+
+    for (int i = 0; i < size / 10; i++) {
+      assertEquals("Prompt " + (i * 10 + 7) + "?", filtered.getQuestion(i + 1).getPrompt());
+    }
+    assertThrows(IndexOutOfBoundsException.class, () -> filtered.getQuestion(size / 10 + 1));
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testFilterNull() {
     questionnaire.filter(null);
@@ -167,11 +429,175 @@ public class QuestionnaireImplTest {
     assertEquals("Z question?", questionnaire.getQuestion(3).getPrompt());
   }
 
+  @Test
+  public void testSortKeepsIdentifiers() {
+    YesNo z = new YesNo("Z question?", true);
+    YesNo a = new YesNo("A question?", true);
+    YesNo m = new YesNo("M question?", true);
+    questionnaire.addQuestion("z", z);
+    questionnaire.addQuestion("a", a);
+    questionnaire.addQuestion("m", m);
+
+    questionnaire.sort((q1, q2) -> q1.getPrompt().compareTo(q2.getPrompt()));
+
+    assertEquals(z, questionnaire.getQuestion("z"));
+    assertEquals(a, questionnaire.getQuestion("a"));
+    assertEquals(m, questionnaire.getQuestion("m"));
+
+    // removing after a sort takes out the right question
+    questionnaire.removeQuestion("a");
+    assertEquals(m, questionnaire.getQuestion(1));
+    assertEquals(z, questionnaire.getQuestion(2));
+  }
+
+  @Test
+  public void testSortIsStable() {
+    questionnaire.addQuestion("q1", new ShortAnswer("B first?", false));
+    questionnaire.addQuestion("q2", new ShortAnswer("A first?", false));
+    questionnaire.addQuestion("q3", new ShortAnswer("B second?", false));
+    questionnaire.addQuestion("q4", new ShortAnswer("A second?", false));
+
+    questionnaire.sort(Comparator.comparing(q -> q.getPrompt().charAt(0)));
+
+    assertEquals("A first?", questionnaire.getQuestion(1).getPrompt());
+    assertEquals("A second?", questionnaire.getQuestion(2).getPrompt());
+    assertEquals("B first?", questionnaire.getQuestion(3).getPrompt());
+    assertEquals("B second?", questionnaire.getQuestion(4).getPrompt());
+  }
+
+  @Test
+  public void testParallelSort() {
+    int size = 20000;
+    for (int i = 0; i < size; i++) {
+      // insert in descending order of the sort key
+      questionnaire.addQuestion("q" + i, new ShortAnswer(String.format("%05d?", size - i), false));
+    }
+
+    questionnaire.parallelSort(Comparator.comparing(Question::getPrompt));
+
+    for (int i = 1; i <= size; i++) {
+      assertEquals(String.format("%05d?", i), questionnaire.getQuestion(i).getPrompt());
+    }
+    assertEquals(String.format("%05d?", size), questionnaire.getQuestion("q0").getPrompt());
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testSortNull() {
     questionnaire.sort(null);
   }
 
+  @Test(expected = IllegalArgumentException.class)
+  public void testParallelSortNull() {
+    questionnaire.parallelSort(null);
+  }
+
+  // Fold tests
+  @Test
+  public void testFoldInOrder() {
+    questionnaire.addQuestion("q1", yesNo);
+    questionnaire.addQuestion("q2", shortAnswer);
+    questionnaire.addQuestion("q3", likert);
+
+    String prompts = questionnaire.fold((q, acc) -> acc + q.getPrompt(), "");
+    assertEquals("Question 1?Question 2?Question 3?", prompts);
+  }
+
+  @Test
+  public void testFoldWithCombiner() {
+    int size = 10000;
+    int expected = 0;
+    for (int i = 0; i < size; i++) {
+      ShortAnswer q = new ShortAnswer("Prompt " + i + "?", i % 3 == 0);
+      questionnaire.addQuestion("q" + i, q);
+      expected += q.getPrompt().length();
+    }
+
+    int total = questionnaire.fold((q, acc) -> acc + q.getPrompt().length(), Integer::sum, 0);
+    assertEquals(expected, total);
+    assertEquals(expected, (int) questionnaire.fold((q, acc) -> acc + q.getPrompt().length(), 0));
+  }
+
+  @Test
+  public void testCollectKeepsOrder() {
+    for (int i = 0; i < 10000; i++) {
+      questionnaire.addQuestion("q" + i, new ShortAnswer("Prompt " + i + "?", false));
+    }
+    questionnaire.removeQuestion("q0");
+
+    List<String> prompts = questionnaire.collect(
+            Collectors.mapping(Question::getPrompt, Collectors.toList()));
+    assertEquals(9999, prompts.size());
+    for (int i = 1; i < 10000; i++) {
+      assertEquals("Prompt " + i + "?", prompts.get(i - 1));
+    }
+  }
+
+  @Test
+  public void testDefaultCollect() {
+    QuestionnaireImpl impl = questionnaire;
+    // a questionnaire relying only on the interface's default collect
+    Questionnaire plain = new Questionnaire() {
+      public void addQuestion(String identifier, Question q) {
+        impl.addQuestion(identifier, q);
+      }
+
+      public void removeQuestion(String identifier) {
+        impl.removeQuestion(identifier);
+      }
+
+      public Question getQuestion(int num) {
+        return impl.getQuestion(num);
+      }
+
+      public Question getQuestion(String identifier) {
+        return impl.getQuestion(identifier);
+      }
+
+      public List<Question> getRequiredQuestions() {
+        return impl.getRequiredQuestions();
+      }
+
+      public List<Question> getOptionalQuestions() {
+        return impl.getOptionalQuestions();
+      }
+
+      public boolean isComplete() {
+        return impl.isComplete();
+      }
+
+      public List<String> getResponses() {
+        return impl.getResponses();
+      }
+
+      public Questionnaire filter(Predicate<Question> pq) {
+        return impl.filter(pq);
+      }
+
+      public void sort(Comparator<Question> comp) {
+        impl.sort(comp);
+      }
+
+      public <R> R fold(BiFunction<Question, R, R> bf, R seed) {
+        return impl.fold(bf, seed);
+      }
+    };
+    plain.addQuestion("q1", yesNo);
+    plain.addQuestion("q2", shortAnswer);
+
+    assertEquals(List.of(yesNo, shortAnswer), plain.collect(Collectors.toList()));
+    assertEquals(2, (int) plain.fold((q, acc) -> acc + 1, Integer::sum, 0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFoldNullCombiner() {
+    questionnaire.fold((q, acc) -> acc, null, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCollectNull() {
+    questionnaire.collect(null);
+  }
+
   // ToString tests
   @Test
   public void testToStringEmpty() {
@@ -198,4 +624,172 @@ public class QuestionnaireImplTest {
             + "Question: Question 2?\n\nAnswer: test";
     assertEquals(expected, questionnaire.toString());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testWriteToMatchesToString() throws IOException {
+    questionnaire.addQuestion("q1", yesNo);
+    questionnaire.addQuestion("q2", shortAnswer);
+    questionnaire.addQuestion("q3", likert);
+    yesNo.answer("yes");
+    shortAnswer.answer("caf\u00e9 \ud83d\ude00");
+    questionnaire.removeQuestion("q3");
+
+    StringBuilder out = new StringBuilder();
+    questionnaire.writeTo(out);
+    assertEquals(questionnaire.toString(), out.toString());
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    questionnaire.writeTo(Channels.newChannel(bytes));
+    assertEquals(questionnaire.toString(), bytes.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testWriteToLargeChannel() throws IOException {
+    for (int i = 0; i < 5000; i++) {
+      questionnaire.addQuestion("q" + i, new ShortAnswer("Prompt " + i + "?", false));
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    questionnaire.writeTo(Channels.newChannel(bytes));
+    assertEquals(questionnaire.toString(), bytes.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testWriteToEmpty() throws IOException {
+    StringBuilder out = new StringBuilder();
+    questionnaire.writeTo(out);
+    assertEquals("", out.toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWriteToNull() throws IOException {
+    questionnaire.writeTo((Appendable) null);
+  }
+
+  // Batch tests
+  @Test
+  public void testAddAll() {
+    questionnaire.addQuestion("q1", yesNo);
+    Map<String, Question> batch = new LinkedHashMap<>();
+    batch.put("q2", shortAnswer);
+    batch.put("q3", likert);
+    questionnaire.addAll(batch);
+
+    assertEquals(shortAnswer, questionnaire.getQuestion(2));
+    assertEquals(likert, questionnaire.getQuestion("q3"));
+    assertEquals(2, questionnaire.getRequiredQuestions().size());
+    assertFalse(questionnaire.isComplete());
+  }
+
+  @Test
+  public void testAddAllIsAllOrNothing() {
+    questionnaire.addQuestion("q1", yesNo);
+    Map<String, Question> batch = new LinkedHashMap<>();
+    batch.put("q2", shortAnswer);
+    batch.put("q1", likert);
+    assertThrows(IllegalArgumentException.class, () -> questionnaire.addAll(batch));
+
+    batch.remove("q1");
+    batch.put("", likert);
+    assertThrows(IllegalArgumentException.class, () -> questionnaire.addAll(batch));
+
+    batch.remove("");
+    batch.put("q3", null);
+    assertThrows(IllegalArgumentException.class, () -> questionnaire.addAll(batch));
+    assertThrows(IllegalArgumentException.class, () -> questionnaire.addAll(null));
+
+    assertThrows(NoSuchElementException.class, () -> questionnaire.getQuestion("q2"));
+    assertThrows(IndexOutOfBoundsException.class, () -> questionnaire.getQuestion(2));
+  }
+
+  @Test
+  public void testRemoveAll() {
+    for (int i = 0; i < 100; i++) {
+      questionnaire.addQuestion("q" + i, new YesNo("Prompt " + i + "?", i % 2 == 0));
+    }
+    List<String> removed = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      if (i % 3 != 0) {
+        removed.add("q" + i);
+      }
+    }
+    // a repeated identifier is removed once
+    removed.add("q1");
+    questionnaire.removeAll(removed);
+
+    for (int n = 1; n <= 34; n++) {
+      assertEquals("Prompt " + (n - 1) * 3 + "?", questionnaire.getQuestion(n).getPrompt());
+    }
+    assertThrows(IndexOutOfBoundsException.class, () -> questionnaire.getQuestion(35));
+    assertEquals(17, questionnaire.getRequiredQuestions().size());
+    assertEquals(17, questionnaire.getOptionalQuestions().size());
+  }
+
+  @Test
+  public void testRemoveAllIsAllOrNothing() {
+    questionnaire.addQuestion("q1", yesNo);
+    questionnaire.addQuestion("q2", shortAnswer);
+    assertThrows(NoSuchElementException.class,
+        () -> questionnaire.removeAll(Arrays.asList("q1", "missing")));
+    assertThrows(IllegalArgumentException.class, () -> questionnaire.removeAll(null));
+    assertEquals(yesNo, questionnaire.getQuestion("q1"));
+    assertEquals(shortAnswer, questionnaire.getQuestion(2));
+  }
+
+  @Test
+  public void testAnswerAll() {
+    questionnaire.addQuestion("q1", yesNo);
+    questionnaire.addQuestion("q2", shortAnswer);
+    questionnaire.addQuestion("q3", likert);
+    Map<String, String> responses = new HashMap<>();
+    responses.put("q1", "Yes");
+    responses.put("q3", "Agree");
+    questionnaire.answerAll(responses);
+
+    assertEquals("Yes", yesNo.getAnswer());
+    assertEquals("Agree", likert.getAnswer());
+    assertEquals("", shortAnswer.getAnswer());
+    assertTrue(questionnaire.isComplete());
+  }
+
+  @Test
+  public void testAnswerAllIsAllOrNothing() {
+    questionnaire.addQuestion("q1", yesNo);
+    questionnaire.addQuestion("q3", likert);
+    Map<String, String> responses = new LinkedHashMap<>();
+    responses.put("q1", "Yes");
+    responses.put("q3", "Maybe");
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> questionnaire.answerAll(responses));
+    assertEquals("q3: Invalid Likert answer", e.getMessage());
+
+    responses.put("q3", "Agree");
+    responses.put("missing", "Yes");
+    assertThrows(NoSuchElementException.class, () -> questionnaire.answerAll(responses));
+    assertThrows(IllegalArgumentException.class, () -> questionnaire.answerAll(null));
+
+    assertEquals("", yesNo.getAnswer());
+    assertEquals("", likert.getAnswer());
+  }
+
+  @Test
+  public void testSharedQuestionDoesNotKeepQuestionnairesAlive() throws InterruptedException {
+    List<WeakReference<QuestionnaireImpl>> dropped = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      QuestionnaireImpl shortLived = new QuestionnaireImpl();
+      shortLived.addQuestion("q1", yesNo);
+      dropped.add(new WeakReference<>(shortLived));
+    }
+    questionnaire.addQuestion("q1", yesNo);
+    for (int i = 0; i < 100 && dropped.stream().anyMatch(r -> r.get() != null); i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertTrue(dropped.stream().allMatch(r -> r.get() == null));
+
+    // the questionnaire still alive still follows the question
+    assertFalse(questionnaire.isComplete());
+    yesNo.answer("Yes");
+    assertTrue(questionnaire.isComplete());
+  }
+}
@@ -0,0 +1,178 @@
+package questionnaire;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for QuestionnaireTemplate.
+ * Covers making instances from a template, answering them independently of
+ * each other and of the source questionnaire, and turning them back into
+ * ordinary questionnaires.
+ */
+public class QuestionnaireTemplateTest {
+  private QuestionnaireImpl source;
+  private QuestionnaireTemplate template;
+
+  /**
+   * Sets up a template with a question of each type.
+   */
+  @Before
+  public void setUp() {
+    source = new QuestionnaireImpl();
+    source.addQuestion("student", new YesNo("Are you a student?", true));
+    source.addQuestion("course", new Likert("The course was well taught.", true));
+    source.addQuestion("comments", new ShortAnswer("Any comments?", false));
+    template = QuestionnaireTemplate.from(source);
+  }
+
+  @Test
+  public void testNewInstance() {
+    QuestionnaireTemplate.Instance instance = template.newInstance();
+    assertEquals(3, template.size());
+    assertSame(template, instance.getTemplate());
+    assertEquals("Are you a student?", instance.getQuestion(1).getPrompt());
+    assertTrue(instance.getQuestion("course").isRequired());
+    assertEquals(List.of("", "", ""), instance.getResponses());
+    assertFalse(instance.isComplete());
+    assertEquals(source.toString(), instance.toString());
+  }
+
+  @Test
+  public void testAnswering() {
+    QuestionnaireTemplate.Instance instance = template.newInstance();
+    instance.answer("student", "YES");
+    assertFalse(instance.isComplete());
+    instance.getQuestion("course").answer("agree");
+    instance.getQuestion(3).answer("Great");
+
+    assertEquals("YES", instance.getAnswer("student"));
+    assertEquals("agree", instance.getQuestion(2).getAnswer());
+    assertEquals(List.of("YES", "agree", "Great"), instance.getResponses());
+    assertTrue(instance.isComplete());
+  }
+
+  @Test
+  public void testInstancesAreIndependent() {
+    QuestionnaireTemplate.Instance first = template.newInstance();
+    QuestionnaireTemplate.Instance second = template.newInstance();
+    first.answer("student", "yes");
+    source.getQuestion("student").answer("no");
+
+    assertEquals("yes", first.getAnswer("student"));
+    assertEquals("", second.getAnswer("student"));
+    assertEquals("", template.newInstance().getAnswer("student"));
+  }
+
+  @Test
+  public void testStartingAnswersComeFromSource() {
+    source.getQuestion("student").answer("no");
+    source.getQuestion("course").answer("Agree");
+    QuestionnaireTemplate.Instance instance = QuestionnaireTemplate.from(source).newInstance();
+
+    assertEquals("no", instance.getAnswer("student"));
+    assertTrue(instance.isComplete());
+    instance.answer("comments", "");
+    instance.answer("student", "yes");
+    assertEquals(List.of("yes", "Agree", ""), instance.getResponses());
+  }
+
+  @Test
+  public void testInvalidAnswersAreRejected() {
+    QuestionnaireTemplate.Instance instance = template.newInstance();
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> instance.answer("course", "Maybe"));
+    assertEquals("Invalid Likert answer", e.getMessage());
+    assertThrows(IllegalArgumentException.class, () -> instance.answer("student", null));
+    assertEquals(ValidationResult.NOT_YES_NO, instance.getQuestion(1).tryAnswer("maybe"));
+    assertThrows(NoSuchElementException.class, () -> instance.answer("missing", "yes"));
+    assertEquals(List.of("", "", ""), instance.getResponses());
+  }
+
+  @Test
+  public void testPartitions() {
+    QuestionnaireTemplate.Instance instance = template.newInstance();
+    instance.answer("comments", "Fine");
+    List<Question> required = instance.getRequiredQuestions();
+    assertEquals(2, required.size());
+    assertEquals("The course was well taught.", required.get(1).getPrompt());
+    assertEquals("Fine", instance.getOptionalQuestions().get(0).getAnswer());
+    assertThrows(UnsupportedOperationException.class, () -> required.remove(0));
+  }
+
+  @Test
+  public void testToQuestionnaireAndFilterCopy() {
+    QuestionnaireTemplate.Instance instance = template.newInstance();
+    instance.answer("student", "yes");
+    QuestionnaireImpl copy = instance.toQuestionnaire();
+    assertEquals(instance.toString(), copy.toString());
+    assertTrue(copy.getQuestion("student") instanceof YesNo);
+
+    copy.getQuestion("student").answer("no");
+    assertEquals("yes", instance.getAnswer("student"));
+
+    Questionnaire required = instance.filter(Question::isRequired);
+    assertEquals("yes", required.getQuestion("student").getAnswer());
+    assertThrows(NoSuchElementException.class, () -> required.getQuestion("comments"));
+  }
+
+  @Test
+  public void testOneViewPerQuestion() {
+    QuestionnaireTemplate.Instance instance = template.newInstance();
+    Question student = instance.getQuestion("student");
+    assertSame(student, instance.getQuestion("student"));
+    assertSame(student, instance.getQuestion(1));
+    assertSame(student, instance.getRequiredQuestions().get(0));
+    assertSame(student, instance.fold((q, first) -> first == null ? q : first, null));
+    assertEquals(1, Map.of(student, 1).get(instance.getQuestion(1)).intValue());
+
+    // views are not of the definition's type, but their copies are
+    assertFalse(student instanceof YesNo);
+    assertTrue(student.copy() instanceof YesNo);
+    assertNotSame(instance.getQuestion(1), template.newInstance().getQuestion(1));
+  }
+
+  @Test
+  public void testFoldAndAnswerAll() {
+    QuestionnaireTemplate.Instance instance = template.newInstance();
+    instance.answerAll(Map.of("student", "no", "course", "Disagree"));
+    assertTrue(instance.isComplete());
+    int answered = instance.fold((q, n) -> q.getAnswer().isEmpty() ? n : n + 1, 0);
+    assertEquals(2, answered);
+  }
+
+  @Test
+  public void testShapeIsFixed() {
+    QuestionnaireTemplate.Instance instance = template.newInstance();
+    assertThrows(UnsupportedOperationException.class,
+        () -> instance.addQuestion("x", new YesNo("X?", true)));
+    assertThrows(UnsupportedOperationException.class, () -> instance.removeQuestion("student"));
+    assertThrows(UnsupportedOperationException.class,
+        () -> instance.sort(Comparator.comparing(Question::getPrompt)));
+    assertThrows(UnsupportedOperationException.class,
+        () -> instance.addAll(Map.of("x", new YesNo("X?", true))));
+    assertThrows(UnsupportedOperationException.class,
+        () -> instance.removeAll(List.of("student")));
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> QuestionnaireTemplate.from(null));
+    QuestionnaireTemplate.Instance instance = template.newInstance();
+    assertThrows(IndexOutOfBoundsException.class, () -> instance.getQuestion(0));
+    assertThrows(IndexOutOfBoundsException.class, () -> instance.getQuestion(4));
+    assertThrows(NoSuchElementException.class, () -> instance.getQuestion(null));
+    assertThrows(IllegalArgumentException.class, () -> instance.filter(null));
+    assertThrows(IllegalArgumentException.class, () -> instance.fold(null, 0));
+  }
+}
@@ -0,0 +1,286 @@
+package questionnaire;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for ResponseImporter.
+ * Tests that CSV and NDJSON exports load into a store in input order, and
+ * that bad records and answers are reported with their line numbers while
+ * the rest of the input still loads.
+ */
+public class ResponseImporterTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ResponseStore store;
+  private ResponseImporter importer;
+
+  /**
+   * Sets up an empty store with one question of each type.
+   */
+  @Before
+  public void setUp() {
+    QuestionnaireImpl schema = new QuestionnaireImpl();
+    schema.addQuestion("likes", new YesNo("Do you like it?", true));
+    schema.addQuestion("easy", new Likert("It is easy to use.", true));
+    schema.addQuestion("why", new ShortAnswer("Why?", false));
+    store = new ResponseStore(schema);
+    importer = new ResponseImporter(store);
+  }
+
+  /**
+   * Tests a clean CSV import, including quoted fields and columns in another order.
+   */
+  @Test
+  public void testImportCsv() throws IOException {
+    String csv = "why,likes,easy\n"
+            + "\"Fast, and \"\"simple\"\".\",yes,Agree\n"
+            + "\n"
+            + ",NO,strongly disagree\n"
+            + "\"Two\nlines\",,\n";
+    ImportReport report = importer.importCsv(new StringReader(csv));
+
+    assertTrue(report.isClean());
+    assertEquals(0, report.getFirstRespondent());
+    assertEquals(3, report.getRespondents());
+    assertEquals(3, store.size());
+    assertEquals("Fast, and \"simple\".", store.getAnswer(0, "why"));
+    assertEquals("yes", store.getAnswer(0, "likes"));
+    assertEquals("Agree", store.getAnswer(0, "easy"));
+    assertEquals("", store.getAnswer(1, "why"));
+    assertEquals("no", store.getAnswer(1, "likes"));
+    assertEquals("Strongly Disagree", store.getAnswer(1, "easy"));
+    assertEquals("Two\nlines", store.getAnswer(2, "why"));
+    assertEquals("", store.getAnswer(2, "likes"));
+  }
+
+  /**
+   * Tests that bad answers are reported and left out while the rest of the record loads,
+   * and that unreadable records are skipped, each with the line it starts on.
+   */
+  @Test
+  public void testCsvErrorsAreReported() throws IOException {
+    String csv = "likes,easy,why,extra\n"
+            + "maybe,Agree,ok,x\n"
+            + "yes,Kind of,\"multi\nline\",\n"
+            + "yes,Agree\n"
+            + "no,Neutral,\"" + "x".repeat(281) + "\",\n"
+            + "\"open,Agree,,\n";
+    ImportReport report = importer.importCsv(new StringReader(csv));
+
+    List<ImportReport.LineError> errors = report.getErrors();
+    assertFalse(report.isClean());
+    assertEquals(3, report.getRespondents());
+    assertEquals("line 1, extra: No such question; column ignored", errors.get(0).toString());
+    assertEquals(2, errors.get(1).getLine());
+    assertEquals("likes", errors.get(1).getIdentifier());
+    assertEquals("Response must be yes or no", errors.get(1).getMessage());
+    assertEquals(3, errors.get(2).getLine());
+    assertEquals("Invalid Likert answer", errors.get(2).getMessage());
+    assertEquals(5, errors.get(3).getLine());
+    assertNull(errors.get(3).getIdentifier());
+    assertEquals(6, errors.get(4).getLine());
+    assertEquals("Invalid Likert answer", errors.get(4).getMessage());
+    assertEquals("why", errors.get(5).getIdentifier());
+    assertEquals(7, errors.get(6).getLine());
+    assertEquals("Malformed CSV record", errors.get(6).getMessage());
+    assertEquals(7, errors.size());
+
+    assertEquals("", store.getAnswer(0, "likes"));
+    assertEquals("Agree", store.getAnswer(0, "easy"));
+    assertEquals("multi\nline", store.getAnswer(1, "why"));
+    assertEquals("no", store.getAnswer(2, "likes"));
+    assertEquals("", store.getAnswer(2, "why"));
+  }
+
+  /**
+   * Tests that a quote inside an unquoted field is just text, and that a quoted field left
+   * open costs only the record it starts, not the rest of the input.
+   */
+  @Test
+  public void testRunawayQuotesAreBounded() throws IOException {
+    StringBuilder csv = new StringBuilder("why,likes\n")
+            .append("He said \"hi,yes\n")
+            .append("\"never closed,no\n");
+    for (int i = 0; i < ResponseImporter.MAX_RECORD_LINES + 10; i++) {
+      csv.append(i).append(",yes\n");
+    }
+    csv.append("\"").append("x".repeat(ResponseImporter.MAX_RECORD_CHARS)).append("\n")
+            .append("last,no\n");
+    ImportReport report = importer.importCsv(new StringReader(csv.toString()));
+
+    assertEquals(ResponseImporter.MAX_RECORD_LINES + 12, report.getRespondents());
+    assertEquals("He said \"hi", store.getAnswer(0, "why"));
+    assertEquals("yes", store.getAnswer(0, "likes"));
+    assertEquals("0", store.getAnswer(1, "why"));
+    assertEquals("last", store.getAnswer(ResponseImporter.MAX_RECORD_LINES + 11, "why"));
+
+    List<ImportReport.LineError> errors = report.getErrors();
+    assertEquals(2, errors.size());
+    assertEquals(3, errors.get(0).getLine());
+    assertTrue(errors.get(0).getMessage().startsWith("Malformed CSV record: quoted field"));
+    assertEquals(ResponseImporter.MAX_RECORD_LINES + 14, errors.get(1).getLine());
+    assertTrue(errors.get(1).getMessage().startsWith("Record longer than"));
+  }
+
+  /**
+   * Tests that a file's byte order mark is dropped, and that a record holding bytes that
+   * are not valid UTF-8 is reported while the records around it still load.
+   */
+  @Test
+  public void testFileEncodingProblems() throws IOException {
+    byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    byte[] head = "likes,why\nyes,first\nno,bad ".getBytes(StandardCharsets.UTF_8);
+    byte[] bad = {(byte) 0xC3, (byte) 0x28};
+    byte[] tail = "\nyes,caf\u00e9\n".getBytes(StandardCharsets.UTF_8);
+    Path file = folder.newFile("dirty.csv").toPath();
+    Files.write(file, concat(bom, head, bad, tail));
+
+    ImportReport report = importer.importCsv(file);
+    assertEquals(2, report.getRespondents());
+    assertEquals("first", store.getAnswer(0, "why"));
+    assertEquals("caf\u00e9", store.getAnswer(1, "why"));
+    assertEquals(1, report.getErrors().size());
+    assertEquals("line 3: Record is not valid UTF-8", report.getErrors().get(0).toString());
+
+    Path ndjson = folder.newFile("dirty.ndjson").toPath();
+    Files.write(ndjson, concat(bom, "{\"why\":\"ok\"}\n{\"why\":\"".getBytes(
+            StandardCharsets.UTF_8), bad, "\"}\n".getBytes(StandardCharsets.UTF_8)));
+    report = importer.importNdjson(ndjson);
+    assertEquals(1, report.getRespondents());
+    assertEquals("ok", store.getAnswer(2, "why"));
+    assertEquals("line 2: Record is not valid UTF-8", report.getErrors().get(0).toString());
+  }
+
+  /**
+   * Tests that text that is really in a file is not taken for bad bytes: a correctly encoded
+   * U+FFFD, and a character outside the BMP whose UTF-16 form starts with the same surrogate
+   * the decoder uses to mark bad bytes.
+   */
+  @Test
+  public void testEncodedReplacementCharacterIsText() throws IOException {
+    Path file = folder.newFile("replacement.csv").toPath();
+    Files.write(file, ("why\nbroken \ufffd sign\nold \ud800\udc00 script\n")
+            .getBytes(StandardCharsets.UTF_8));
+
+    ImportReport report = importer.importCsv(file);
+    assertTrue(report.isClean());
+    assertEquals("broken \ufffd sign", store.getAnswer(0, "why"));
+    assertEquals("old \ud800\udc00 script", store.getAnswer(1, "why"));
+  }
+
+  private static byte[] concat(byte[]... parts) {
+    int length = 0;
+    for (byte[] part : parts) {
+      length += part.length;
+    }
+    byte[] bytes = new byte[length];
+    int at = 0;
+    for (byte[] part : parts) {
+      System.arraycopy(part, 0, bytes, at, part.length);
+      at += part.length;
+    }
+    return bytes;
+  }
+
+  /**
+   * Tests NDJSON import, including escapes, nulls, and bad records and values.
+   */
+  @Test
+  public void testImportNdjson() throws IOException {
+    String ndjson = "{\"likes\": \"Yes\", \"easy\": \"agree\", "
+            + "\"why\": \"Caf\\u00e9 \\\"ok\\\"\"}\n"
+            + "\n"
+            + "{\"likes\": null, \"why\": \"Line\\nbreak\", \"extra\": \"x\"}\n"
+            + "{\"likes\": true, \"easy\": [\"Agree\"], \"why\": {\"a\": 1}}\n"
+            + "{\"likes\": \"yes\"\n"
+            + "{}\n";
+    ImportReport report = importer.importNdjson(new StringReader(ndjson));
+
+    assertEquals(4, report.getRespondents());
+    assertEquals("yes", store.getAnswer(0, "likes"));
+    assertEquals("Agree", store.getAnswer(0, "easy"));
+    assertEquals("Caf\u00e9 \"ok\"", store.getAnswer(0, "why"));
+    assertEquals("", store.getAnswer(1, "likes"));
+    assertEquals("Line\nbreak", store.getAnswer(1, "why"));
+    assertEquals("", store.getAnswer(3, "likes"));
+
+    List<ImportReport.LineError> errors = report.getErrors();
+    assertEquals("line 3, extra: No such question", errors.get(0).toString());
+    assertEquals("line 4, likes: Answer must be a string", errors.get(1).toString());
+    assertEquals("line 4, easy: Answer must be a string", errors.get(2).toString());
+    assertEquals("line 4, why: Answer must be a string", errors.get(3).toString());
+    assertEquals("line 5: Malformed JSON object", errors.get(4).toString());
+    assertEquals(5, errors.size());
+  }
+
+  /**
+   * Tests that a file much larger than one chunk loads in order, appending to a store that
+   * already has respondents.
+   */
+  @Test
+  public void testLargeFileKeepsOrder() throws IOException {
+    store.addRespondent();
+    StringBuilder csv = new StringBuilder("likes,why\n");
+    for (int i = 0; i < 20000; i++) {
+      csv.append(i % 2 == 0 ? "yes" : "no").append(',').append(i).append('\n');
+    }
+    csv.append("wrong,20000\n");
+    Path file = folder.newFile("export.csv").toPath();
+    Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+
+    ImportReport report = importer.importCsv(file);
+    assertEquals(1, report.getFirstRespondent());
+    assertEquals(20001, report.getRespondents());
+    assertEquals(20002, store.size());
+    for (int i = 0; i < 20000; i++) {
+      assertEquals(Integer.toString(i), store.getAnswer(i + 1, "why"));
+      assertEquals(i % 2 == 0 ? "yes" : "no", store.getAnswer(i + 1, "likes"));
+    }
+    assertEquals(1, report.getErrors().size());
+    assertEquals(20002, report.getErrors().get(0).getLine());
+  }
+
+  /**
+   * Tests reading NDJSON from a file, and empty input.
+   */
+  @Test
+  public void testNdjsonFileAndEmptyInput() throws IOException {
+    Path file = folder.newFile("export.ndjson").toPath();
+    Files.write(file, "{\"why\":\"Because.\"}\n".getBytes(StandardCharsets.UTF_8));
+    assertEquals(1, importer.importNdjson(file).getRespondents());
+    assertEquals("Because.", store.getAnswer(0, "why"));
+
+    assertEquals(0, importer.importCsv(new StringReader("")).getRespondents());
+    assertEquals(0, importer.importNdjson(new StringReader("")).getRespondents());
+    assertEquals(1, store.size());
+  }
+
+  /**
+   * Tests that null arguments are rejected.
+   */
+  @Test
+  public void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new ResponseImporter(null));
+    assertThrows(IllegalArgumentException.class, () -> importer.importCsv((Path) null));
+    assertThrows(IllegalArgumentException.class, () -> importer.importCsv((StringReader) null));
+    assertThrows(IllegalArgumentException.class, () -> importer.importNdjson((Path) null));
+    assertThrows(IllegalArgumentException.class,
+        () -> importer.importNdjson((StringReader) null));
+  }
+}
@@ -0,0 +1,255 @@
+package questionnaire;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Test class for ResponseJournal.
+ * Tests that appended answers replay in order after the journal is reopened,
+ * across segment files, from many threads, and after a torn write.
+ */
+public class ResponseJournalTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path directory;
+  private QuestionnaireImpl schema;
+
+  /**
+   * Sets up a journal directory and a schema with one question of each type.
+   */
+  @Before
+  public void setUp() throws IOException {
+    directory = folder.newFolder("journal").toPath();
+    schema = new QuestionnaireImpl();
+    schema.addQuestion("likes", new YesNo("Do you like it?", true));
+    schema.addQuestion("easy", new Likert("It is easy to use.", true));
+    schema.addQuestion("why", new ShortAnswer("Why?", false));
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.sorted().collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * Tests that committed answers replay into a store after reopening.
+   */
+  @Test
+  public void testReplayIntoStore() throws IOException {
+    try (ResponseJournal journal = new ResponseJournal(directory, 4096)) {
+      journal.append(0, "likes", "yes");
+      journal.append(2, "easy", "Agree");
+      journal.append(0, "why", "Caf\u00e9 reasons.");
+      journal.append(0, "likes", "NO");
+      journal.commit();
+    }
+
+    ResponseStore store = new ResponseStore(schema);
+    try (ResponseJournal journal = new ResponseJournal(directory, 4096)) {
+      assertEquals(4, journal.replay(store));
+    }
+    assertEquals(3, store.size());
+    assertEquals("no", store.getAnswer(0, "likes"));
+    assertEquals("Caf\u00e9 reasons.", store.getAnswer(0, "why"));
+    assertEquals("", store.getAnswer(1, "likes"));
+    assertEquals("Agree", store.getAnswer(2, "easy"));
+  }
+
+  /**
+   * Tests that an empty short answer replays into a store whose text column is still empty.
+   */
+  @Test
+  public void testReplayEmptyShortAnswer() throws IOException {
+    try (ResponseJournal journal = new ResponseJournal(directory, 4096)) {
+      journal.append(0, "why", "");
+      journal.append(1, "likes", "yes");
+      journal.commit();
+    }
+
+    ResponseStore store = new ResponseStore(schema);
+    try (ResponseJournal journal = new ResponseJournal(directory, 4096)) {
+      assertEquals(2, journal.replay(store));
+    }
+    assertEquals(2, store.size());
+    assertEquals("", store.getAnswer(0, "why"));
+    assertEquals("yes", store.getAnswer(1, "likes"));
+  }
+
+  /**
+   * Tests that one respondent's answers replay into a questionnaire.
+   */
+  @Test
+  public void testReplayIntoQuestionnaire() throws IOException {
+    try (ResponseJournal journal = new ResponseJournal(directory, 4096)) {
+      journal.append(0, "likes", "yes");
+      journal.append(1, "likes", "no");
+      journal.append(1, "easy", "strongly agree");
+
+      assertEquals(2, journal.replay(1, schema));
+    }
+    assertEquals("no", schema.getQuestion("likes").getAnswer());
+    assertEquals("strongly agree", schema.getQuestion("easy").getAnswer());
+    assertEquals("", schema.getQuestion("why").getAnswer());
+  }
+
+  /**
+   * Tests that reopening appends after the existing records rather than over them.
+   */
+  @Test
+  public void testReopenAppendsAfterExistingRecords() throws IOException {
+    for (int round = 0; round < 3; round++) {
+      try (ResponseJournal journal = new ResponseJournal(directory, 4096)) {
+        journal.append(round, "likes", "yes");
+      }
+    }
+    try (ResponseJournal journal = new ResponseJournal(directory, 4096)) {
+      ResponseStore store = new ResponseStore(schema);
+      assertEquals(3, journal.replay(store));
+      assertEquals(3, store.size());
+    }
+  }
+
+  /**
+   * Tests that records spill into new segment files when one fills up.
+   */
+  @Test
+  public void testRollsToNewSegments() throws IOException {
+    try (ResponseJournal journal = new ResponseJournal(directory, 128)) {
+      for (int i = 0; i < 100; i++) {
+        journal.append(i, "why", "Answer number " + i);
+      }
+      journal.commit();
+    }
+    assertEquals(true, segments().size() > 10);
+
+    ResponseStore store = new ResponseStore(schema);
+    try (ResponseJournal journal = new ResponseJournal(directory, 128)) {
+      assertEquals(100, journal.replay(store));
+      journal.append(100, "why", "One more");
+      assertEquals(101, journal.replay(new ResponseStore(schema)));
+    }
+    for (int i = 0; i < 100; i++) {
+      assertEquals("Answer number " + i, store.getAnswer(i, "why"));
+    }
+  }
+
+  /**
+   * Tests that a torn record at the end is ignored and then overwritten.
+   */
+  @Test
+  public void testTornRecordIsDiscarded() throws IOException {
+    try (ResponseJournal journal = new ResponseJournal(directory, 4096)) {
+      journal.append(0, "likes", "yes");
+      journal.append(0, "why", "A long answer that a crash cut short.");
+    }
+    // damage the last byte of the second record's payload, as a crash part-way through might
+    Path segment = segments().get(0);
+    try (FileChannel file = FileChannel.open(segment, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(4);
+      file.read(header, 0);
+      int second = 8 + header.flip().getInt();
+      header.clear();
+      file.read(header, second);
+      int end = second + 8 + header.flip().getInt();
+      file.write(ByteBuffer.wrap(new byte[] {'!'}), end - 1);
+    }
+
+    try (ResponseJournal journal = new ResponseJournal(directory, 4096)) {
+      ResponseStore store = new ResponseStore(schema);
+      assertEquals(1, journal.replay(store));
+      assertEquals("", store.getAnswer(0, "why"));
+
+      journal.append(0, "easy", "Agree");
+      store = new ResponseStore(schema);
+      assertEquals(2, journal.replay(store));
+      assertEquals("Agree", store.getAnswer(0, "easy"));
+    }
+  }
+
+  /**
+   * Tests that appends and commits from many threads are all recorded.
+   */
+  @Test
+  public void testConcurrentAppendAndCommit() throws Exception {
+    int threads = 8;
+    int perThread = 2000;
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try (ResponseJournal journal = new ResponseJournal(directory, 1 << 16)) {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int respondent = t;
+        futures.add(pool.submit(() -> {
+          for (int i = 0; i < perThread; i++) {
+            journal.append(respondent, "why", Integer.toString(i));
+            if (i % 100 == 99) {
+              journal.commit();
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    ResponseStore store = new ResponseStore(schema);
+    try (ResponseJournal journal = new ResponseJournal(directory, 1 << 16)) {
+      assertEquals(threads * perThread, journal.replay(store));
+    }
+    for (int t = 0; t < threads; t++) {
+      // each thread's answers replay in its order, so the last one wins
+      assertEquals(Integer.toString(perThread - 1), store.getAnswer(t, "why"));
+    }
+  }
+
+  /**
+   * Tests that invalid arguments and use after closing are rejected.
+   */
+  @Test
+  public void testInvalidArguments() throws IOException {
+    assertThrows(IllegalArgumentException.class, () -> new ResponseJournal(null));
+    assertThrows(IllegalArgumentException.class, () -> new ResponseJournal(directory, 8));
+
+    ResponseJournal journal = new ResponseJournal(directory, 128);
+    assertThrows(IllegalArgumentException.class, () -> journal.append(-1, "likes", "yes"));
+    assertThrows(IllegalArgumentException.class, () -> journal.append(0, "", "yes"));
+    assertThrows(IllegalArgumentException.class, () -> journal.append(0, "likes", null));
+    assertThrows(IllegalArgumentException.class,
+        () -> journal.append(0, "why", "x".repeat(200)));
+    assertThrows(IllegalArgumentException.class, () -> journal.replay(null));
+
+    journal.append(0, "missing", "yes");
+    assertThrows(NoSuchElementException.class, () -> journal.replay(new ResponseStore(schema)));
+
+    journal.close();
+    journal.close();
+    assertThrows(IllegalStateException.class, () -> journal.append(0, "likes", "yes"));
+    assertThrows(IllegalStateException.class, journal::commit);
+  }
+}
@@ -0,0 +1,131 @@
+package questionnaire;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for ResponseStatistics.
+ * Tests the Likert, yes/no and completion statistics against
+ * values worked out by hand or by a straightforward count.
+ */
+public class ResponseStatisticsTest {
+  private ResponseStore store;
+  private ResponseStatistics stats;
+
+  /**
+   * Sets up an empty store over a schema with one question of each type.
+   */
+  @Before
+  public void setUp() {
+    QuestionnaireImpl schema = new QuestionnaireImpl();
+    schema.addQuestion("likes", new YesNo("Do you like it?", true));
+    schema.addQuestion("easy", new Likert("It is easy to use.", true));
+    schema.addQuestion("why", new ShortAnswer("Why?", false));
+    store = new ResponseStore(schema);
+    stats = new ResponseStatistics(store);
+  }
+
+  /**
+   * Tests the statistics of a small hand-checked set of answers.
+   */
+  @Test
+  public void testSmallSample() {
+    String[] easy = {"Agree", "Strongly Agree", "Disagree", "Agree", ""};
+    String[] likes = {"yes", "no", "yes", "", "yes"};
+    for (int i = 0; i < easy.length; i++) {
+      int respondent = store.addRespondent();
+      if (!easy[i].isEmpty()) {
+        store.answer(respondent, "easy", easy[i]);
+      }
+      if (!likes[i].isEmpty()) {
+        store.answer(respondent, "likes", likes[i]);
+      }
+    }
+
+    assertArrayEquals(new int[] {0, 1, 0, 2, 1}, stats.likertDistribution("easy"));
+    // values 1, 2, -1, 1
+    assertEquals(0.75, stats.likertMean("easy"), 1e-12);
+    assertEquals(1.0, stats.likertMedian("easy"), 1e-12);
+    assertEquals(0.75, stats.yesRatio("likes"), 1e-12);
+    assertEquals(0.8, stats.completionRate("easy"), 1e-12);
+    assertEquals(0.0, stats.completionRate("why"), 1e-12);
+
+    Map<String, Double> rates = stats.requiredCompletionRates();
+    assertEquals(2, rates.size());
+    assertEquals(0.8, rates.get("likes"), 1e-12);
+    assertEquals(0.8, rates.get("easy"), 1e-12);
+  }
+
+  /**
+   * Tests that the median of an even number of answers averages the two middle values.
+   */
+  @Test
+  public void testEvenMedian() {
+    store.answer(store.addRespondent(), "easy", "Disagree");
+    store.answer(store.addRespondent(), "easy", "Agree");
+    store.answer(store.addRespondent(), "easy", "Strongly Agree");
+    store.answer(store.addRespondent(), "easy", "Neither Agree Nor Disagree");
+    assertEquals(0.5, stats.likertMedian("easy"), 1e-12);
+  }
+
+  /**
+   * Tests that the distribution of a large random sample matches a simple count.
+   */
+  @Test
+  public void testLargeSampleMatchesSimpleCount() {
+    Random random = new Random(7);
+    int[] expected = new int[5];
+    long sum = 0;
+    int answered = 0;
+    for (int i = 0; i < 100003; i++) {
+      int respondent = store.addRespondent();
+      int pick = random.nextInt(6);
+      if (pick < 5) {
+        LikertResponseOption option = LikertResponseOption.values()[pick];
+        store.answer(respondent, "easy", option.getText());
+        expected[pick]++;
+        sum += option.getValue();
+        answered++;
+      }
+    }
+
+    assertArrayEquals(expected, stats.likertDistribution("easy"));
+    assertEquals((double) sum / answered, stats.likertMean("easy"), 0.0);
+    assertEquals((double) answered / store.size(), stats.completionRate("easy"), 0.0);
+  }
+
+  /**
+   * Tests that statistics over no answers are NaN rather than errors.
+   */
+  @Test
+  public void testNoAnswers() {
+    assertTrue(Double.isNaN(stats.completionRate("easy")));
+    store.addRespondent();
+    assertTrue(Double.isNaN(stats.likertMean("easy")));
+    assertTrue(Double.isNaN(stats.likertMedian("easy")));
+    assertTrue(Double.isNaN(stats.yesRatio("likes")));
+    assertArrayEquals(new int[5], stats.likertDistribution("easy"));
+  }
+
+  /**
+   * Tests that type-specific statistics reject questions of other types.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testLikertOnYesNo() {
+    stats.likertMean("likes");
+  }
+
+  /**
+   * Tests that type-specific statistics reject questions of other types.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testYesRatioOnText() {
+    stats.yesRatio("why");
+  }
+}
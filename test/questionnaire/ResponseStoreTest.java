@@ -0,0 +1,283 @@
+package questionnaire;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for ResponseStore.
+ * Tests that answers stored column by column read back as recorded,
+ * are validated by the schema's rules, and rebuild into questionnaires.
+ */
+public class ResponseStoreTest {
+  private QuestionnaireImpl schema;
+  private ResponseStore store;
+
+  /**
+   * Sets up a schema with one question of each type and an empty store for it.
+   */
+  @Before
+  public void setUp() {
+    schema = new QuestionnaireImpl();
+    schema.addQuestion("likes", new YesNo("Do you like it?", true));
+    schema.addQuestion("easy", new Likert("It is easy to use.", true));
+    schema.addQuestion("why", new ShortAnswer("Why?", false));
+    store = new ResponseStore(schema);
+  }
+
+  /**
+   * Tests that a new store is empty and follows the schema's order.
+   */
+  @Test
+  public void testEmptyStore() {
+    assertEquals(0, store.size());
+    assertEquals(List.of("likes", "easy", "why"), store.getIdentifiers());
+  }
+
+  /**
+   * Tests that answers are stored per respondent and read back,
+   * yes/no and Likert in their canonical spelling.
+   */
+  @Test
+  public void testAnswerAndGetAnswer() {
+    int first = store.addRespondent();
+    int second = store.addRespondent();
+    store.answer(first, "likes", "YES");
+    store.answer(first, "easy", "strongly agree");
+    store.answer(first, "why", "Because.");
+    store.answer(second, "likes", "no");
+
+    assertEquals(2, store.size());
+    assertEquals("yes", store.getAnswer(first, "likes"));
+    assertEquals("Strongly Agree", store.getAnswer(first, "easy"));
+    assertEquals("Because.", store.getAnswer(first, "why"));
+    assertEquals("no", store.getAnswer(second, "likes"));
+    assertEquals("", store.getAnswer(second, "easy"));
+    assertEquals("", store.getAnswer(second, "why"));
+
+    // replacing an answer
+    store.answer(first, "why", "No reason");
+    store.answer(first, "likes", "No");
+    assertEquals("No reason", store.getAnswer(first, "why"));
+    assertEquals("no", store.getAnswer(first, "likes"));
+  }
+
+  /**
+   * Tests that many respondents can be stored and read back.
+   */
+  @Test
+  public void testManyRespondents() {
+    for (int i = 0; i < 1000; i++) {
+      int respondent = store.addRespondent();
+      store.answer(respondent, "likes", i % 2 == 0 ? "yes" : "no");
+      store.answer(respondent, "easy", LikertResponseOption.values()[i % 5].getText());
+      store.answer(respondent, "why", "Answer " + i);
+    }
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i % 2 == 0 ? "yes" : "no", store.getAnswer(i, "likes"));
+      assertEquals(LikertResponseOption.values()[i % 5].getText(), store.getAnswer(i, "easy"));
+      assertEquals("Answer " + i, store.getAnswer(i, "why"));
+    }
+  }
+
+  /**
+   * Tests that text answers replaced over and over read back correctly, and that the space
+   * the old ones took is reused rather than growing without bound.
+   */
+  @Test
+  public void testReplacedTextIsReclaimed() {
+    for (int i = 0; i < 100; i++) {
+      store.addRespondent();
+    }
+    ResponseStore.TextColumn column = (ResponseStore.TextColumn) store.getColumn("why");
+    String longer = "x".repeat(ShortAnswer.MAX_LENGTH);
+    for (int round = 0; round < 2000; round++) {
+      int respondent = round % 100;
+      String response = round / 100 % 2 == 0 ? longer : "Round " + round;
+      store.answer(respondent, "why", response);
+      assertEquals(response, store.getAnswer(respondent, "why"));
+    }
+    for (int i = 0; i < 100; i++) {
+      assertEquals("Round " + (1900 + i), store.getAnswer(i, "why"));
+    }
+    // 2000 answers of up to 280 characters would need over 280,000 without reclaiming
+    assertTrue(column.allocatedChars() <= 2 * ResponseStore.TextColumn.CHUNK_CHARS);
+  }
+
+  /**
+   * Tests that an empty text answer can be stored in a column that has never held text, and
+   * that it clears an earlier answer.
+   */
+  @Test
+  public void testEmptyTextAnswer() {
+    int first = store.addRespondent();
+    store.answer(first, "why", "");
+    assertEquals("", store.getAnswer(first, "why"));
+    store.answer(first, "why", "Because.");
+    store.answer(first, "why", "");
+    assertEquals("", store.getAnswer(first, "why"));
+  }
+
+  /**
+   * Tests that a question of a type this package does not know must be unanswered in the
+   * schema, since it can only be recreated by copying, answer and all.
+   */
+  @Test
+  public void testOtherQuestionTypes() {
+    QuestionnaireImpl other = new QuestionnaireImpl();
+    Question note = new Note("Anything else?");
+    other.addQuestion("note", note);
+    ResponseStore notes = new ResponseStore(other);
+    note.answer("changed later");
+    int respondent = notes.addRespondent();
+    assertEquals("", notes.toQuestionnaire(respondent).getQuestion("note").getAnswer());
+    notes.answer(respondent, "note", "Hello");
+    assertEquals("Hello", notes.toQuestionnaire(respondent).getQuestion("note").getAnswer());
+
+    assertThrows(IllegalArgumentException.class, () -> new ResponseStore(other));
+  }
+
+  /**
+   * A question type from outside the package, accepting any text.
+   */
+  private static final class Note implements Question {
+    private final String prompt;
+    private String answer = "";
+
+    Note(String prompt) {
+      this.prompt = prompt;
+    }
+
+    @Override
+    public String getPrompt() {
+      return prompt;
+    }
+
+    @Override
+    public boolean isRequired() {
+      return false;
+    }
+
+    @Override
+    public void answer(String response) {
+      if (response == null) {
+        throw new IllegalArgumentException("Response cannot be null");
+      }
+      answer = response;
+    }
+
+    @Override
+    public String getAnswer() {
+      return answer;
+    }
+
+    @Override
+    public Question copy() {
+      Note copy = new Note(prompt);
+      copy.answer = answer;
+      return copy;
+    }
+  }
+
+  /**
+   * Tests that an answered questionnaire is read into a new respondent.
+   */
+  @Test
+  public void testAddResponses() {
+    Questionnaire filled = schema.filter(q -> true);
+    filled.getQuestion("likes").answer("no");
+    filled.getQuestion("easy").answer("Disagree");
+
+    int respondent = store.addResponses(filled);
+    assertEquals(0, respondent);
+    assertEquals("no", store.getAnswer(respondent, "likes"));
+    assertEquals("Disagree", store.getAnswer(respondent, "easy"));
+    assertEquals("", store.getAnswer(respondent, "why"));
+  }
+
+  /**
+   * Tests that a questionnaire missing a schema question is rejected without adding a row.
+   */
+  @Test
+  public void testAddResponsesMissingQuestion() {
+    Questionnaire partial = schema.filter(Question::isRequired);
+    assertThrows(NoSuchElementException.class, () -> store.addResponses(partial));
+    assertEquals(0, store.size());
+  }
+
+  /**
+   * Tests that a questionnaire with an answer the schema rejects adds no row.
+   */
+  @Test
+  public void testAddResponsesInvalidAnswer() {
+    QuestionnaireImpl other = new QuestionnaireImpl();
+    other.addQuestion("likes", new YesNo("Do you like it?", true));
+    other.addQuestion("easy", new ShortAnswer("It is easy to use.", true));
+    other.addQuestion("why", new ShortAnswer("Why?", false));
+    other.getQuestion("likes").answer("yes");
+    other.getQuestion("easy").answer("Sort of");
+
+    assertThrows(IllegalArgumentException.class, () -> store.addResponses(other));
+    assertEquals(0, store.size());
+    assertEquals("", store.getAnswer(store.addRespondent(), "likes"));
+  }
+
+  /**
+   * Tests that a respondent's questionnaire is rebuilt with fresh questions.
+   */
+  @Test
+  public void testToQuestionnaire() {
+    int respondent = store.addRespondent();
+    store.answer(respondent, "likes", "yes");
+    store.answer(respondent, "why", "Just because");
+
+    Questionnaire rebuilt = store.toQuestionnaire(respondent);
+    assertEquals("Do you like it?", rebuilt.getQuestion(1).getPrompt());
+    assertEquals("yes", rebuilt.getQuestion("likes").getAnswer());
+    assertEquals("", rebuilt.getQuestion("easy").getAnswer());
+    assertEquals("Just because", rebuilt.getQuestion("why").getAnswer());
+    assertTrue(rebuilt.getQuestion("easy") instanceof Likert);
+    assertFalse(rebuilt.isComplete());
+    assertNotSame(schema.getQuestion("likes"), rebuilt.getQuestion("likes"));
+  }
+
+  /**
+   * Tests that answers are checked against the rules of each question type.
+   */
+  @Test
+  public void testInvalidAnswers() {
+    int respondent = store.addRespondent();
+    assertThrows(IllegalArgumentException.class, () -> store.answer(respondent, "likes", "maybe"));
+    assertThrows(IllegalArgumentException.class, () -> store.answer(respondent, "easy", "Meh"));
+    assertThrows(IllegalArgumentException.class, () -> store.answer(respondent, "why", null));
+    assertThrows(IllegalArgumentException.class,
+        () -> store.answer(respondent, "why", "x".repeat(ShortAnswer.MAX_LENGTH + 1)));
+    assertEquals("", store.getAnswer(respondent, "likes"));
+  }
+
+  /**
+   * Tests that unknown respondents and identifiers are rejected.
+   */
+  @Test
+  public void testUnknownRespondentOrIdentifier() {
+    store.addRespondent();
+    assertThrows(IndexOutOfBoundsException.class, () -> store.getAnswer(1, "likes"));
+    assertThrows(IndexOutOfBoundsException.class, () -> store.answer(-1, "likes", "yes"));
+    assertThrows(NoSuchElementException.class, () -> store.getAnswer(0, "nope"));
+  }
+
+  /**
+   * Tests that construction fails without a schema.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullSchema() {
+    new ResponseStore(null);
+  }
+}
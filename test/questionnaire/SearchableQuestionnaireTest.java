@@ -0,0 +1,224 @@
+package questionnaire;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test class for SearchableQuestionnaire.
+ * Covers term, prefix and phrase searches, keeping the index up to date as
+ * questions are added, removed, answered and sorted, and checks the index
+ * against a plain scan of a randomly built questionnaire.
+ */
+public class SearchableQuestionnaireTest {
+  private SearchableQuestionnaire questionnaire;
+  private ShortAnswer comments;
+
+  /**
+   * Sets up a questionnaire with a question of each type.
+   */
+  @Before
+  public void setUp() {
+    questionnaire = new SearchableQuestionnaire();
+    questionnaire.addQuestion("student", new YesNo("Are you a student?", true));
+    questionnaire.addQuestion("course", new Likert("The course was well taught.", false));
+    comments = new ShortAnswer("Any comments about the course?", false);
+    questionnaire.addQuestion("comments", comments);
+  }
+
+  @Test
+  public void testFindTerms() {
+    assertEquals(Arrays.asList("course", "comments"), questionnaire.findTerms("course"));
+    assertEquals(Collections.singletonList("comments"),
+            questionnaire.findTerms("course comments"));
+    assertEquals(Collections.emptyList(), questionnaire.findTerms("teacher"));
+  }
+
+  @Test
+  public void testFindTermsIgnoresCaseAndPunctuation() {
+    assertEquals(Collections.singletonList("student"), questionnaire.findTerms("STUDENT!"));
+  }
+
+  @Test
+  public void testFindPrefix() {
+    assertEquals(Arrays.asList("course", "comments"), questionnaire.findPrefix("co"));
+    assertEquals(Collections.singletonList("student"), questionnaire.findPrefix("Stu"));
+    assertEquals(Collections.emptyList(), questionnaire.findPrefix("zz"));
+  }
+
+  @Test
+  public void testFindPhrase() {
+    assertEquals(Collections.singletonList("course"), questionnaire.findPhrase("well taught"));
+    assertEquals(Collections.emptyList(), questionnaire.findPhrase("taught well"));
+    assertEquals(Collections.singletonList("comments"),
+            questionnaire.findPhrase("comments about the"));
+  }
+
+  @Test
+  public void testAnswersAreIndexed() {
+    comments.answer("Lectures were too fast");
+    assertEquals(Collections.singletonList("comments"), questionnaire.findTerms("lectures"));
+    assertEquals(Collections.singletonList("comments"), questionnaire.findPhrase("too fast"));
+
+    comments.answer("Great labs");
+    assertEquals(Collections.emptyList(), questionnaire.findTerms("lectures"));
+    assertEquals(Collections.singletonList("comments"), questionnaire.findPrefix("lab"));
+  }
+
+  @Test
+  public void testPhraseDoesNotSpanPromptAndAnswer() {
+    comments.answer("Course was fine");
+    assertEquals(Collections.emptyList(), questionnaire.findPhrase("course course"));
+    assertEquals(Collections.singletonList("comments"), questionnaire.findPhrase("was fine"));
+  }
+
+  @Test
+  public void testSharedQuestionDoesNotKeepIndexesAlive() throws InterruptedException {
+    List<WeakReference<SearchableQuestionnaire>> dropped = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      SearchableQuestionnaire shortLived = new SearchableQuestionnaire();
+      shortLived.addQuestion("comments", comments);
+      dropped.add(new WeakReference<>(shortLived));
+    }
+    for (int i = 0; i < 100 && dropped.stream().anyMatch(r -> r.get() != null); i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertTrue(dropped.stream().allMatch(r -> r.get() == null));
+
+    comments.answer("Still indexed");
+    assertEquals(Collections.singletonList("comments"), questionnaire.findTerms("still"));
+  }
+
+  @Test
+  public void testOnlyShortAnswersAreIndexed() {
+    questionnaire.getQuestion("student").answer("yes");
+    assertEquals(Collections.emptyList(), questionnaire.findTerms("yes"));
+  }
+
+  @Test
+  public void testRemovedQuestionsAreNotFound() {
+    questionnaire.removeQuestion("comments");
+    assertEquals(Collections.singletonList("course"), questionnaire.findTerms("course"));
+
+    // answers to a removed question no longer reach the index
+    comments.answer("still here");
+    assertEquals(Collections.emptyList(), questionnaire.findTerms("still"));
+  }
+
+  @Test
+  public void testBatchesAreIndexed() {
+    Map<String, Question> batch = new LinkedHashMap<>();
+    batch.put("teacher", new Likert("The teacher was helpful.", false));
+    ShortAnswer more = new ShortAnswer("Anything else?", false);
+    batch.put("more", more);
+    questionnaire.addAll(batch);
+    more.answer("The teacher was late");
+    assertEquals(Arrays.asList("teacher", "more"), questionnaire.findPhrase("teacher was"));
+
+    questionnaire.removeAll(Arrays.asList("teacher", "comments"));
+    assertEquals(Collections.singletonList("more"), questionnaire.findTerms("teacher"));
+    assertEquals(Collections.singletonList("course"), questionnaire.findTerms("course"));
+    comments.answer("teacher");
+    assertEquals(Collections.singletonList("more"), questionnaire.findTerms("teacher"));
+  }
+
+  @Test
+  public void testResultsFollowSortedOrder() {
+    questionnaire.sort(Comparator.comparing(Question::getPrompt));
+    assertEquals(Arrays.asList("comments", "course"), questionnaire.findTerms("course"));
+  }
+
+  @Test
+  public void testSelect() {
+    comments.answer("Good");
+    Questionnaire found = questionnaire.select(questionnaire.findTerms("course"));
+    assertEquals(2, found.getOptionalQuestions().size());
+    assertEquals("The course was well taught.", found.getQuestion(1).getPrompt());
+    assertEquals("Good", found.getQuestion("comments").getAnswer());
+    assertNotSame(comments, found.getQuestion("comments"));
+  }
+
+  @Test
+  public void testSelectKeepsQuestionnaireOrder() {
+    Questionnaire found = questionnaire.select(Arrays.asList("comments", "student", "comments"));
+    assertEquals("Are you a student?", found.getQuestion(1).getPrompt());
+    assertEquals("Any comments about the course?", found.getQuestion(2).getPrompt());
+    assertThrows(IndexOutOfBoundsException.class, () -> found.getQuestion(3));
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> questionnaire.findTerms(null));
+    assertThrows(IllegalArgumentException.class, () -> questionnaire.findPhrase(" ?! "));
+    assertThrows(IllegalArgumentException.class, () -> questionnaire.findPrefix("two words"));
+    assertThrows(IllegalArgumentException.class, () -> questionnaire.select(null));
+    assertThrows(NoSuchElementException.class,
+        () -> questionnaire.select(Collections.singletonList("missing")));
+    assertThrows(NoSuchElementException.class, () -> questionnaire.removeQuestion("missing"));
+    assertThrows(IllegalArgumentException.class,
+        () -> questionnaire.addQuestion("student", new YesNo("Again?", true)));
+    assertEquals(Collections.singletonList("student"), questionnaire.findTerms("student"));
+  }
+
+  @Test
+  public void testMatchesScan() {
+    String[] vocabulary = {"alpha", "beta", "gamma", "delta", "alphabet", "gam"};
+    Random random = new Random(19);
+    List<String> live = new ArrayList<>();
+    SearchableQuestionnaire searchable = new SearchableQuestionnaire();
+    for (int i = 0; i < 2000; i++) {
+      if (!live.isEmpty() && random.nextInt(4) == 0) {
+        searchable.removeQuestion(live.remove(random.nextInt(live.size())));
+        continue;
+      }
+      StringBuilder prompt = new StringBuilder();
+      for (int w = 0; w < 4; w++) {
+        prompt.append(vocabulary[random.nextInt(vocabulary.length)]).append(' ');
+      }
+      ShortAnswer question = new ShortAnswer(prompt.toString(), false);
+      searchable.addQuestion("q" + i, question);
+      live.add("q" + i);
+      if (random.nextBoolean()) {
+        question.answer(vocabulary[random.nextInt(vocabulary.length)] + " beta");
+      }
+    }
+
+    for (String word : vocabulary) {
+      assertEquals(scan(searchable, " " + word + " "), searchable.findTerms(word));
+      assertEquals(scan(searchable, " " + word), searchable.findPrefix(word));
+      assertEquals(scan(searchable, " " + word + " beta "),
+              searchable.findPhrase(word + " beta"));
+    }
+  }
+
+  /**
+   * Finds the questions whose words contain the given text by testing each one in turn.
+   */
+  private static List<String> scan(QuestionnaireImpl q, String text) {
+    List<String> found = new ArrayList<>();
+    for (String identifier : q.getIdentifiers()) {
+      Question question = q.getQuestion(identifier);
+      String prompt = " " + question.getPrompt() + " ";
+      String answer = " " + question.getAnswer() + " ";
+      if (prompt.contains(text) || answer.contains(text)) {
+        found.add(identifier);
+      }
+    }
+    return found;
+  }
+}
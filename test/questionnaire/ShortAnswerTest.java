@@ -1,11 +1,16 @@
 package questionnaire;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import org.junit.Test;
 import org.junit.Before;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
 
 public class ShortAnswerTest {
   private ShortAnswer question;
@@ -74,4 +79,59 @@ public class ShortAnswerTest {
     assertEquals(question.getAnswer(), copy.getAnswer());
     assertNotSame(question, copy);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testTryAnswer() {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < MAX_LENGTH; i++) {
+      text.append('a');
+    }
+    assertSame(ValidationResult.OK, question.tryAnswer(text));
+    assertEquals(text.toString(), question.getAnswer());
+
+    text.append('a');
+    assertSame(ValidationResult.TOO_LONG, question.tryAnswer(text));
+    assertSame(ValidationResult.NULL, question.tryAnswer(null));
+    assertEquals(MAX_LENGTH, question.getAnswer().length());
+
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> question.answer(text.toString()));
+    assertEquals(ValidationResult.TOO_LONG.getMessage(), e.getMessage());
+  }
+
+  @Test
+  public void testTryAnswerUtf8CountsCharacters() {
+    // 280 two-byte characters fit; one more does not
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < MAX_LENGTH; i++) {
+      text.append('\u00e9');
+    }
+    byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+    assertSame(ValidationResult.OK, question.tryAnswerUtf8(ByteBuffer.wrap(bytes)));
+    assertEquals(text.toString(), question.getAnswer());
+
+    byte[] tooLong = (text + "a").getBytes(StandardCharsets.UTF_8);
+    assertSame(ValidationResult.TOO_LONG, question.tryAnswerUtf8(ByteBuffer.wrap(tooLong)));
+
+    // characters outside the BMP count twice, as they do in String.length()
+    String emoji = new String(Character.toChars(0x1F600));
+    StringBuilder pairs = new StringBuilder();
+    for (int i = 0; i < MAX_LENGTH / 2; i++) {
+      pairs.append(emoji);
+    }
+    byte[] fits = pairs.toString().getBytes(StandardCharsets.UTF_8);
+    assertSame(ValidationResult.OK, question.tryAnswerUtf8(ByteBuffer.wrap(fits)));
+    byte[] over = (pairs + emoji).getBytes(StandardCharsets.UTF_8);
+    assertSame(ValidationResult.TOO_LONG, question.tryAnswerUtf8(ByteBuffer.wrap(over)));
+
+    // an overlong answer is rejected before its malformed tail is ever decoded
+    byte[] overlongAndBroken = new byte[MAX_LENGTH + 2];
+    Arrays.fill(overlongAndBroken, (byte) 'a');
+    overlongAndBroken[MAX_LENGTH + 1] = (byte) 0xFF;
+    assertSame(ValidationResult.TOO_LONG,
+        question.tryAnswerUtf8(ByteBuffer.wrap(overlongAndBroken)));
+    assertSame(ValidationResult.NOT_UTF8,
+        question.tryAnswerUtf8(ByteBuffer.wrap(new byte[] {'a', (byte) 0xFF})));
+    assertEquals(MAX_LENGTH, question.getAnswer().length());
+  }
+}
@@ -1,10 +1,14 @@
 package questionnaire;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import org.junit.Test;
 import org.junit.Before;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 public class YesNoTest {
@@ -69,4 +73,83 @@ public class YesNoTest {
     assertEquals(question.getAnswer(), copy.getAnswer());
     assertNotSame(question, copy);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testAnswerCode() {
+    assertEquals(YesNo.UNANSWERED, question.getCode());
+    assertEquals(YesNo.UNANSWERED, ((YesNo) question.copy()).getCode());
+    question.answer("YES");
+    assertEquals(YesNo.YES, ((YesNo) question.copy()).getCode());
+    assertEquals(YesNo.YES, question.getCode());
+    question.answer("nO");
+    assertEquals(YesNo.NO, question.getCode());
+    assertEquals(YesNo.NO, ((YesNo) question.copy()).getCode());
+  }
+
+  @Test
+  public void testCommonSpellingsShared() {
+    question.answer(new String("Yes"));
+    assertSame("Yes", question.getAnswer());
+    question.answer(new String("no"));
+    assertSame("no", question.getAnswer());
+
+    // unusual capitalizations are kept as given
+    String unusual = new String("yEs");
+    question.answer(unusual);
+    assertSame(unusual, question.getAnswer());
+  }
+
+  @Test
+  public void testTryAnswer() {
+    assertSame(ValidationResult.OK, question.tryAnswer("yEs"));
+    assertEquals("yEs", question.getAnswer());
+    assertEquals(YesNo.YES, question.getCode());
+    assertSame(ValidationResult.OK, question.tryAnswer(new StringBuilder("NO")));
+    assertEquals(YesNo.NO, question.getCode());
+
+    // invalid responses are reported and leave the answer alone
+    assertSame(ValidationResult.NOT_YES_NO, question.tryAnswer("maybe"));
+    assertSame(ValidationResult.NOT_YES_NO, question.tryAnswer("yess"));
+    assertSame(ValidationResult.NOT_YES_NO, question.tryAnswer(""));
+    assertSame(ValidationResult.NULL, question.tryAnswer(null));
+    assertEquals("NO", question.getAnswer());
+  }
+
+  @Test
+  public void testValidateMatchesAnswer() {
+    assertSame(ValidationResult.OK, question.validate("YES"));
+    assertEquals("", question.getAnswer());
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> question.answer("maybe"));
+    assertEquals(ValidationResult.NOT_YES_NO.getMessage(), e.getMessage());
+    e = assertThrows(IllegalArgumentException.class, () -> question.answer(null));
+    assertEquals(ValidationResult.NULL.getMessage(), e.getMessage());
+  }
+
+  @Test
+  public void testTryAnswerUtf8() {
+    ByteBuffer bytes = ByteBuffer.wrap("xxYESxx".getBytes(StandardCharsets.UTF_8), 2, 3);
+    assertSame(ValidationResult.OK, question.tryAnswerUtf8(bytes));
+    assertSame(YesNo.YES_SPELLINGS[2], question.getAnswer());
+    assertEquals(YesNo.YES, question.getCode());
+    assertEquals(2, bytes.position());
+
+    question.answerUtf8(ByteBuffer.wrap("nO".getBytes(StandardCharsets.UTF_8)));
+    assertEquals("nO", question.getAnswer());
+    assertEquals(YesNo.NO, question.getCode());
+
+    // a long s folds to s, as it does for String.equalsIgnoreCase
+    assertSame(ValidationResult.OK,
+        question.tryAnswerUtf8(ByteBuffer.wrap("ye\u017f".getBytes(StandardCharsets.UTF_8))));
+    assertEquals(YesNo.YES, question.getCode());
+
+    assertSame(ValidationResult.NOT_YES_NO,
+        question.tryAnswerUtf8(ByteBuffer.wrap("yep".getBytes(StandardCharsets.UTF_8))));
+    assertSame(ValidationResult.NOT_UTF8,
+        question.tryAnswerUtf8(ByteBuffer.wrap(new byte[] {'y', (byte) 0xC3})));
+    assertSame(ValidationResult.NULL, question.tryAnswerUtf8(null));
+    assertThrows(IllegalArgumentException.class,
+        () -> question.answerUtf8(ByteBuffer.wrap(new byte[0])));
+    assertEquals(YesNo.YES, question.getCode());
+  }
+}